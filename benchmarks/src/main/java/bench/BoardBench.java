@@ -0,0 +1,66 @@
+package bench;
+
+import model.Board;
+import model.Position;
+import model.Ship;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board hot paths: placing a fleet, firing, and the game-over check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBench {
+
+    private Ship[] ships;
+    private Position[] sweep;
+    private Board firing;     // board fired at by fire(); replaced after every full sweep
+    private int next;         // index into sweep of the next shot
+    private Board halfSunk;   // board with every other ship cell hit, for allSunk()
+
+    @Setup
+    public void setup() {
+        ships = Fleet.ships();
+        sweep = Fleet.sweep();
+        firing = Fleet.board(ships);
+        halfSunk = Fleet.board(ships);
+        for (int i = 0; i < sweep.length; i += 2) {
+            halfSunk.fire(sweep[i]);
+        }
+    }
+
+    /**
+     * Places the whole fleet on an empty board.
+     */
+    @Benchmark
+    public Board placeShip() {
+        return Fleet.board(ships);
+    }
+
+    /**
+     * One shot at a cell not fired at before; a fresh board is set up
+     * every {@code GRID_SIZE²} shots, so that cost is amortised over a full sweep.
+     */
+    @Benchmark
+    public Board.Cell fire() {
+        if (next == sweep.length) {
+            firing = Fleet.board(ships);
+            next = 0;
+        }
+        return firing.fire(sweep[next++]);
+    }
+
+    /**
+     * Game-over check on a board that still has ships afloat.
+     */
+    @Benchmark
+    public boolean allSunk() {
+        return halfSunk.allSunk();
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import model.Board;
+import model.GameRules;
+import model.Position;
+import model.Ship;
+
+/**
+ * Fixed fleet and shot orders shared by the model benchmarks,
+ * so every run measures the same boards.
+ */
+final class Fleet {
+
+    static final int CELLS = GameRules.GRID_SIZE * GameRules.GRID_SIZE;
+
+    private Fleet() {}
+
+    /**
+     * Returns the standard fleet laid out horizontally, one ship per row from row 0.
+     */
+    static Ship[] ships() {
+        Ship[] ships = new Ship[GameRules.numShips()];
+        for (int i = 0; i < ships.length; i++) {
+            ships[i] = Ship.fromHorizontal(Position.of(i, 0), GameRules.SHIP_SIZES[i]);
+        }
+        return ships;
+    }
+
+    /**
+     * Returns a new board holding the given fleet.
+     */
+    static Board board(Ship[] ships) {
+        Board board = new Board();
+        for (Ship ship : ships) {
+            board.placeShip(ship);
+        }
+        return board;
+    }
+
+    /**
+     * Returns every cell of the grid in row-major order.
+     */
+    static Position[] sweep() {
+        Position[] cells = new Position[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = Position.of(i / GameRules.GRID_SIZE, i % GameRules.GRID_SIZE);
+        }
+        return cells;
+    }
+}
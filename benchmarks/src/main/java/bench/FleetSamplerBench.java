@@ -0,0 +1,74 @@
+package bench;
+
+import model.Board;
+import model.FleetSampler;
+import model.GameRules;
+import model.Position;
+import model.Ship;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random fleets: the placement-mask sampler against the retry loop that builds a Ship
+ * per attempt and lets a Board reject overlaps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FleetSamplerBench {
+
+    private final FleetSampler sampler = FleetSampler.standard();
+    private final SplittableRandom rnd = new SplittableRandom(1);
+    private final Random random = new Random(1);
+    private long[] taken;
+    private int[] placements;
+
+    @Setup
+    public void setup() {
+        taken = new long[sampler.words()];
+        placements = new int[sampler.ships()];
+    }
+
+    /**
+     * One fleet as placement indexes and a cell mask, as simulations use it.
+     */
+    @Benchmark
+    public long[] sampleFleet() {
+        sampler.sampleFleet(rnd, taken, placements);
+        return taken;
+    }
+
+    /**
+     * One fleet as Ship objects, as clients send it.
+     */
+    @Benchmark
+    public Ship[] randomFleet() {
+        return sampler.randomFleet(random);
+    }
+
+    /**
+     * The retry loop the bots used before: random Ship, then Board.placeShip until it fits.
+     */
+    @Benchmark
+    public Ship[] retryLoop() {
+        Board board = new Board();
+        Ship[] fleet = new Ship[GameRules.numShips()];
+        for (int i = 0; i < fleet.length; i++) {
+            int len = GameRules.SHIP_SIZES[i];
+            do {
+                boolean horizontal = random.nextBoolean();
+                int r = random.nextInt(horizontal ? GameRules.GRID_SIZE : GameRules.GRID_SIZE - len + 1);
+                int c = random.nextInt(horizontal ? GameRules.GRID_SIZE - len + 1 : GameRules.GRID_SIZE);
+                Position start = Position.of(r, c);
+                fleet[i] = horizontal ? Ship.fromHorizontal(start, len) : Ship.fromVertical(start, len);
+            } while (!board.placeShip(fleet[i]));
+        }
+        return fleet;
+    }
+}
@@ -0,0 +1,49 @@
+package bench;
+
+import model.GameState;
+import model.Position;
+import model.Ship;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete game through GameState: both fleets placed, then both players
+ * sweep the grid in row-major order until one fleet is sunk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBench {
+
+    private Ship[] ships;
+    private Position[] sweep;
+
+    @Setup
+    public void setup() {
+        ships = Fleet.ships();
+        sweep = Fleet.sweep();
+    }
+
+    /**
+     * Plays one game and returns the winner.
+     */
+    @Benchmark
+    public int fullGame() {
+        GameState state = new GameState();
+        for (int player = 0; player < 2; player++) {
+            for (Ship ship : ships) {
+                state.placeShip(player, ship);
+            }
+        }
+        int[] next = new int[2]; // next sweep index per player
+        while (!state.isGameOver()) {
+            int player = state.getCurrentPlayer();
+            state.fire(sweep[next[player]++]);
+        }
+        return state.getWinner();
+    }
+}
@@ -0,0 +1,24 @@
+package bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: runs the model benchmarks with the GC profiler
+ * attached, so every result shows allocation rate (gc.alloc.rate.norm, bytes/op)
+ * next to throughput. Accepts the usual JMH command line, e.g. a benchmark regex.
+ *
+ * Usage: java -jar benchmarks/target/benchmarks.jar [BoardBench] [-f 2 -wi 5 ...]
+ */
+public class ModelBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
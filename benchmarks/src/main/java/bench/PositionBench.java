@@ -0,0 +1,44 @@
+package bench;
+
+import model.Position;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Position as a hash key and the flyweight lookup: hashCode, equals and Position.of.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PositionBench {
+
+    private Position a;
+    private Position b;
+    private int row = 7;
+    private int col = 3;
+
+    @Setup
+    public void setup() {
+        a = Position.of(7, 3);
+        b = Position.of(3, 7);
+    }
+
+    @Benchmark
+    public int hashCodeBench() {
+        return a.hashCode();
+    }
+
+    @Benchmark
+    public boolean equalsBench() {
+        return a.equals(b);
+    }
+
+    @Benchmark
+    public Position of() {
+        return Position.of(row, col);
+    }
+}
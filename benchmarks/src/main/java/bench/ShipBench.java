@@ -0,0 +1,42 @@
+package bench;
+
+import model.Position;
+import model.Ship;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ship geometry: listing the cells of a ship, its length and cell containment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShipBench {
+
+    private Ship carrier; // longest ship of the fleet
+
+    @Setup
+    public void setup() {
+        carrier = Fleet.ships()[0];
+    }
+
+    @Benchmark
+    public List<Position> getPositions() {
+        return carrier.getPositions();
+    }
+
+    @Benchmark
+    public int length() {
+        return carrier.length();
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return carrier.contains(2, 4);
+    }
+}
@@ -0,0 +1,98 @@
+package bench;
+
+import server.GameServer;
+import server.NioGameServer;
+import server.ServerConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * LoopbackServer runs a game server inside the benchmark JVM on a free local port.
+ * The server's per-connection logging is muted so it does not dominate the measurement.
+ */
+final class LoopbackServer {
+
+    private final ServerConfig config;
+    private final Runnable stop;
+
+    private LoopbackServer(ServerConfig config, Runnable stop) {
+        this.config = config;
+        this.stop   = stop;
+    }
+
+    /**
+     * Starts a server with the given server options (--mode, --threads, ...) on a free port.
+     */
+    static LoopbackServer start(List<String> serverArgs) throws IOException {
+        List<String> args = new ArrayList<>(serverArgs);
+        args.add("--port=" + freePort());
+        ServerConfig config = ServerConfig.parse(args.toArray(new String[0]));
+
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Runnable stop;
+        Thread thread;
+        if (config.getMode() == ServerConfig.Mode.NIO) {
+            NioGameServer server = new NioGameServer(config);
+            thread = new Thread(server::start, "loopback-server");
+            stop = server::stop;
+        } else {
+            GameServer server = new GameServer(config);
+            thread = new Thread(server::start, "loopback-server");
+            stop = server::stop;
+        }
+        thread.setDaemon(true);
+        thread.start();
+        return new LoopbackServer(config, stop);
+    }
+
+    /**
+     * Splits benchmark arguments into the benchmark's own options and server options.
+     * @param own names (without "--") that belong to the benchmark
+     */
+    static List<String> serverArgs(String[] args, String... own) {
+        List<String> rest = new ArrayList<>();
+        for (String arg : args) {
+            if (Arrays.stream(own).noneMatch(name -> arg.startsWith("--" + name + "="))) {
+                rest.add(arg);
+            }
+        }
+        return rest;
+    }
+
+    /**
+     * Returns the value of {@code --name=value} in args, or the default.
+     */
+    static int intArg(String[] args, String name, int def) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + name + "=")) {
+                return Integer.parseInt(arg.substring(name.length() + 3));
+            }
+        }
+        return def;
+    }
+
+    ServerConfig config() {
+        return config;
+    }
+
+    int port() {
+        return config.getPort();
+    }
+
+    void stop() {
+        stop.run();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket probe = new ServerSocket(0)) {
+            return probe.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package bench;
+
+import common.Frames;
+import common.Handshake;
+import common.MessageCodec;
+import server.ServerConfig;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SessionSoak is a loopback soak test for the server execution modes.
+ * It starts a server in-process, opens the requested number of idle sessions
+ * (two sockets each, parked in the placement phase) and reports how many sessions
+ * are alive together with threads, heap and resident memory per session.
+ *
+ * Usage: java -cp bin bench.SessionSoak --sessions=2000 [--mode=blocking|nio] [--threads=platform|virtual]
+ *
+ * The client sockets live in the same JVM, so the per-session figures include
+ * two client-side sockets; compare modes against each other, not against zero.
+ */
+public class SessionSoak {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = LoopbackServer.intArg(args, "sessions", 1000);
+        PrintStream console = System.out;
+        LoopbackServer server = LoopbackServer.start(LoopbackServer.serverArgs(args, "sessions"));
+        ServerConfig config = server.config();
+        int port = server.port();
+
+        Snapshot before = Snapshot.take();
+        List<Socket> clients = new ArrayList<>(sessions * 2);
+        long t0 = System.nanoTime();
+        try {
+            for (int i = 0; i < sessions; i++) {
+                Socket a = connect(port);
+                Socket b = connect(port);
+                clients.add(a);
+                clients.add(b);
+                awaitMatch(a, b);
+            }
+        } catch (IOException e) {
+            console.println("Stopped after " + clients.size() / 2 + " sessions: " + e);
+        }
+        long setupMillis = (System.nanoTime() - t0) / 1_000_000;
+        int live = clients.size() / 2;
+
+        Thread.sleep(500); // let reader threads park
+        Snapshot after = Snapshot.take();
+
+        console.printf("mode=%s threads=%s%n", config.getMode(), config.getThreads());
+        console.printf("concurrent sessions : %d (setup %d ms)%n", live, setupMillis);
+        console.printf("live threads        : %d -> %d (+%.2f per session)%n",
+                before.threads, after.threads, per(after.threads - before.threads, live));
+        console.printf("heap used           : %.1f MB -> %.1f MB (%.1f KB per session)%n",
+                mb(before.heap), mb(after.heap), per(after.heap - before.heap, live) / 1024);
+        if (after.rss > 0) {
+            console.printf("resident set        : %.1f MB -> %.1f MB (%.1f KB per session)%n",
+                    mb(before.rss), mb(after.rss), per(after.rss - before.rss, live) / 1024);
+        }
+
+        for (Socket s : clients) {
+            s.close();
+        }
+        server.stop();
+    }
+
+    private static Socket connect(int port) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return new Socket("localhost", port);
+            } catch (IOException e) {
+                if (attempt >= 50) throw e;
+                try {
+                    Thread.sleep(100); // server thread may still be binding
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the handshake on both sockets of a pair, then reads the WELCOME and
+     * MatchFound frames each of them gets, proving the session is live.
+     */
+    private static void awaitMatch(Socket a, Socket b) throws IOException {
+        DataInputStream inA = new DataInputStream(new BufferedInputStream(a.getInputStream(), 512));
+        DataInputStream inB = new DataInputStream(new BufferedInputStream(b.getInputStream(), 512));
+        MessageCodec codecA = handshake(a, inA);
+        MessageCodec codecB = handshake(b, inB);
+        Frames.read(inA, codecA);
+        Frames.read(inA, codecA);
+        Frames.read(inB, codecB);
+        Frames.read(inB, codecB);
+    }
+
+    private static MessageCodec handshake(Socket s, DataInputStream in) throws IOException {
+        DataOutputStream out = new DataOutputStream(s.getOutputStream());
+        // the parked clients never read again, so they must not be asked to answer pings
+        int version = Handshake.HEARTBEAT_VERSION - 1;
+        return MessageCodec.forId(Handshake.connect(in, out, version, Handshake.preferredCodec()).getCodec());
+    }
+
+    private static double per(long total, int sessions) {
+        return sessions == 0 ? 0 : (double) total / sessions;
+    }
+
+    private static double mb(long bytes) {
+        return bytes / (1024.0 * 1024.0);
+    }
+
+    /**
+     * Process-wide resource usage at one point in time.
+     */
+    private static final class Snapshot {
+        final int threads;
+        final long heap;
+        final long rss;
+
+        private Snapshot(int threads, long heap, long rss) {
+            this.threads = threads;
+            this.heap    = heap;
+            this.rss     = rss;
+        }
+
+        static Snapshot take() {
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            Runtime rt = Runtime.getRuntime();
+            return new Snapshot(ManagementFactory.getThreadMXBean().getThreadCount(),
+                    rt.totalMemory() - rt.freeMemory(), residentBytes());
+        }
+
+        /**
+         * Reads VmRSS from /proc on Linux; thread stacks only show up here, not in the heap.
+         */
+        private static long residentBytes() {
+            try {
+                return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                        .filter(l -> l.startsWith("VmRSS:"))
+                        .map(l -> Arrays.stream(l.split("\\s+")).filter(t -> t.matches("\\d+")).findFirst().orElse("0"))
+                        .mapToLong(kb -> Long.parseLong(kb) * 1024)
+                        .findFirst().orElse(0);
+            } catch (IOException | RuntimeException e) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package bench;
+
+import common.*;
+import model.GameRules;
+import model.Position;
+import model.Ship;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TurnFlushBench plays scripted games over loopback and reports how many frames
+ * (each one a separate write + flush on the server) and bytes a player receives per shot.
+ * Run it once with --version=1 (separate FireResponse/TurnMessage frames) and once with
+ * --version=2 (one coalesced TurnOutcomeMessage) to compare.
+ *
+ * Usage: java -cp bin bench.TurnFlushBench --games=2000 --pairs=4 --version=2 [server options]
+ */
+public class TurnFlushBench {
+
+    private static final LongAdder shots  = new LongAdder();
+    private static final LongAdder frames = new LongAdder(); // battle-phase frames received, both players
+    private static final LongAdder bytes  = new LongAdder(); // battle-phase bytes received, both players
+    private static final Object LOBBY = new Object();        // keeps the two sockets of a game paired together
+
+    public static void main(String[] args) throws Exception {
+        int games   = LoopbackServer.intArg(args, "games", 2000);
+        int pairs   = LoopbackServer.intArg(args, "pairs", 4);
+        int version = LoopbackServer.intArg(args, "version", Handshake.VERSION);
+        PrintStream console = System.out;
+        LoopbackServer server = LoopbackServer.start(LoopbackServer.serverArgs(args, "games", "pairs", "version"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(pairs);
+        List<Future<?>> done = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < pairs; i++) {
+            int share = games / pairs + (i < games % pairs ? 1 : 0);
+            done.add(pool.submit(() -> {
+                for (int g = 0; g < share; g++) {
+                    playGame(server.port(), version);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : done) {
+            f.get();
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        pool.shutdown();
+        server.stop();
+
+        long n = shots.sum();
+        console.printf("mode=%s version=%d codec=%s%n", server.config().getMode(), version,
+                System.getProperty(Handshake.CODEC_PROPERTY, "binary"));
+        console.printf("games=%d shots=%d in %.2f s (%.0f shots/s)%n", games, n, seconds, n / seconds);
+        console.printf("per shot and player: %.2f frames (writes), %.1f bytes%n",
+                frames.sum() / (2.0 * n), bytes.sum() / (2.0 * n));
+    }
+
+    /**
+     * Plays one full game between two scripted players and closes both sockets.
+     */
+    private static void playGame(int port, int version) throws IOException {
+        try (Player a = new Player(port); Player b = new Player(port)) {
+            Player[] byId = new Player[2];
+            synchronized (LOBBY) { // the server pairs in arrival order
+                a.handshake(version);
+                b.handshake(version);
+                for (Player p : new Player[]{a, b}) {
+                    p.read(); // WELCOME
+                    byId[((MatchFoundMessage) p.read()).getPlayerId()] = p;
+                }
+            }
+            for (Player p : byId) {
+                p.placeFleet();
+            }
+            boolean zeroStarts = ((TurnMessage) byId[0].read()).isYourTurn();
+            byId[1].read();
+
+            int attacker = zeroStarts ? 0 : 1;
+            int[] nextCell = new int[2];
+            byId[0].counting = byId[1].counting = true;
+            while (true) {
+                int cell = nextCell[attacker]++;
+                byId[attacker].send(new FireRequest(Position.of(cell / GameRules.GRID_SIZE, cell % GameRules.GRID_SIZE)));
+                shots.increment();
+
+                Boolean attackerKeepsTurn = null;
+                boolean over = false;
+                for (int id = 0; id < 2; id++) {
+                    Object last = byId[id].readOutcome();
+                    if (last instanceof GameOverMessage) {
+                        over = true;
+                    } else if (id == attacker) {
+                        attackerKeepsTurn = ((TurnMessage) last).isYourTurn();
+                    }
+                }
+                if (over) return;
+                if (!attackerKeepsTurn) attacker = 1 - attacker;
+            }
+        }
+    }
+
+    /**
+     * One scripted client connection.
+     */
+    private static final class Player implements AutoCloseable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private MessageCodec codec;
+        private int version;
+        boolean counting; // count received frames once the battle starts
+
+        Player(int port) throws IOException {
+            socket = new Socket("localhost", port);
+            socket.setTcpNoDelay(true);
+            in  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        void handshake(int maxVersion) throws IOException {
+            Handshake.Hello agreed = Handshake.connect(in, out, maxVersion, Handshake.preferredCodec());
+            codec   = MessageCodec.forId(agreed.getCodec());
+            version = agreed.getVersion();
+        }
+
+        /**
+         * Places every ship of the fleet in its own row, starting at column 0.
+         */
+        void placeFleet() throws IOException {
+            for (int i = 0; i < GameRules.numShips(); i++) {
+                send(new PlaceShipRequest(0, Ship.fromHorizontal(Position.of(i, 0), GameRules.SHIP_SIZES[i])));
+                read();
+            }
+            send(new ReadyRequest(0));
+        }
+
+        /**
+         * Reads everything the server sends for one shot and returns the
+         * TurnMessage or GameOverMessage part of it.
+         */
+        Object readOutcome() throws IOException {
+            if (version >= 2) {
+                TurnOutcomeMessage tom = (TurnOutcomeMessage) read();
+                return tom.isGameOver() ? tom.getGameOver() : tom.getTurn();
+            }
+            read(); // FireResponse
+            return read();
+        }
+
+        void send(Object msg) throws IOException {
+            Frames.write(out, codec, msg);
+        }
+
+        Object read() throws IOException {
+            while (true) {
+                byte[] payload = Frames.readPayload(in);
+                Object msg = codec.decode(payload, 0, payload.length);
+                if (msg instanceof PingMessage ping) { // heartbeats are not part of a shot
+                    send(new PongMessage(ping.getStamp()));
+                    continue;
+                }
+                if (counting) {
+                    frames.increment();
+                    bytes.add(Frames.HEADER_SIZE + payload.length);
+                }
+                return msg;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package bot;
+
+import client.GameClient;
+import client.GameListener;
+import common.*;
+import model.Board;
+import model.FleetSampler;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.Random;
+
+/**
+ * BotPlayer plays one connection without any UI: it places a random fleet, fires
+ * where its FireStrategy says and asks for rematches until it has played its games.
+ * All callbacks run on the connection's reader thread.
+ */
+public class BotPlayer implements GameListener {
+
+    private static final int RESTARTS = 64; // fleets started over before a ruleset is given up as too crowded
+
+    private final GameClient client;
+    private final FireStrategy strategy;
+    private final Random random;
+    private final LoadStats stats;
+    private int gamesLeft;          // games still to play on this connection, this one included
+    private final int dropEvery;    // drop the connection on every N-th turn, 0 never
+    private int turns;              // turns this bot was given on this connection
+    private long firedAt;           // System.nanoTime() of the pending shot, 0 if none
+    private volatile boolean done;  // set once this bot closed its connection on purpose
+
+    /**
+     * Connects a bot to the server; call {@link #run()} to play.
+     */
+    public BotPlayer(String host, int port, FireStrategy strategy, long seed, int games, LoadStats stats)
+            throws IOException {
+        this(host, port, strategy, seed, games, 0, stats);
+    }
+
+    /**
+     * Connects a bot that also cuts its connection on every {@code dropEvery}-th turn
+     * and resumes the game, to exercise session resume under load.
+     */
+    public BotPlayer(String host, int port, FireStrategy strategy, long seed, int games, int dropEvery,
+                     LoadStats stats) throws IOException {
+        this.client    = new GameClient(host, port, this);
+        this.strategy  = strategy;
+        this.random    = new Random(seed);
+        this.gamesLeft = games;
+        this.dropEvery = dropEvery;
+        this.stats     = stats;
+    }
+
+    /**
+     * Plays until all games are over or the connection is lost.
+     */
+    public void run() {
+        client.start();
+    }
+
+    @Override
+    public void onMatchFound(int player) {
+        Ruleset rules = client.getRules();
+        strategy.reset(rules);
+        for (Ship ship : randomFleet(random, rules)) {
+            client.sendPlaceShip(ship);
+        }
+        client.sendReady();
+    }
+
+    @Override
+    public void onPlaceShipResponse(PlaceShipResponse psr) {
+        if (!psr.isSuccess()) stats.errors.increment();
+    }
+
+    @Override
+    public void onTurn(TurnMessage tm) {
+        if (tm.isYourTurn() && firedAt == 0) {
+            if (dropEvery > 0 && ++turns % dropEvery == 0) {
+                client.dropConnection(); // the reader resumes, and the snapshot gives the turn back
+                return;
+            }
+            firedAt = System.nanoTime();
+            client.sendFire(strategy.next());
+        }
+    }
+
+    @Override
+    public void onFireResponse(FireResponse fr) {
+        if (firedAt != 0) { // our own shot; the opponent cannot fire while we wait
+            stats.latency.record(System.nanoTime() - firedAt);
+            stats.shots.increment();
+            firedAt = 0;
+            strategy.onResult(fr);
+        }
+    }
+
+    @Override
+    public void onGameOver(GameOverMessage gom) {
+        firedAt = 0;
+        if (client.getPlayer() == 0) stats.games.increment(); // count each game once
+        if (--gamesLeft > 0) {
+            client.sendRematchRequest();
+        } else {
+            done = true;
+            client.close();
+        }
+    }
+
+    @Override
+    public void onResume(ResumeMessage rm) {
+        stats.resumes.increment();
+        firedAt = 0; // the answer to a pending shot may have been lost; the turn below is current
+        if (!rm.isBattle()) {
+            if (!rm.isReady()) client.sendReady(); // placements were sent right after MatchFound
+            return;
+        }
+        onTurn(new TurnMessage(rm.isYourTurn()));
+    }
+
+    @Override
+    public void onDisconnect(Exception cause) {
+        if (cause != null && !(done && cause instanceof SocketException)) {
+            stats.errors.increment();
+            System.err.println("Bot: " + cause);
+        }
+        stats.finished.countDown();
+    }
+
+    /**
+     * Places the standard fleet at random, non-overlapping positions.
+     */
+    public static Ship[] randomFleet(Random random) {
+        return FleetSampler.standard().randomFleet(random);
+    }
+
+    /**
+     * Places the fleet of the given rules at random, non-overlapping positions. Fleets other
+     * than the standard one are placed ship by ship on a scratch board, drawing each ship again
+     * until it fits; large grids are sparse, so that rarely takes more than one draw.
+     * @throws IllegalStateException if the fleet repeatedly finds no room
+     */
+    public static Ship[] randomFleet(Random random, Ruleset rules) {
+        if (rules.isStandard()) return randomFleet(random);
+        int g = rules.getGridSize();
+        for (int attempt = 0; attempt < RESTARTS; attempt++) {
+            Board board = new Board(rules);
+            Ship[] fleet = new Ship[rules.numShips()];
+            int i = 0;
+            for (int tries = 0; i < fleet.length && tries < rules.getCells(); tries++) {
+                int len = rules.getShipSize(i);
+                boolean horizontal = random.nextBoolean();
+                Position start = Position.of(random.nextInt(horizontal ? g : g - len + 1),
+                                             random.nextInt(horizontal ? g - len + 1 : g));
+                Ship ship = horizontal ? Ship.fromHorizontal(start, len) : Ship.fromVertical(start, len);
+                if (board.placeShip(ship)) {
+                    fleet[i++] = ship;
+                    tries = 0;
+                }
+            }
+            if (i == fleet.length) return fleet;
+        }
+        throw new IllegalStateException("No room for a random fleet of " + rules);
+    }
+}
@@ -0,0 +1,56 @@
+package bot;
+
+import model.Board;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.util.Random;
+
+/**
+ * EdgePlacement lines the ships up along the border: horizontal ships on the top or bottom
+ * row, vertical ships in the leftmost or rightmost column. A ship that finds no room on the
+ * border after a few draws goes anywhere it fits, so crowded fleets are still placed.
+ * It plays against strategies that assume ships are spread evenly over the grid.
+ */
+public class EdgePlacement implements PlacementStrategy {
+
+    private static final int EDGE_TRIES = 50; // draws on the border before a ship may go anywhere
+    private static final int RESTARTS = 64;   // fleets started over before the ruleset is given up
+
+    private final Random random;
+
+    public EdgePlacement(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Ship[] place(Ruleset rules) {
+        int g = rules.getGridSize();
+        for (int attempt = 0; attempt < RESTARTS; attempt++) {
+            Board board = new Board(rules);
+            Ship[] fleet = new Ship[rules.numShips()];
+            int i = 0;
+            for (int tries = 0; i < fleet.length && tries < EDGE_TRIES + rules.getCells(); tries++) {
+                Ship ship = draw(g, rules.getShipSize(i), tries < EDGE_TRIES);
+                if (board.placeShip(ship)) {
+                    fleet[i++] = ship;
+                    tries = -1;
+                }
+            }
+            if (i == fleet.length) return fleet;
+        }
+        throw new IllegalStateException("No room for a fleet of " + rules);
+    }
+
+    /**
+     * Draws one placement of a ship, on the border if {@code edge} is set.
+     */
+    private Ship draw(int g, int len, boolean edge) {
+        boolean horizontal = random.nextBoolean();
+        int along = random.nextInt(g - len + 1);
+        int across = edge ? (random.nextBoolean() ? 0 : g - 1) : random.nextInt(g);
+        return horizontal ? Ship.fromHorizontal(Position.of(across, along), len)
+                          : Ship.fromVertical(Position.of(along, across), len);
+    }
+}
@@ -0,0 +1,47 @@
+package bot;
+
+import common.FireResponse;
+import model.Position;
+import model.Ruleset;
+
+/**
+ * FireStrategy decides where a bot shoots next.
+ * One instance belongs to one bot and is reset at the start of every game.
+ */
+public interface FireStrategy {
+
+    /**
+     * Forgets the previous game; the next one is played with the given rules.
+     */
+    void reset(Ruleset rules);
+
+    /**
+     * Forgets the previous game; the next one is played with the standard rules.
+     */
+    default void reset() {
+        reset(Ruleset.STANDARD);
+    }
+
+    /**
+     * Returns the next cell to fire at; never a cell already fired at in this game.
+     */
+    Position next();
+
+    /**
+     * Reports the server's answer to the bot's own last shot.
+     */
+    void onResult(FireResponse result);
+
+    /**
+     * Creates a strategy by name: "random", "hunt" or "montecarlo".
+     * @throws IllegalArgumentException for any other name
+     */
+    static FireStrategy forName(String name, long seed) {
+        return switch (name) {
+            case "random"     -> new RandomStrategy(seed);
+            case "hunt"       -> new HuntStrategy(seed);
+            case "montecarlo" -> new MonteCarloStrategy(seed);
+            default -> throw new IllegalArgumentException("Unknown strategy: " + name + " (random|hunt|montecarlo)");
+        };
+    }
+}
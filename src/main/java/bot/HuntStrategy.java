@@ -0,0 +1,151 @@
+package bot;
+
+import common.FireResponse;
+import model.Board;
+import model.Board.Cell;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * HuntStrategy is the classic hunt/target player.
+ * While hunting it fires at random cells of one checkerboard colour (every ship covers at least one);
+ * after a hit it targets the neighbours of that hit until the server reports the ship sunk.
+ *
+ * On grids the board keeps sparse (more than {@link Board#DENSE_CELLS} cells) the hunt order is not
+ * built up front: hunt shots are drawn at random and redrawn if already fired at, so the memory
+ * a game takes follows its shots, not the grid area.
+ */
+public class HuntStrategy implements FireStrategy {
+
+    private final Random random;
+    private int g;                                     // side of the grid of the current game, 0 before the first
+    private boolean sparse;                            // the grid is too large for per-cell arrays
+    private int[] order;                               // dense: one checkerboard colour first, then the other
+    private int split;                                 // dense: number of cells of the first colour
+    private boolean[] tried;                           // dense: cells fired at
+    private final Set<Integer> triedCells = new HashSet<>(); // sparse: cells fired at
+    private final int[] untried = new int[2];          // sparse: cells of each colour not fired at yet
+    private final Set<Integer> open = new HashSet<>(); // hit, but not yet part of a sunk ship
+    private final Deque<Integer> targets = new ArrayDeque<>();
+    private int next;                                  // dense: index into order of the next hunt shot
+
+    public HuntStrategy(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void reset(Ruleset rules) {
+        int cells = rules.getCells();
+        sparse = cells > Board.DENSE_CELLS;
+        if (sparse) {
+            g = rules.getGridSize();
+            order = null;
+            tried = null;
+            triedCells.clear();
+            untried[0] = (cells + 1) / 2;
+            untried[1] = cells / 2;
+        } else {
+            if (order == null || g != rules.getGridSize()) {
+                g     = rules.getGridSize();
+                order = new int[cells];
+                tried = new boolean[cells];
+                int n = 0;
+                for (int i = 0; i < cells; i++) {
+                    if ((i / g + i % g) % 2 == 0) order[n++] = i;
+                }
+                split = n;
+                for (int i = 0; i < cells; i++) {
+                    if ((i / g + i % g) % 2 != 0) order[n++] = i;
+                }
+            }
+            RandomStrategy.shuffle(random, order, 0, split);
+            RandomStrategy.shuffle(random, order, split, order.length);
+            Arrays.fill(tried, false);
+        }
+        open.clear();
+        targets.clear();
+        next = 0;
+    }
+
+    @Override
+    public Position next() {
+        if (g == 0) reset();
+        int cell = -1;
+        while (!targets.isEmpty()) {
+            int t = targets.pop();
+            if (!isTried(t)) {
+                cell = t;
+                break;
+            }
+        }
+        if (cell < 0) cell = sparse ? drawHunt() : nextHunt();
+        if (sparse) {
+            triedCells.add(cell);
+            untried[(cell / g + cell % g) % 2]--;
+        } else {
+            tried[cell] = true;
+        }
+        return Position.of(cell / g, cell % g);
+    }
+
+    @Override
+    public void onResult(FireResponse result) {
+        if (result.getResult() != Cell.HIT) return;
+        Position p = result.getPosition();
+
+        if (result.isSunk()) {
+            Ship ship = result.getSunkShip();
+            for (int i = 0; i < ship.length(); i++) {
+                open.remove(ship.cellIndex(i, g));
+            }
+            // Keep targeting around hits that belong to other, still floating ships
+            targets.clear();
+            for (int i : open) pushNeighbours(i / g, i % g);
+        } else {
+            open.add(p.getRow() * g + p.getCol());
+            pushNeighbours(p.getRow(), p.getCol());
+        }
+    }
+
+    private boolean isTried(int cell) {
+        return sparse ? triedCells.contains(cell) : tried[cell];
+    }
+
+    /**
+     * Returns the next cell of the shuffled hunt order not fired at yet.
+     */
+    private int nextHunt() {
+        while (true) {
+            int h = order[next++];
+            if (!tried[h]) return h;
+        }
+    }
+
+    /**
+     * Draws random cells of the first colour, or of the second once the first is used up,
+     * until one has not been fired at yet.
+     */
+    private int drawHunt() {
+        int colour = untried[0] > 0 ? 0 : 1;
+        int cells = g * g;
+        while (true) {
+            int h = random.nextInt(cells);
+            if ((h / g + h % g) % 2 == colour && !triedCells.contains(h)) return h;
+        }
+    }
+
+    private void pushNeighbours(int r, int c) {
+        if (r > 0)     targets.push((r - 1) * g + c);
+        if (r < g - 1) targets.push((r + 1) * g + c);
+        if (c > 0)     targets.push(r * g + c - 1);
+        if (c < g - 1) targets.push(r * g + c + 1);
+    }
+}
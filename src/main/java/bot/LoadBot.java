@@ -0,0 +1,66 @@
+package bot;
+
+import server.ServerConfig;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadBot is a headless load generator: it opens N bot connections to a running server,
+ * lets them play a number of games each (with rematches on the same connection),
+ * and reports the connection rate, game rate and fire-to-result latency percentiles.
+ *
+ * Usage: java -cp bin bot.LoadBot --connections=1000 --games=5 --strategy=hunt [--host=localhost --port=12345 --seed=1]
+ * {@code --drop-every=N} makes every bot cut its connection on each N-th turn and resume the game.
+ */
+public class LoadBot {
+
+    private static final long STACK_SIZE = 256 * 1024; // bots keep little on the stack; lets thousands run
+
+    public static void main(String[] args) throws Exception {
+        String host     = arg(args, "host", "localhost");
+        int port        = Integer.parseInt(arg(args, "port", String.valueOf(ServerConfig.DEFAULT_PORT)));
+        int connections = Integer.parseInt(arg(args, "connections", "100"));
+        int games       = Integer.parseInt(arg(args, "games", "5"));
+        String strategy = arg(args, "strategy", "hunt");
+        long seed       = Long.parseLong(arg(args, "seed", "1"));
+        int dropEvery   = Integer.parseInt(arg(args, "drop-every", "0"));
+        if (connections < 2 || connections % 2 != 0) {
+            throw new IllegalArgumentException("--connections must be an even number >= 2");
+        }
+
+        LoadStats stats = new LoadStats(connections);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < connections; i++) {
+            BotPlayer bot = new BotPlayer(host, port, FireStrategy.forName(strategy, seed + i), seed + i, games,
+                    dropEvery, stats);
+            Thread t = new Thread(null, bot::run, "bot-" + i, STACK_SIZE);
+            t.setDaemon(true);
+            t.start();
+        }
+        double connectSeconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("connections=%d in %.2f s (%.0f conn/s, handshake included)%n",
+                connections, connectSeconds, connections / connectSeconds);
+
+        while (!stats.finished.await(5, TimeUnit.SECONDS)) {
+            System.out.printf("  ... games=%d shots=%d%n", stats.games.sum(), stats.shots.sum());
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("games=%d in %.2f s (%.1f games/s), shots=%d, errors=%d, resumes=%d%n",
+                stats.games.sum(), seconds, stats.games.sum() / seconds, stats.shots.sum(), stats.errors.sum(),
+                stats.resumes.sum());
+        System.out.printf("fire->result latency: p50=%.1f us  p99=%.1f us  p99.9=%.1f us%n",
+                stats.latency.percentile(0.50) / 1e3, stats.latency.percentile(0.99) / 1e3,
+                stats.latency.percentile(0.999) / 1e3);
+    }
+
+    /**
+     * Returns the value of a --name=value argument, or {@code def} if it is absent.
+     */
+    private static String arg(String[] args, String name, String def) {
+        String prefix = "--" + name + "=";
+        for (String a : args) {
+            if (a.startsWith(prefix)) return a.substring(prefix.length());
+        }
+        return def;
+    }
+}
@@ -0,0 +1,23 @@
+package bot;
+
+import common.LatencyHistogram;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters shared by all bots of one LoadBot run.
+ */
+class LoadStats {
+
+    final LongAdder games  = new LongAdder();                // finished games
+    final LongAdder shots  = new LongAdder();                // shots answered by the server
+    final LongAdder errors = new LongAdder();                // rejected placements and lost connections
+    final LongAdder resumes = new LongAdder();               // connections dropped and resumed mid-game
+    final LatencyHistogram latency = new LatencyHistogram(); // fire request -> fire result, nanoseconds
+    final CountDownLatch finished;                           // counted down when a bot's connection ends
+
+    LoadStats(int bots) {
+        this.finished = new CountDownLatch(bots);
+    }
+}
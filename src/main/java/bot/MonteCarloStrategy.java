@@ -0,0 +1,274 @@
+package bot;
+
+import common.FireResponse;
+import model.Board.Cell;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MonteCarloStrategy shoots where a ship is most likely to be.
+ * Before every shot it samples random placements of the ships that are still afloat that agree
+ * with everything it has seen: no ship on a miss or on a sunk ship, and every hit that is not
+ * part of a sunk ship covered. Each sample adds one to every unknown cell it puts a ship on,
+ * and the cell with the highest count is fired at. While there are open hits, samples place a
+ * ship through one of them first, so targeting falls out of the same density.
+ *
+ * The samples are drawn by a fork/join task that splits the budget into chunks for the given
+ * pool, and every chunk stops at the per-move deadline. Fewer samples give a noisier density
+ * and a weaker player, so the sample budget is the difficulty setting.
+ * Every sample walks the whole grid, so the strategy is meant for small grids.
+ */
+public class MonteCarloStrategy implements FireStrategy {
+
+    /** Samples per shot unless configured otherwise */
+    public static final int DEFAULT_SAMPLES = 2000;
+
+    /** Thinking time per shot unless configured otherwise, in milliseconds */
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+
+    private static final int LEAF = 250;           // samples one fork/join task draws without splitting
+    private static final int RANDOM_TRIES = 20;    // attempts to place a ship anywhere before a sample is given up
+    private static final byte UNKNOWN = 0, MISS = 1, HIT = 2, SUNK = 3;
+
+    private final Random random;
+    private final int samples;                     // samples per shot
+    private final long budgetNanos;                // thinking time per shot
+    private final ForkJoinPool pool;               // runs the sampler
+    private int g;                                 // side of the grid of the current game
+    private int n;                                 // cells of the grid
+    private byte[] known;                          // what every cell is known to be
+    private boolean[] tried;                       // fired at, answer may still be pending
+    private int[] afloat;                          // lengths of the ships not sunk yet
+
+    /**
+     * Creates a strategy with the default budget on the common fork/join pool.
+     */
+    public MonteCarloStrategy(long seed) {
+        this(seed, DEFAULT_SAMPLES, DEFAULT_BUDGET_MILLIS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param seed         seeds the samplers and tie breaks
+     * @param samples      fleet placements drawn per shot (the difficulty)
+     * @param budgetMillis time after which sampling stops and the shot is taken anyway
+     * @param pool         fork/join pool the sampler runs on
+     */
+    public MonteCarloStrategy(long seed, int samples, long budgetMillis, ForkJoinPool pool) {
+        if (samples < 1) throw new IllegalArgumentException("samples must be at least 1");
+        this.random      = new Random(seed);
+        this.samples     = samples;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.pool        = pool;
+        reset();
+    }
+
+    @Override
+    public void reset(Ruleset rules) {
+        if (known == null || g != rules.getGridSize()) {
+            g     = rules.getGridSize();
+            n     = rules.getCells();
+            known = new byte[n];
+            tried = new boolean[n];
+        }
+        Arrays.fill(known, UNKNOWN);
+        Arrays.fill(tried, false);
+        afloat = rules.getShipSizes();
+    }
+
+    @Override
+    public Position next() {
+        int[] counts = pool.invoke(new Sampler(this, new SplittableRandom(random.nextLong()), samples,
+                System.nanoTime() + budgetNanos));
+        int best = -1;
+        int start = random.nextInt(n); // breaks ties at random
+        for (int k = 0; k < n; k++) {
+            int i = (start + k) % n;
+            if (tried[i]) continue;
+            if (best < 0 || counts[i] > counts[best]) best = i;
+        }
+        if (counts[n] == 0) best = fallback(best); // no sample agreed with what we know
+        tried[best] = true;
+        return Position.of(best / g, best % g);
+    }
+
+    @Override
+    public void onResult(FireResponse result) {
+        Position p = result.getPosition();
+        int i = p.getRow() * g + p.getCol();
+        if (result.getResult() != Cell.HIT) {
+            known[i] = MISS;
+            return;
+        }
+        known[i] = HIT;
+        if (result.isSunk()) {
+            Ship ship = result.getSunkShip();
+            for (int k = 0; k < ship.length(); k++) {
+                known[ship.cellIndex(k, g)] = SUNK;
+            }
+            for (int k = 0; k < afloat.length; k++) {
+                if (afloat[k] == ship.length()) {
+                    afloat[k] = afloat[afloat.length - 1];
+                    afloat = Arrays.copyOf(afloat, afloat.length - 1);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Picks a shot without a density: next to an open hit if there is one, else {@code any}.
+     */
+    private int fallback(int any) {
+        for (int i = 0; i < n; i++) {
+            if (known[i] != HIT) continue;
+            int r = i / g, c = i % g;
+            if (r > 0     && !tried[i - g]) return i - g;
+            if (r < g - 1 && !tried[i + g]) return i + g;
+            if (c > 0     && !tried[i - 1]) return i - 1;
+            if (c < g - 1 && !tried[i + 1]) return i + 1;
+        }
+        return any;
+    }
+
+    /**
+     * Draws samples and returns how often each cell held a ship; the extra last element
+     * counts the samples that agreed with the known cells.
+     */
+    private static final class Sampler extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final MonteCarloStrategy s;
+        private final SplittableRandom rnd;
+        private final int samples;
+        private final long deadline; // System.nanoTime() after which no more samples are drawn
+        private final int g, n;      // grid side and cells, copied from the strategy
+
+        Sampler(MonteCarloStrategy s, SplittableRandom rnd, int samples, long deadline) {
+            this.s        = s;
+            this.rnd      = rnd;
+            this.samples  = samples;
+            this.deadline = deadline;
+            this.g        = s.g;
+            this.n        = s.n;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (samples > LEAF) {
+                Sampler left = new Sampler(s, rnd.split(), samples / 2, deadline);
+                left.fork();
+                int[] counts = new Sampler(s, rnd, samples - samples / 2, deadline).compute();
+                int[] other  = left.join();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += other[i];
+                }
+                return counts;
+            }
+            int[] counts = new int[n + 1];
+            boolean[] taken = new boolean[n];
+            int[] cells = new int[n];
+            int[] order = s.afloat.clone();
+            for (int k = 0; k < samples; k++) {
+                if ((k & 15) == 0 && System.nanoTime() > deadline) break;
+                int placed = sample(taken, cells, order);
+                if (placed < 0) continue;
+                for (int j = 0; j < placed; j++) {
+                    if (s.known[cells[j]] == UNKNOWN) counts[cells[j]]++;
+                }
+                counts[n]++;
+            }
+            return counts;
+        }
+
+        /**
+         * Places every ship still afloat once.
+         * @return the number of ship cells written to {@code cells}, or -1 if the sample does
+         *         not cover every open hit or a ship did not fit
+         */
+        private int sample(boolean[] taken, int[] cells, int[] order) {
+            byte[] known = s.known;
+            for (int i = 0; i < n; i++) {
+                taken[i] = known[i] == MISS || known[i] == SUNK;
+            }
+            for (int i = order.length - 1; i > 0; i--) { // ships in random order
+                int j = rnd.nextInt(i + 1);
+                int t = order[i];
+                order[i] = order[j];
+                order[j] = t;
+            }
+            int count = 0;
+            for (int len : order) {
+                int start = placeThroughHit(taken, len);
+                if (start == -1) start = placeAnywhere(taken, len);
+                if (start == -1) return -1;
+                int step = start >= n ? 1 : g; // horizontal starts are offset by n
+                int at = start % n;
+                for (int k = 0; k < len; k++, at += step) {
+                    taken[at] = true;
+                    cells[count++] = at;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                if (known[i] == HIT && !taken[i]) return -1; // an open hit left uncovered
+            }
+            return count;
+        }
+
+        /**
+         * Finds a free spot for a ship of the given length through a random uncovered hit.
+         * @return the start cell (plus n if horizontal), or -1 if there is no uncovered hit
+         *         or the ship fits through none of its spots
+         */
+        private int placeThroughHit(boolean[] taken, int len) {
+            int hit = -1, seen = 0;
+            for (int i = 0; i < n; i++) {
+                if (s.known[i] == HIT && !taken[i] && rnd.nextInt(++seen) == 0) hit = i; // reservoir pick
+            }
+            if (hit < 0) return -1;
+            int r = hit / g, c = hit % g;
+            int options = 2 * len;
+            int first = rnd.nextInt(options);
+            for (int k = 0; k < options; k++) {
+                int o = (first + k) % options;
+                boolean horizontal = o >= len;
+                int off = o % len;
+                int sr = horizontal ? r : r - off;
+                int sc = horizontal ? c - off : c;
+                if (fits(taken, sr, sc, len, horizontal)) return sr * g + sc + (horizontal ? n : 0);
+            }
+            return -1;
+        }
+
+        /**
+         * Finds a free spot for a ship of the given length anywhere on the grid.
+         * @return the start cell (plus n if horizontal), or -1 if no try found one
+         */
+        private int placeAnywhere(boolean[] taken, int len) {
+            for (int k = 0; k < RANDOM_TRIES; k++) {
+                boolean horizontal = rnd.nextBoolean();
+                int r = rnd.nextInt(horizontal ? g : g - len + 1);
+                int c = rnd.nextInt(horizontal ? g - len + 1 : g);
+                if (fits(taken, r, c, len, horizontal)) return r * g + c + (horizontal ? n : 0);
+            }
+            return -1;
+        }
+
+        private boolean fits(boolean[] taken, int r, int c, int len, boolean horizontal) {
+            if (r < 0 || c < 0) return false;
+            if (horizontal ? c + len > g : r + len > g) return false;
+            int at = r * g + c, step = horizontal ? 1 : g;
+            for (int k = 0; k < len; k++, at += step) {
+                if (taken[at]) return false;
+            }
+            return true;
+        }
+    }
+}
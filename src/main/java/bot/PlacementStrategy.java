@@ -0,0 +1,29 @@
+package bot;
+
+import model.Ruleset;
+import model.Ship;
+
+/**
+ * PlacementStrategy decides where a simulated player puts its fleet.
+ * One instance belongs to one player and may keep its own random state between games.
+ */
+public interface PlacementStrategy {
+
+    /**
+     * Returns a legal fleet for the given rules, one ship per entry of the fleet, in its order.
+     * @throws IllegalStateException if the fleet repeatedly finds no room
+     */
+    Ship[] place(Ruleset rules);
+
+    /**
+     * Creates a strategy by name: "random" or "edge".
+     * @throws IllegalArgumentException for any other name
+     */
+    static PlacementStrategy forName(String name, long seed) {
+        return switch (name) {
+            case "random" -> new RandomPlacement(seed);
+            case "edge"   -> new EdgePlacement(seed);
+            default -> throw new IllegalArgumentException("Unknown placement: " + name + " (random|edge)");
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package bot;
+
+import model.Ruleset;
+import model.Ship;
+
+import java.util.Random;
+
+/**
+ * RandomPlacement puts every ship anywhere it fits, like the bots and the Random button do.
+ */
+public class RandomPlacement implements PlacementStrategy {
+
+    private final Random random;
+
+    public RandomPlacement(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public Ship[] place(Ruleset rules) {
+        return BotPlayer.randomFleet(random, rules);
+    }
+}
@@ -0,0 +1,57 @@
+package bot;
+
+import common.FireResponse;
+import model.Position;
+import model.Ruleset;
+
+import java.util.Random;
+
+/**
+ * RandomStrategy fires at every cell once, in a random order.
+ */
+public class RandomStrategy implements FireStrategy {
+
+    private final Random random;
+    private int g;          // side of the grid of the current game
+    private int[] order;    // cell indexes (row * g + col) in firing order
+    private int next;       // index into order of the next shot
+
+    public RandomStrategy(long seed) {
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public void reset(Ruleset rules) {
+        if (order == null || g != rules.getGridSize()) {
+            g = rules.getGridSize();
+            order = new int[rules.getCells()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+        }
+        shuffle(random, order, 0, order.length);
+        next = 0;
+    }
+
+    @Override
+    public Position next() {
+        if (order == null) reset();
+        int cell = order[next++];
+        return Position.of(cell / g, cell % g);
+    }
+
+    @Override
+    public void onResult(FireResponse result) {}
+
+    /**
+     * Fisher-Yates shuffle of {@code a[from, to)}.
+     */
+    static void shuffle(Random random, int[] a, int from, int to) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package bot;
+
+import common.FireResponse;
+import model.Board.Cell;
+import model.GameRules;
+import model.GameState;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulator plays whole games between strategies in memory, without a server or sockets:
+ * every shot goes straight to a {@link GameState}. It is meant for balancing and bot tuning,
+ * which need millions of games per run.
+ *
+ * A player is a firing strategy and a placement strategy, written {@code fire/placement}
+ * ("random" placement if omitted). Every pair of players meets in a matchup (a lone player
+ * plays itself), the games are split evenly between the matchups, and the two sides take
+ * turns to move first. The games are cut into batches on a fork/join pool with one thread per
+ * core; every batch makes its own players, seeded from the run seed and the batch's first game,
+ * so the same arguments play the same games however many threads share the work.
+ *
+ * While the run goes on, a snapshot of the statistics is appended to the output file every few
+ * seconds, and a last one when it ends. Every line is comma separated and starts with its kind:
+ * <pre>
+ * progress,seconds,games,games_per_second
+ * matchup,a vs b,games,a_wins,b_wins,a_win_rate,mean_shots,p50_shots,p90_shots,p99_shots,max_shots
+ * player,spec,games,wins,win_rate
+ * length,a vs b,shots,games          (final snapshot only: the game length distribution)
+ * </pre>
+ * Shots count both sides; a hit earns another shot, so no game lasts longer than twice the
+ * cells of the grid. On grids larger than 181x181 the lengths are counted in buckets of
+ * several shots, and "shots" is the shortest length of a bucket.
+ *
+ * Usage: java -cp bin bot.Simulator --games=10000000 --players=hunt,random,hunt/edge --out=sim.csv
+ *        [--threads=N --seed=1 --report-seconds=5 --samples=200 --grid-size=10 --fleet=5,4,3,3,2]
+ * "montecarlo" players draw {@code --samples} fleets per shot on the simulator's pool, with no
+ * time limit, and cost orders of magnitude more per game than the others.
+ */
+public class Simulator {
+
+    private static final int LEAF = 1000;                   // games one fork/join task plays without splitting
+    private static final int MAX_BUCKETS = 1 << 16;         // game length buckets per matchup at most
+    private static final long NO_DEADLINE = TimeUnit.DAYS.toMillis(1); // montecarlo always draws every sample
+
+    private final Ruleset rules;
+    private final String[] players;      // player specs, fire/placement
+    private final List<Matchup> matchups = new ArrayList<>();
+    private final long seed;
+    private final int samples;           // fleets per shot of montecarlo players
+    private final ForkJoinPool pool;
+    private final LongAdder played = new LongAdder();
+
+    /**
+     * @param rules   rules every game is played with
+     * @param players player specs, {@code fire/placement}
+     * @param seed    seeds every player of every batch
+     * @param samples fleets sampled per shot by montecarlo players
+     * @param threads fork/join parallelism
+     * @throws IllegalArgumentException if a spec names an unknown strategy
+     */
+    public Simulator(Ruleset rules, String[] players, long seed, int samples, int threads) {
+        this.rules   = rules;
+        this.players = players.clone();
+        this.seed    = seed;
+        this.samples = samples;
+        this.pool    = new ForkJoinPool(threads);
+        for (String spec : players) {
+            newPlayer(spec, 0); // fail on unknown names before anything runs
+        }
+        int longest = 2 * rules.getCells();
+        int width = longest / MAX_BUCKETS + 1; // shots per bucket
+        for (int a = 0; a < players.length; a++) {
+            for (int b = a + 1; b < players.length; b++) {
+                matchups.add(new Matchup(matchups.size(), a, b, players[a] + " vs " + players[b], longest, width));
+            }
+        }
+        if (players.length == 1) matchups.add(new Matchup(0, 0, 0, players[0] + " vs " + players[0], longest, width));
+    }
+
+    public static void main(String[] args) throws Exception {
+        long games        = Long.parseLong(arg(args, "games", "1000000"));
+        String[] players  = arg(args, "players", "hunt,random").split(",");
+        String out        = arg(args, "out", "simulation.csv");
+        int threads       = Integer.parseInt(arg(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed         = Long.parseLong(arg(args, "seed", "1"));
+        long reportMillis = (long) (Double.parseDouble(arg(args, "report-seconds", "5")) * 1000);
+        int samples       = Integer.parseInt(arg(args, "samples", "200"));
+        int gridSize      = Integer.parseInt(arg(args, "grid-size", String.valueOf(GameRules.GRID_SIZE)));
+        String fleet      = arg(args, "fleet", null);
+        Ruleset rules = fleet != null ? Ruleset.parse(gridSize, fleet)
+                : gridSize != GameRules.GRID_SIZE ? new Ruleset(gridSize, GameRules.SHIP_SIZES)
+                : Ruleset.STANDARD;
+        if (games < 1 || threads < 1 || reportMillis < 1) {
+            throw new IllegalArgumentException("--games, --threads and --report-seconds must be positive");
+        }
+
+        Simulator sim = new Simulator(rules, players, seed, samples, threads);
+        System.out.printf("Simulating %d games of %s on %d threads -> %s%n", games, rules, threads, out);
+        try (BufferedWriter file = Files.newBufferedWriter(Path.of(out))) {
+            sim.run(games, reportMillis, file);
+        }
+        sim.printSummary(System.out);
+    }
+
+    /**
+     * Plays the games, appending a snapshot to {@code out} every {@code reportMillis}
+     * and a final one with the length distribution.
+     * @throws IllegalStateException if a strategy breaks the rules (an illegal fleet, a repeated shot)
+     */
+    public void run(long games, long reportMillis, BufferedWriter out) throws IOException, InterruptedException {
+        List<Batch> batches = new ArrayList<>();
+        for (Matchup m : matchups) {
+            long share = games / matchups.size() + (m.index < games % matchups.size() ? 1 : 0);
+            if (share > 0) batches.add(new Batch(m, 0, share));
+        }
+        long t0 = System.nanoTime();
+        ForkJoinTask<?> all = pool.submit(() -> ForkJoinTask.invokeAll(batches));
+        try {
+            while (true) {
+                try {
+                    all.get(reportMillis, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    snapshot(out, (System.nanoTime() - t0) / 1e9, false);
+                    System.out.printf("  ... games=%d%n", played.sum());
+                }
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException r ? r : new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        snapshot(out, (System.nanoTime() - t0) / 1e9, true);
+    }
+
+    /**
+     * Appends the current statistics to the output file and flushes it.
+     */
+    private void snapshot(BufferedWriter out, double seconds, boolean last) throws IOException {
+        long games = played.sum();
+        out.write(String.format(Locale.ROOT, "progress,%.1f,%d,%.0f%n", seconds, games, games / seconds));
+        long[] playerGames = new long[players.length], playerWins = new long[players.length];
+        List<Tally> tallies = new ArrayList<>();
+        for (Matchup m : matchups) {
+            Tally t = m.tally.copy();
+            tallies.add(t);
+            out.write(String.format(Locale.ROOT, "matchup,%s,%d,%d,%d,%.4f,%.2f,%d,%d,%d,%d%n",
+                    m.name, t.games, t.winsA, t.games - t.winsA, t.winRate(), t.meanShots(),
+                    t.percentile(0.50), t.percentile(0.90), t.percentile(0.99), t.maxShots));
+            playerGames[m.a] += t.games;
+            playerGames[m.b] += t.games;
+            playerWins[m.a]  += t.winsA;
+            playerWins[m.b]  += t.games - t.winsA;
+        }
+        for (int p = 0; p < players.length; p++) {
+            out.write(String.format(Locale.ROOT, "player,%s,%d,%d,%.4f%n", players[p], playerGames[p],
+                    playerWins[p], playerGames[p] == 0 ? 0.0 : (double) playerWins[p] / playerGames[p]));
+        }
+        if (last) {
+            for (int i = 0; i < matchups.size(); i++) {
+                Tally t = tallies.get(i);
+                for (int k = 0; k < t.lengths.length; k++) {
+                    if (t.lengths[k] > 0) {
+                        out.write("length," + matchups.get(i).name + "," + k * t.width + "," + t.lengths[k] + "\n");
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Prints one line per matchup: win rates and game lengths.
+     */
+    public void printSummary(PrintStream out) {
+        for (Matchup m : matchups) {
+            Tally t = m.tally.copy();
+            out.printf(Locale.ROOT, "%-40s games=%d  a wins %.2f%%  shots mean=%.1f p50=%d p99=%d%n",
+                    m.name, t.games, 100 * t.winRate(), t.meanShots(), t.percentile(0.50), t.percentile(0.99));
+        }
+    }
+
+    /**
+     * Creates a player from its spec, {@code fire} or {@code fire/placement}.
+     * @throws IllegalArgumentException if either name is unknown
+     */
+    private Player newPlayer(String spec, long seed) {
+        int slash = spec.indexOf('/');
+        String fire      = slash < 0 ? spec : spec.substring(0, slash);
+        String placement = slash < 0 ? "random" : spec.substring(slash + 1);
+        FireStrategy f = fire.equals("montecarlo")
+                ? new MonteCarloStrategy(mix(seed + 1), samples, NO_DEADLINE, pool)
+                : FireStrategy.forName(fire, mix(seed + 1));
+        return new Player(f, PlacementStrategy.forName(placement, mix(seed + 2)));
+    }
+
+    /**
+     * SplitMix64 finalizer: spreads nearby seeds apart.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the value of a --name=value argument, or {@code def} if it is absent.
+     */
+    private static String arg(String[] args, String name, String def) {
+        String prefix = "--" + name + "=";
+        for (String a : args) {
+            if (a.startsWith(prefix)) return a.substring(prefix.length());
+        }
+        return def;
+    }
+
+    /** A firing and a placement strategy that play one side */
+    private record Player(FireStrategy fire, PlacementStrategy placement) { }
+
+    /** Two players and the statistics of their games */
+    private static final class Matchup {
+        final int index;
+        final int a, b;     // indexes into the player specs
+        final String name;  // "a vs b"
+        final Tally tally;
+
+        Matchup(int index, int a, int b, String name, int longest, int width) {
+            this.index = index;
+            this.a     = a;
+            this.b     = b;
+            this.name  = name;
+            this.tally = new Tally(longest, width);
+        }
+    }
+
+    /**
+     * Plays games {@code first .. first + count} of one matchup, splitting while there are
+     * more than {@link #LEAF}. Even games have side a moving first, odd games side b.
+     */
+    private final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Matchup m;
+        private final long first, count;
+
+        Batch(Matchup m, long first, long count) {
+            this.m     = m;
+            this.first = first;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            if (count > LEAF) {
+                long half = count / 2;
+                invokeAll(new Batch(m, first, half), new Batch(m, first + half, count - half));
+                return;
+            }
+            long s = mix(mix(seed + m.index) + first);
+            Player a = newPlayer(players[m.a], s), b = newPlayer(players[m.b], mix(s));
+            Tally local = m.tally.empty();
+            Player[] seats = new Player[2];
+            long maxShots = 2L * rules.getCells();
+            for (long k = first; k < first + count; k++) {
+                boolean swap = (k & 1) != 0;
+                seats[0] = swap ? b : a;
+                seats[1] = swap ? a : b;
+                GameState state = new GameState(rules);
+                for (int p = 0; p < 2; p++) {
+                    for (Ship ship : seats[p].placement().place(rules)) {
+                        if (!state.placeShip(p, ship)) throw new IllegalStateException("Illegal fleet in " + m.name);
+                    }
+                    seats[p].fire().reset(rules);
+                }
+                int shots = 0;
+                while (!state.isGameOver()) {
+                    if (++shots > maxShots) throw new IllegalStateException("A shot was repeated in " + m.name);
+                    FireStrategy shooter = seats[state.getCurrentPlayer()].fire();
+                    Position target = shooter.next();
+                    Cell result = state.fire(target);
+                    shooter.onResult(new FireResponse(target, result, state.getLastSunk()));
+                }
+                local.add(shots, (state.getWinner() == 0) != swap);
+            }
+            m.tally.merge(local);
+            played.add(count);
+        }
+    }
+
+    /**
+     * Win and game length counts of one matchup. Batches fill their own and merge it into
+     * the matchup's under its lock; snapshots read a copy.
+     */
+    private static final class Tally {
+        final long[] lengths; // games per bucket of game lengths
+        final int width;      // shots per bucket: bucket k holds games of k * width .. (k + 1) * width - 1 shots
+        long games;
+        long winsA;           // games won by side a
+        long shots;           // shots of all games
+        int maxShots;         // longest game
+
+        Tally(int longest, int width) {
+            this.lengths = new long[longest / width + 1];
+            this.width   = width;
+        }
+
+        /**
+         * Returns a tally with the same buckets and nothing counted.
+         */
+        Tally empty() {
+            return new Tally((lengths.length - 1) * width, width);
+        }
+
+        void add(int gameShots, boolean aWon) {
+            lengths[gameShots / width]++;
+            games++;
+            if (aWon) winsA++;
+            shots += gameShots;
+            maxShots = Math.max(maxShots, gameShots);
+        }
+
+        synchronized void merge(Tally t) {
+            for (int i = 0; i < lengths.length; i++) {
+                lengths[i] += t.lengths[i];
+            }
+            games += t.games;
+            winsA += t.winsA;
+            shots += t.shots;
+            maxShots = Math.max(maxShots, t.maxShots);
+        }
+
+        synchronized Tally copy() {
+            Tally t = empty();
+            t.merge(this);
+            return t;
+        }
+
+        double winRate() {
+            return games == 0 ? 0.0 : (double) winsA / games;
+        }
+
+        double meanShots() {
+            return games == 0 ? 0.0 : (double) shots / games;
+        }
+
+        /**
+         * Returns the smallest game length that at least the fraction {@code q} of games did not
+         * exceed, rounded down to its bucket.
+         */
+        int percentile(double q) {
+            long need = (long) Math.ceil(q * games), seen = 0;
+            for (int i = 0; i < lengths.length; i++) {
+                seen += lengths[i];
+                if (seen >= need && seen > 0) return i * width;
+            }
+            return 0;
+        }
+    }
+}
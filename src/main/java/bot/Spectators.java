@@ -0,0 +1,84 @@
+package bot;
+
+import common.*;
+import server.ServerConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spectators attaches N read-only watchers to one session of a running server
+ * (the featured one by default) and reports how many events and bytes they received.
+ * Run it next to {@link LoadBot} to see what a crowd of watchers costs the server.
+ *
+ * Usage: {@code java -cp bin bot.Spectators --port=12345 --spectators=1000 --session=0 --seconds=10}
+ */
+public class Spectators {
+
+    private static final long STACK_SIZE = 256 * 1024; // watchers only decode small frames
+
+    public static void main(String[] args) throws Exception {
+        String host   = arg(args, "host", "localhost");
+        int port      = Integer.parseInt(arg(args, "port", String.valueOf(ServerConfig.DEFAULT_PORT)));
+        int count     = Integer.parseInt(arg(args, "spectators", "100"));
+        long session  = Long.parseLong(arg(args, "session", String.valueOf(Handshake.FEATURED)));
+        int seconds   = Integer.parseInt(arg(args, "seconds", "10"));
+
+        LongAdder events = new LongAdder(), bytes = new LongAdder(), shots = new LongAdder();
+        LongAdder games  = new LongAdder(), rejected = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(count);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Socket socket = new Socket(host, port);
+            Thread t = new Thread(null, () -> {
+                try (socket) {
+                    DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    MessageCodec codec = MessageCodec.forId(
+                            Handshake.spectate(in, out, Handshake.preferredCodec(), session).getCodec());
+                    while (true) {
+                        byte[] payload = Frames.readPayload(in);
+                        Object msg = codec.decode(payload, 0, payload.length);
+                        if (msg instanceof PingMessage ping) { // heartbeat, not a game event
+                            Frames.write(out, codec, new PongMessage(ping.getStamp()));
+                            continue;
+                        }
+                        events.increment();
+                        bytes.add(Frames.HEADER_SIZE + payload.length);
+                        if (msg instanceof SpectateResponse r && !r.isFound()) rejected.increment();
+                        if (msg instanceof FireResponse) shots.increment();
+                        if (msg instanceof GameOverMessage) games.increment();
+                    }
+                } catch (IOException e) {
+                    // server closed the connection (session ended) or we were stopped
+                } finally {
+                    finished.countDown();
+                }
+            }, "spectator-" + i, STACK_SIZE);
+            t.setDaemon(true);
+            t.start();
+        }
+        System.out.println("spectators=" + count + " watching "
+                + (session == Handshake.FEATURED ? "the featured session" : "session " + session));
+
+        finished.await(seconds, TimeUnit.SECONDS);
+        double elapsed = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("events=%d (%.0f/s) bytes=%d shots seen=%d game ends seen=%d rejected=%d in %.1f s%n",
+                events.sum(), events.sum() / elapsed, bytes.sum(), shots.sum(), games.sum(), rejected.sum(), elapsed);
+    }
+
+    private static String arg(String[] args, String name, String def) {
+        String prefix = "--" + name + "=";
+        for (String a : args) {
+            if (a.startsWith(prefix)) return a.substring(prefix.length());
+        }
+        return def;
+    }
+}
@@ -3,6 +3,9 @@ package client;
 import common.FireResponse;
 import common.TurnMessage;
 import common.GameOverMessage;
+import common.OpponentStatusMessage;
+import common.ResumeMessage;
+import common.TurnOutcomeMessage;
 import model.GameRules;
 import model.GameState;
 import model.Position;
@@ -18,6 +21,8 @@ import model.Ship;
  * UI class managing the battle phase for the player.
  * Displays two boards: player's own and opponent's board.
  * Handles turn logic, fire response, and rematch options.
+ * The handle methods run on the EDT, in the batches GameClient's dispatcher drains.
+ * F3 (or -Dbattleship.overlay=true) shows a debug overlay with the reader backlog and EDT latency.
  */
 public class BattleUI extends JFrame {
 
@@ -31,6 +36,20 @@ public class BattleUI extends JFrame {
     private static final Color HIT_COLOR   = Color.decode("#D72631");
     private static final Color MISS_COLOR  = Color.decode("#57C7F4");
     private static final Color SUNK_COLOR  = Color.decode("#6C2DC7");
+    private static final Color SHIP_EDGE   = SHIP_COLOR.darker();
+    private static final Color HOVER_CELL  = Color.decode("#ECF0F1");
+
+    // Fonts are created once and shared by every board
+    private static final Font TITLE_FONT   = new Font("Segoe UI", Font.BOLD, 16);
+    private static final Font MARK_FONT    = new Font("Segoe UI", Font.BOLD, 16);        // X and O
+    private static final Font SYMBOL_FONT  = new Font("Segoe UI Symbol", Font.PLAIN, 18); // anchors
+    private static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);  // debug overlay
+
+    // Board geometry in pixels, and the state codes a painted cell can have
+    private static final int CELL  = 38;
+    private static final int GAP   = 2;
+    private static final int PITCH = CELL + GAP;
+    private static final byte EMPTY = 0, SHIP = 1, HIT = 2, MISS = 3, SUNK = 4;
 
     private final GameClient client;
     private final int myPlayer;
@@ -40,6 +59,7 @@ public class BattleUI extends JFrame {
     private final BoardPanel oppPanel;
     private final JLabel infoLabel = new JLabel();
     private final JButton rematchButton = new JButton("↻ Rematch");
+    private final JLabel overlayLabel = new JLabel(); // debug overlay: dispatcher statistics
 
     public BattleUI(GameClient client, int myPlayer, GameState state, boolean yourTurn) {
         super("Battle – Player " + (myPlayer + 1));
@@ -86,8 +106,23 @@ public class BattleUI extends JFrame {
             rematchButton.setText("Bekleniyor...");
         });
 
+        // Debug overlay, toggled with F3
+        overlayLabel.setFont(OVERLAY_FONT);
+        overlayLabel.setForeground(EMPTY_CELL);
+        overlayLabel.setVisible(Boolean.getBoolean("battleship.overlay"));
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F3"), "overlay");
+        getRootPane().getActionMap().put("overlay", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                overlayLabel.setVisible(!overlayLabel.isVisible());
+                updateOverlay();
+            }
+        });
+        client.getDispatcher().setBatchListener(this::updateOverlay);
+
         JPanel bottomPanel = new JPanel(new BorderLayout());
         bottomPanel.setOpaque(false);
+        bottomPanel.add(overlayLabel, BorderLayout.WEST);
         bottomPanel.add(rematchButton, BorderLayout.EAST);
         add(bottomPanel, BorderLayout.SOUTH);
 
@@ -98,6 +133,14 @@ public class BattleUI extends JFrame {
 
         state.setCurrentPlayer(yourTurn ? myPlayer : 1 - myPlayer);
         refreshView();
+        updateOverlay();
+    }
+
+    /**
+     * Shows the dispatcher's latest statistics if the overlay is on; called after every batch.
+     */
+    private void updateOverlay() {
+        if (overlayLabel.isVisible()) overlayLabel.setText(client.getDispatcher().describe());
     }
 
     /**
@@ -105,17 +148,14 @@ public class BattleUI extends JFrame {
      */
     private void refreshView() {
         myPanel.revealShips(state.getBoard(myPlayer).getShips());
-        myPanel.setButtonsEnabled(false);
 
         // Update opponent board with known shots
-        for (int r = 0; r < G; r++) for (int c = 0; c < G; c++) {
-            Position p = new Position(r, c);
-            Cell cell = state.getBoard(1 - myPlayer).getCell(p);
-            if (cell != Cell.EMPTY) oppPanel.markShot(p, cell);
+        for (int m : state.getBoard(1 - myPlayer).markedCells()) {
+            oppPanel.markShot(Position.of(m / 4 / G, m / 4 % G), Cell.values()[m % 4]);
         }
 
         boolean yourTurn = state.getCurrentPlayer() == myPlayer;
-        oppPanel.setButtonsEnabled(yourTurn);
+        oppPanel.setTargetable(yourTurn);
         infoLabel.setText(yourTurn ? "YOUR TURN" : "OPPONENT'S TURN");
     }
 
@@ -123,90 +163,234 @@ public class BattleUI extends JFrame {
      * Handles FireResponse message from server.
      */
     public void handleFireResponse(FireResponse resp) {
-        SwingUtilities.invokeLater(() -> {
-            Position p = resp.getPosition();
-            Cell result = resp.getResult();
-            boolean iAttacked = state.getCurrentPlayer() == myPlayer;
-            int defender = iAttacked ? 1 - myPlayer : myPlayer;
-
-            state.getBoard(defender).setCell(p, result);
-            if (iAttacked) oppPanel.markShot(p, result);
-            else myPanel.markShot(p, result);
-
-            // Highlight sunken ships
-            if (result == Cell.HIT) {
-                for (Ship ship : state.getBoard(defender).getShips()) {
-                    boolean sunk = ship.getPositions().stream()
-                            .allMatch(pos -> state.getBoard(defender).getCell(pos) == Cell.HIT);
-                    if (sunk) ship.getPositions().forEach(oppPanel::markSunk);
-                }
-            }
-        });
+        applyFireResponse(resp);
     }
 
     /**
      * Handles TurnMessage from server.
      */
     public void handleTurnMessage(TurnMessage tm) {
-        SwingUtilities.invokeLater(() -> {
-            boolean yourTurn = tm.isYourTurn();
-            state.setCurrentPlayer(yourTurn ? myPlayer : 1 - myPlayer);
-            oppPanel.setButtonsEnabled(yourTurn);
-            infoLabel.setText(yourTurn ? "YOUR TURN" : "OPPONENT'S TURN");
-        });
+        applyTurn(tm);
     }
 
     /**
      * Handles GameOverMessage and enables rematch button.
      */
     public void handleGameOverMessage(GameOverMessage gom) {
-        SwingUtilities.invokeLater(() -> {
-            String msg = gom.getWinner() == myPlayer ? "YOU WIN!" : "YOU LOSE!";
-            infoLabel.setText("GAME OVER – " + msg);
+        applyGameOver(gom);
+    }
 
-            rematchButton.setVisible(true);
-            rematchButton.setEnabled(true);
-        });
+    /**
+     * Handles the coalesced outcome of one shot.
+     */
+    public void handleTurnOutcome(TurnOutcomeMessage tom) {
+        applyFireResponse(tom.getFire());
+        if (tom.isGameOver()) {
+            applyGameOver(tom.getGameOver());
+        } else {
+            applyTurn(tom.getTurn());
+        }
+    }
+
+    /**
+     * Catches up with a resumed game: marks every shot on both boards and applies the turn.
+     */
+    public void handleResume(ResumeMessage rm) {
+        for (int r = 0; r < G; r++) for (int c = 0; c < G; c++) {
+            Position p = Position.of(r, c);
+            markResumed(myPlayer, myPanel, p, rm.getOwnCell(p));
+            markResumed(1 - myPlayer, oppPanel, p, rm.getTargetCell(p));
+        }
+        applyTurn(new TurnMessage(rm.isYourTurn()));
+    }
+
+    /**
+     * Shows whether the opponent is connected; its turn label comes back once it returns.
+     */
+    public void handleOpponentStatus(OpponentStatusMessage oss) {
+        if (oss.isConnected()) {
+            applyTurn(new TurnMessage(state.getCurrentPlayer() == myPlayer));
+        } else {
+            infoLabel.setText("OPPONENT DISCONNECTED – waiting...");
+        }
+    }
+
+    private void markResumed(int player, BoardPanel panel, Position p, Cell cell) {
+        if (cell == Cell.HIT || cell == Cell.MISS) {
+            state.getBoard(player).setCell(p, cell);
+            panel.markShot(p, cell);
+        }
+    }
+
+    private void applyFireResponse(FireResponse resp) {
+        Position p = resp.getPosition();
+        Cell result = resp.getResult();
+        boolean iAttacked = state.getCurrentPlayer() == myPlayer;
+        int defender = iAttacked ? 1 - myPlayer : myPlayer;
+
+        BoardPanel panel = iAttacked ? oppPanel : myPanel;
+
+        state.getBoard(defender).setCell(p, result);
+        panel.markShot(p, result);
+
+        // Highlight the ship the server reports as sunk
+        if (resp.isSunk()) {
+            resp.getSunkShip().getPositions().forEach(panel::markSunk);
+        }
+    }
+
+    private void applyTurn(TurnMessage tm) {
+        boolean yourTurn = tm.isYourTurn();
+        state.setCurrentPlayer(yourTurn ? myPlayer : 1 - myPlayer);
+        oppPanel.setTargetable(yourTurn);
+        infoLabel.setText(yourTurn ? "YOUR TURN" : "OPPONENT'S TURN");
+    }
+
+    private void applyGameOver(GameOverMessage gom) {
+        String msg = gom.getWinner() == myPlayer ? "YOU WIN!" : "YOU LOSE!";
+        infoLabel.setText("GAME OVER – " + msg);
+        oppPanel.setTargetable(false);
+
+        rematchButton.setVisible(true);
+        rematchButton.setEnabled(true);
     }
 
     /**
-     * Internal panel for representing a board.
+     * One board drawn by a single component instead of a button per cell.
+     * Every cell keeps a small state code; changing one repaints only that cell's rectangle,
+     * and paintComponent draws only the cells inside the clip. Fonts and colours are shared
+     * constants. On the opponent's board a click on an untouched cell fires while it is
+     * targetable, i.e. during the player's own turn.
      */
-    private class BoardPanel extends JPanel {
-        private final JButton[][] buttons = new JButton[G][G];
+    private class BoardPanel extends JComponent {
+        private final byte[] cells = new byte[G * G]; // state code per cell index (row * G + col)
         private final int player;
+        private boolean targetable;                  // clicks fire at the cell
+        private int hover = -1;                      // cell under the mouse, -1 if none
 
         BoardPanel(int player) {
             this.player = player;
-            setOpaque(false);
+            setOpaque(true);
             setBorder(BorderFactory.createTitledBorder(
                 BorderFactory.createLineBorder(BORDER_COL, 2),
                 player == myPlayer ? "Your Board" : "Opponent Board",
                 TitledBorder.CENTER, TitledBorder.TOP,
-                new Font("Segoe UI", Font.BOLD, 16), Color.WHITE));
-            setLayout(new GridLayout(G, G, 2, 2));
-            initButtons();
+                TITLE_FONT, Color.WHITE));
+            if (player != myPlayer) {
+                MouseAdapter mouse = new MouseAdapter() {
+                    @Override
+                    public void mousePressed(MouseEvent e) {
+                        int i = cellAt(e.getX(), e.getY());
+                        if (SwingUtilities.isLeftMouseButton(e) && targetable && i >= 0 && cells[i] == EMPTY
+                                && state.getCurrentPlayer() == myPlayer) {
+                            client.sendFire(Position.of(i / G, i % G));
+                        }
+                    }
+
+                    @Override
+                    public void mouseMoved(MouseEvent e) {
+                        setHover(cellAt(e.getX(), e.getY()));
+                    }
+
+                    @Override
+                    public void mouseExited(MouseEvent e) {
+                        setHover(-1);
+                    }
+                };
+                addMouseListener(mouse);
+                addMouseMotionListener(mouse);
+            }
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            Insets in = getInsets();
+            int side = G * PITCH - GAP;
+            return new Dimension(in.left + side + in.right, in.top + side + in.bottom);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(0, 0, getWidth(), getHeight());
+            g.setColor(WATER);
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+            Insets in = getInsets();
+            int c0 = Math.max(0, (clip.x - in.left) / PITCH);
+            int r0 = Math.max(0, (clip.y - in.top) / PITCH);
+            int c1 = Math.min(G - 1, (clip.x + clip.width - in.left) / PITCH);
+            int r1 = Math.min(G - 1, (clip.y + clip.height - in.top) / PITCH);
+            for (int r = r0; r <= r1; r++) for (int c = c0; c <= c1; c++) {
+                paintCell(g2, in.left + c * PITCH, in.top + r * PITCH, r * G + c);
+            }
         }
 
         /**
-         * Initializes grid buttons.
+         * Draws one cell: its edge, its fill and its mark.
          */
-        private void initButtons() {
-            for (int r = 0; r < G; r++) for (int c = 0; c < G; c++) {
-                JButton b = new JButton();
-                b.setPreferredSize(new Dimension(38, 38));
-                b.setBackground(EMPTY_CELL);
-                b.setOpaque(true);
-                b.setBorder(BorderFactory.createLineBorder(BORDER_COL, 2));
-                Position pos = new Position(r, c);
-                b.putClientProperty("pos", pos);
-                b.addActionListener(e -> {
-                    if (player != myPlayer && state.getCurrentPlayer() == myPlayer) {
-                        client.sendFire(pos);
-                    }
-                });
-                buttons[r][c] = b;
-                add(b);
+        private void paintCell(Graphics2D g, int x, int y, int i) {
+            Color fill, edge = BORDER_COL;
+            int edgeWidth = 2;
+            String mark;
+            Font font = MARK_FONT;
+            switch (cells[i]) {
+                case SHIP -> {
+                    fill = SHIP_COLOR; edge = SHIP_EDGE; edgeWidth = 3; mark = "\u2693"; font = SYMBOL_FONT;
+                }
+                case HIT  -> { fill = HIT_COLOR;  mark = "X"; }
+                case MISS -> { fill = MISS_COLOR; mark = "O"; }
+                case SUNK -> { fill = SUNK_COLOR; edgeWidth = 3; mark = "\u2693"; font = SYMBOL_FONT; }
+                default   -> { fill = targetable && i == hover ? HOVER_CELL : EMPTY_CELL; mark = null; }
+            }
+            g.setColor(edge);
+            g.fillRect(x, y, CELL, CELL);
+            g.setColor(fill);
+            g.fillRect(x + edgeWidth, y + edgeWidth, CELL - 2 * edgeWidth, CELL - 2 * edgeWidth);
+            if (mark != null) {
+                FontMetrics fm = g.getFontMetrics(font);
+                g.setFont(font);
+                g.setColor(Color.WHITE);
+                g.drawString(mark, x + (CELL - fm.stringWidth(mark)) / 2,
+                        y + (CELL - fm.getHeight()) / 2 + fm.getAscent());
+            }
+        }
+
+        /**
+         * Returns the index of the cell at a point of the component, or -1 for the border and gaps.
+         */
+        private int cellAt(int px, int py) {
+            Insets in = getInsets();
+            int x = px - in.left, y = py - in.top;
+            if (x < 0 || y < 0 || x % PITCH >= CELL || y % PITCH >= CELL) return -1;
+            int c = x / PITCH, r = y / PITCH;
+            return r < G && c < G ? r * G + c : -1;
+        }
+
+        /**
+         * Changes one cell and repaints just its rectangle if it looks different.
+         */
+        private void set(int i, byte code) {
+            if (cells[i] == code) return;
+            cells[i] = code;
+            repaintCell(i);
+        }
+
+        private void repaintCell(int i) {
+            if (i < 0) return;
+            Insets in = getInsets();
+            repaint(in.left + (i % G) * PITCH, in.top + (i / G) * PITCH, CELL, CELL);
+        }
+
+        private void setHover(int i) {
+            if (i == hover) return;
+            int old = hover;
+            hover = i;
+            if (targetable) {
+                repaintCell(old);
+                repaintCell(i);
             }
         }
 
@@ -214,31 +398,16 @@ public class BattleUI extends JFrame {
          * Marks a cell as HIT or MISS.
          */
         void markShot(Position p, Cell cell) {
-            JButton b = buttons[p.getRow()][p.getCol()];
-            if (cell == Cell.HIT) {
-                b.setBackground(HIT_COLOR);
-                b.setText("X");
-            } else if (cell == Cell.MISS) {
-                b.setBackground(MISS_COLOR);
-                b.setText("O");
+            if (cell == Cell.HIT || cell == Cell.MISS) {
+                set(p.getRow() * G + p.getCol(), cell == Cell.HIT ? HIT : MISS);
             }
-            b.setForeground(Color.WHITE);
-            b.setFont(new Font("Segoe UI", Font.BOLD, 16));
-            b.setBorder(BorderFactory.createLineBorder(BORDER_COL, 2));
-            b.setEnabled(false);
         }
 
         /**
          * Marks a cell as part of a sunk ship.
          */
         void markSunk(Position p) {
-            JButton b = buttons[p.getRow()][p.getCol()];
-            b.setBackground(SUNK_COLOR);
-            b.setText("\u2693");
-            b.setForeground(Color.WHITE);
-            b.setFont(new Font("Segoe UI Symbol", Font.PLAIN, 18));
-            b.setBorder(BorderFactory.createLineBorder(BORDER_COL, 3));
-            b.setEnabled(false);
+            set(p.getRow() * G + p.getCol(), SUNK);
         }
 
         /**
@@ -246,24 +415,18 @@ public class BattleUI extends JFrame {
          */
         void revealShips(java.util.List<Ship> ships) {
             for (Ship ship : ships) for (Position p : ship.getPositions()) {
-                JButton b = buttons[p.getRow()][p.getCol()];
-                b.setBackground(SHIP_COLOR);
-                b.setText("\u2693");
-                b.setForeground(Color.WHITE);
-                b.setFont(new Font("Segoe UI Symbol", Font.PLAIN, 18));
-                b.setBorder(BorderFactory.createLineBorder(SHIP_COLOR.darker(), 3));
-                b.setEnabled(false);
+                set(p.getRow() * G + p.getCol(), SHIP);
             }
         }
 
         /**
-         * Enables/disables grid buttons depending on turn.
+         * Lets clicks fire at untouched cells, or stops them; only the hovered cell is repainted.
          */
-        void setButtonsEnabled(boolean enabled) {
-            for (int r = 0; r < G; r++) for (int c = 0; c < G; c++) {
-                JButton b = buttons[r][c];
-                if (b.getText().isEmpty()) b.setEnabled(enabled);
-            }
+        void setTargetable(boolean targetable) {
+            if (this.targetable == targetable) return;
+            this.targetable = targetable;
+            setCursor(targetable ? Cursor.getPredefinedCursor(Cursor.HAND_CURSOR) : null);
+            repaintCell(hover);
         }
     }
 }
@@ -0,0 +1,118 @@
+package client;
+
+import javax.swing.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EdtDispatcher hands UI work from the network reader to the Swing event dispatch thread in batches.
+ *
+ * The reader only queues a task per decoded message and never waits for the UI. The first task
+ * of a burst schedules one drain on the EDT, which runs everything queued so far, in order.
+ * Drains are at least a frame apart: a drain that comes too early is pushed back to the next frame
+ * with a timer, so a burst (a resync, a replay) costs one EDT event per frame instead of one per
+ * message. Handlers only mark what changed; Swing paints all dirty regions of a batch together
+ * after it, so a batch is also one repaint.
+ *
+ * The reader backlog and how long tasks waited for the EDT are kept for the debug overlay.
+ * Apart from {@link #post} and {@link #backlog}, every method runs on the EDT.
+ */
+final class EdtDispatcher {
+
+    private static final long FRAME_NANOS = TimeUnit.MILLISECONDS.toNanos(16); // at most one batch per frame
+
+    private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger backlog = new AtomicInteger();        // tasks queued and not run yet
+    private final AtomicBoolean scheduled = new AtomicBoolean();      // a drain is pending on the EDT
+    private final Timer frameTimer = new Timer(0, e -> drain());      // runs a drain pushed to the next frame
+    private long lastBatch = System.nanoTime() - FRAME_NANOS;         // start of the latest drain
+    private Runnable batchListener;                                   // called after every batch, or null
+
+    // Statistics, EDT only
+    private long batches;         // drains that ran at least one task
+    private long tasks;           // tasks run
+    private int lastBatchSize;    // tasks in the latest batch
+    private int maxBatchSize;     // largest batch so far
+    private long lastWaitNanos;   // queue wait of the oldest task in the latest batch
+    private long maxWaitNanos;    // longest queue wait of any task
+    private long totalWaitNanos;  // queue wait of all tasks
+
+    EdtDispatcher() {
+        frameTimer.setRepeats(false);
+    }
+
+    /**
+     * Queues a task for the EDT. Called by the network reader; never blocks.
+     */
+    void post(Runnable task) {
+        queue.add(new Task(task, System.nanoTime()));
+        backlog.incrementAndGet();
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    /**
+     * Runs the queued tasks, or pushes the drain back if the previous batch ran less than a frame ago.
+     */
+    private void drain() {
+        long now = System.nanoTime();
+        long early = lastBatch + FRAME_NANOS - now;
+        if (early > 0) {
+            frameTimer.setInitialDelay((int) TimeUnit.NANOSECONDS.toMillis(early) + 1);
+            frameTimer.restart();
+            return;
+        }
+        scheduled.set(false); // tasks posted from here on schedule the next batch
+        lastBatch = now;
+        int pending = backlog.get(); // tasks posted while this batch runs wait for the next one
+        int n = 0;
+        Task t;
+        while (n < pending && (t = queue.poll()) != null) {
+            backlog.decrementAndGet();
+            long wait = System.nanoTime() - t.posted;
+            if (n == 0) lastWaitNanos = wait;
+            maxWaitNanos = Math.max(maxWaitNanos, wait);
+            totalWaitNanos += wait;
+            n++;
+            try {
+                t.task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // one broken handler must not stall the messages behind it
+            }
+        }
+        if (n == 0) return;
+        batches++;
+        tasks += n;
+        lastBatchSize = n;
+        maxBatchSize = Math.max(maxBatchSize, n);
+        if (batchListener != null) batchListener.run();
+    }
+
+    /**
+     * Sets what to call after every batch (the debug overlay), or null for nothing.
+     */
+    void setBatchListener(Runnable listener) {
+        this.batchListener = listener;
+    }
+
+    /**
+     * Returns the number of tasks the reader queued that have not run yet; any thread.
+     */
+    int backlog() {
+        return backlog.get();
+    }
+
+    /**
+     * Returns one line of statistics for the debug overlay.
+     */
+    String describe() {
+        return String.format("queue %d | batch %d (max %d) | EDT wait %.1f ms (avg %.1f, max %.1f) | %d batches, %d msgs",
+                backlog(), lastBatchSize, maxBatchSize, lastWaitNanos / 1e6,
+                tasks == 0 ? 0.0 : totalWaitNanos / 1e6 / tasks, maxWaitNanos / 1e6, batches, tasks);
+    }
+
+    private record Task(Runnable task, long posted) { }
+}
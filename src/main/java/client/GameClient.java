@@ -2,11 +2,14 @@ package client;
 
 import common.*;
 import model.Position;
+import model.Ruleset;
 import model.Ship;
 
 import javax.swing.*;
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
 
 /**
  * GameClient manages the client-side communication with the server.
@@ -14,38 +17,111 @@ import java.net.Socket;
  *  - Handles the initial handshake and match-making.
  *  - Processes game flow: ship placement, turns, fire, and game over.
  *  - Sends requests such as place ship, ready, fire, and rematch.
+ *  - Reconnects with its resume token if the connection drops during a game (protocol v6),
+ *    so a short network outage does not lose the game.
+ *  - Answers the server's heartbeat pings (protocol v7) and treats three missed pings
+ *    as a lost connection.
  */
 public class GameClient {
 
-    private final Socket socket;               // TCP socket for communication
-    private final ObjectOutputStream out;      // Stream to send objects to the server
-    private final ObjectInputStream in;        // Stream to receive objects from the server
+    private static final long RESUME_WINDOW_MS = 30_000; // how long to keep trying to reconnect
+    private static final long RETRY_DELAY_MS   = 500;    // pause between reconnect attempts
+
+    private final String host;                 // Server address, kept for reconnecting
+    private final int port;
+    private final Object sendLock = new Object(); // guards out against sends racing a reconnect
+    private volatile Socket socket;            // TCP socket for communication
+    private DataOutputStream out;              // Stream to send framed messages to the server
+    private DataInputStream in;                // Stream to receive framed messages from the server
+    private volatile MessageCodec codec;       // Codec agreed on in the handshake
+    private final int version;                 // Protocol version agreed on in the handshake
     private int myPlayer;                      // This client's player ID
-    private final LobbyUI lobbyUi;             // UI shown in the lobby phase
-    private Object ui;                         // Active UI (GameUI or BattleUI)
+    private long resumeToken;                  // Token from the latest MatchFoundMessage, 0 if none
+    private volatile Ruleset rules;            // Rules of the current game, from MatchFoundMessage
+    private volatile boolean inGame;           // true from MatchFound to game over (resumable)
+    private volatile boolean closing;          // set by close(): a lost connection is not resumed
+    private int readTimeout;                   // socket read timeout from the ping interval, 0 if none
+    private LobbyUI lobbyUi;                   // UI shown in the lobby phase (Swing client only)
+    private Object ui;                         // Active UI (GameUI or BattleUI); EDT only
+    private EdtDispatcher dispatcher;          // Hands messages to the EDT in batches (Swing client only)
+    private GameListener listener;             // Receives every server message
 
     /**
-     * Constructor for GameClient.
-     * Initializes network connection and input/output streams.
+     * Constructor for the Swing client.
+     * Initializes network connection and input/output streams and performs the handshake.
+     * The codec to ask for is taken from the battleship.codec system property (binary or java).
+     * The Swing boards only draw the standard grid, so this client stops short of
+     * {@link Handshake#RULES_VERSION} and is always matched into standard games.
      */
     public GameClient(String host, int port, LobbyUI lobbyUi) throws IOException {
+        this(host, port, Handshake.RULES_VERSION - 1, Handshake.preferredCodec());
+        System.out.println("Connected: protocol v" + version + "/codec=" + codec.id());
+        this.lobbyUi    = lobbyUi;
+        this.ui         = lobbyUi;
+        this.dispatcher = new EdtDispatcher();
+        this.listener   = new SwingListener();
+    }
+
+    /**
+     * Constructor for a client without UI; server messages go to {@code listener}.
+     */
+    public GameClient(String host, int port, GameListener listener) throws IOException {
+        this(host, port, Handshake.VERSION, Handshake.preferredCodec());
+        this.listener = listener;
+    }
+
+    private GameClient(String host, int port, int maxVersion, byte preferredCodec) throws IOException {
+        this.host   = host;
+        this.port   = port;
         this.socket = new Socket(host, port);
-        this.out    = new ObjectOutputStream(socket.getOutputStream());
-        this.in     = new ObjectInputStream(socket.getInputStream());
-        this.lobbyUi = lobbyUi;
-        this.ui      = lobbyUi;
+        this.socket.setTcpNoDelay(true);
+        this.out    = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.in     = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        Handshake.Hello agreed = Handshake.connect(in, out, maxVersion, preferredCodec);
+        this.codec   = MessageCodec.forId(agreed.getCodec());
+        this.version = agreed.getVersion();
+        this.rules   = Ruleset.STANDARD;
     }
 
     /**
-     * Sets the current active UI (either GameUI or BattleUI).
+     * Sets the current active UI (either GameUI or BattleUI). Called on the EDT.
      */
     public void setUI(Object ui) {
         this.ui = ui;
     }
 
+    /**
+     * Returns the dispatcher that runs server messages on the EDT (Swing client only).
+     */
+    EdtDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Returns this client's player ID in the current match.
+     */
+    public int getPlayer() {
+        return myPlayer;
+    }
+
+    /**
+     * Returns the rules of the current (or latest) game.
+     */
+    public Ruleset getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the protocol version agreed on with the server.
+     */
+    public int getVersion() {
+        return version;
+    }
+
     /**
      * Main entry point for the client logic.
-     * Handles handshake, game loop, and rematch cycles.
+     * Reads server messages and hands them to the listener until the connection ends,
+     * going through the match, game and rematch phases.
      */
     public void start() {
         try {
@@ -53,63 +129,254 @@ public class GameClient {
             do {
                 // === A) Initial Handshake and Match Found Phase ===
                 Object msg;
-                while ((msg = in.readObject()) != null) {
-                    if (msg instanceof String str && "WELCOME".equals(str)) {
-                        System.out.println("Handshake: " + str);
-                    } else if (msg instanceof MatchFoundMessage mfm) {
-                        myPlayer = mfm.getPlayerId();
-                        System.out.println("MatchFound: player=" + myPlayer);
-
-                        // Update UI on EDT
-                        SwingUtilities.invokeLater(() -> {
-                            if (ui instanceof JFrame) {
-                                ((JFrame) ui).dispose();  // Close previous UI if any
-                            }
-                            lobbyUi.onMatchFound(myPlayer, this);
-                        });
+                while ((msg = read()) != null) {
+                    if (msg instanceof MatchFoundMessage mfm) {
+                        myPlayer    = mfm.getPlayerId();
+                        resumeToken = mfm.getResumeToken();
+                        rules       = mfm.getRules();
+                        inGame      = true;
+                        listener.onMatchFound(myPlayer);
                         break; // Proceed to game loop
-                    } else {
+                    } else if (!"WELCOME".equals(msg)) {
                         System.err.println("Unexpected handshake message: " + msg);
                     }
                 }
 
                 // === B) Game Phase: Placement, Turns, and Game Over ===
-                while ((msg = in.readObject()) != null) {
+                while ((msg = read()) != null) {
                     if (msg instanceof PlaceShipResponse psr) {
-                        ((GameUI) ui).handlePlaceShipResponse(psr);
+                        listener.onPlaceShipResponse(psr);
                     } else if (msg instanceof TurnMessage tm) {
-                        if (ui instanceof GameUI) {
-                            ((GameUI) ui).handleTurnMessage(tm);
-                        } else {
-                            ((BattleUI) ui).handleTurnMessage(tm);
+                        listener.onTurn(tm);
+                    } else if (msg instanceof TurnOutcomeMessage tom) {
+                        listener.onTurnOutcome(tom);
+                        if (tom.isGameOver()) {
+                            inGame = false;
+                            break; // Game over, break out to check for rematch
                         }
                     } else if (msg instanceof FireResponse fr) {
-                        ((BattleUI) ui).handleFireResponse(fr);
+                        listener.onFireResponse(fr);
                     } else if (msg instanceof GameOverMessage gom) {
-                        ((BattleUI) ui).handleGameOverMessage(gom);
+                        inGame = false;
+                        listener.onGameOver(gom);
                         break; // Game over, break out to check for rematch
+                    } else if (msg instanceof ResumeMessage rm) {
+                        listener.onResume(rm);
                     } else {
                         System.err.println("Unexpected game loop message: " + msg);
                     }
                 }
 
                 // === C) Rematch Cycle Detection ===
-                msg = in.readObject();
-                if (msg instanceof String str2 && "WELCOME".equals(str2)) {
-                    System.out.println("Rematch starting...");
-                    rematch = true;
-                } else {
-                    rematch = false;
+                msg = read();
+                rematch = msg instanceof String str2 && "WELCOME".equals(str2);
+                if (rematch) {
+                    listener.onRematch();
                 }
 
             } while (rematch);  // Loop for rematches
+            listener.onDisconnect(null);
 
+        } catch (EOFException e) {
+            listener.onDisconnect(null); // Server closed the connection
         } catch (Exception e) {
-            e.printStackTrace();
+            listener.onDisconnect(e);
         } finally {
+            close();
+        }
+    }
+
+    /**
+     * Reads the next server message, answering pings and passing opponent status updates
+     * to the listener on the way. If the connection drops during a game and the server
+     * gave this client a resume token, reconnects and returns the server's ResumeMessage.
+     */
+    private Object read() throws IOException {
+        while (true) {
+            Object msg;
+            try {
+                msg = Frames.read(in, codec);
+            } catch (IOException e) {
+                if (!inGame || resumeToken == 0 || closing) throw e;
+                return reconnect(e);
+            }
+            if (msg instanceof PingMessage ping) {
+                heartbeat(ping);
+            } else if (msg instanceof OpponentStatusMessage oss) {
+                listener.onOpponentStatus(oss);
+            } else {
+                return msg;
+            }
+        }
+    }
+
+    /**
+     * Answers a ping and gives up on the connection if the server stays silent for three intervals.
+     */
+    private void heartbeat(PingMessage ping) {
+        int timeout = ping.getIntervalMillis() * 3;
+        if (timeout != readTimeout) {
+            readTimeout = timeout; // also applied to the socket of a resumed connection
             try {
-                socket.close();  // Ensure socket is closed
-            } catch (IOException ignored) {}
+                socket.setSoTimeout(timeout);
+            } catch (SocketException e) {
+                // closed under us (a buffered ping after the drop): the next read notices
+            }
+        }
+        send(new PongMessage(ping.getStamp()));
+    }
+
+    /**
+     * Reconnects with the resume token, retrying for up to {@link #RESUME_WINDOW_MS}.
+     * @param cause the failure that ended the old connection, rethrown if resuming fails
+     * @return the ResumeMessage snapshot sent by the server
+     */
+    private ResumeMessage reconnect(IOException cause) throws IOException {
+        System.out.println("Connection lost (" + cause.getMessage() + "), resuming the game...");
+        long deadline = System.currentTimeMillis() + RESUME_WINDOW_MS;
+        while (!closing && System.currentTimeMillis() < deadline) {
+            Socket s = new Socket();
+            DataInputStream newIn;
+            DataOutputStream newOut;
+            MessageCodec newCodec;
+            try {
+                s.connect(new InetSocketAddress(host, port), (int) RETRY_DELAY_MS * 4);
+                s.setTcpNoDelay(true);
+                newIn  = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                newOut = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                newCodec = MessageCodec.forId(Handshake.resume(newIn, newOut, codec.id(), resumeToken).getCodec());
+            } catch (IOException e) {
+                s.close();
+                try {
+                    Thread.sleep(RETRY_DELAY_MS); // server not reachable yet
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                continue;
+            }
+            Object first;
+            try {
+                while ((first = Frames.read(newIn, newCodec)) instanceof PingMessage ping) {
+                    Frames.write(newOut, newCodec, new PongMessage(ping.getStamp())); // may precede the snapshot
+                }
+            } catch (IOException e) {
+                first = null; // the server closes the connection if the seat is gone
+            }
+            if (!(first instanceof ResumeMessage rm)) {
+                s.close();
+                break;
+            }
+            s.setSoTimeout(readTimeout);
+            synchronized (sendLock) {
+                Socket old = socket;
+                socket = s;
+                in     = newIn;
+                out    = newOut;
+                codec  = newCodec;
+                try {
+                    old.close();
+                } catch (IOException ignored) {}
+            }
+            if (closing) s.close(); // close() raced with the swap
+            System.out.println("Resumed as player " + rm.getPlayerId());
+            return rm;
+        }
+        throw cause;
+    }
+
+    /**
+     * Closes the connection; a running {@link #start()} loop ends with {@code onDisconnect}.
+     */
+    public void close() {
+        closing = true;
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Closes the socket as if the network had failed, without giving up the game:
+     * the reader then resumes the session. Lets load tests exercise reconnects.
+     */
+    public void dropConnection() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    /**
+     * Forwards server messages to the Swing windows. The reader only queues each message on the
+     * dispatcher; the active window is looked up on the EDT when the message's batch runs, so a
+     * message always reaches the window the messages before it opened.
+     */
+    private class SwingListener implements GameListener {
+
+        @Override
+        public void onMatchFound(int player) {
+            System.out.println("MatchFound: player=" + player);
+            dispatcher.post(() -> {
+                if (ui instanceof JFrame) {
+                    dispatcher.setBatchListener(null);
+                    ((JFrame) ui).dispose();  // Close previous UI if any
+                }
+                lobbyUi.onMatchFound(player, GameClient.this);
+            });
+        }
+
+        @Override
+        public void onPlaceShipResponse(PlaceShipResponse psr) {
+            dispatcher.post(() -> ((GameUI) ui).handlePlaceShipResponse(psr));
+        }
+
+        @Override
+        public void onTurn(TurnMessage tm) {
+            dispatcher.post(() -> {
+                if (ui instanceof GameUI) {
+                    ((GameUI) ui).handleTurnMessage(tm);
+                } else {
+                    ((BattleUI) ui).handleTurnMessage(tm);
+                }
+            });
+        }
+
+        @Override
+        public void onFireResponse(FireResponse fr) {
+            dispatcher.post(() -> ((BattleUI) ui).handleFireResponse(fr));
+        }
+
+        @Override
+        public void onGameOver(GameOverMessage gom) {
+            dispatcher.post(() -> ((BattleUI) ui).handleGameOverMessage(gom));
+        }
+
+        @Override
+        public void onTurnOutcome(TurnOutcomeMessage tom) {
+            dispatcher.post(() -> ((BattleUI) ui).handleTurnOutcome(tom));
+        }
+
+        @Override
+        public void onResume(ResumeMessage rm) {
+            dispatcher.post(() -> {
+                if (ui instanceof BattleUI battle) {
+                    battle.handleResume(rm);
+                } else if (ui instanceof GameUI game) {
+                    game.handleResume(rm); // placement state, or the battle that started while away
+                }
+            });
+        }
+
+        @Override
+        public void onOpponentStatus(OpponentStatusMessage oss) {
+            System.out.println("Opponent " + (oss.isConnected() ? "is back" : "lost its connection"));
+            dispatcher.post(() -> {
+                if (ui instanceof BattleUI battle) battle.handleOpponentStatus(oss);
+            });
+        }
+
+        @Override
+        public void onRematch() {
+            System.out.println("Rematch starting...");
         }
     }
 
@@ -117,51 +384,45 @@ public class GameClient {
     // === Send Methods ===
     // ====================
 
+    /**
+     * Writes one message to the server. While the connection is down (and being resumed)
+     * the message is lost; the ResumeMessage that follows tells the client where the game stands.
+     */
+    private void send(Object msg) {
+        synchronized (sendLock) {
+            try {
+                Frames.write(out, codec, msg);
+            } catch (IOException e) {
+                if (!inGame || resumeToken == 0) e.printStackTrace();
+            }
+        }
+    }
+
     /**
      * Sends a ship placement request to the server.
      */
     public void sendPlaceShip(Ship s) {
-        try {
-            out.writeObject(new PlaceShipRequest(myPlayer, s));
-            out.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        send(new PlaceShipRequest(myPlayer, s));
     }
 
     /**
      * Sends a "ready to start battle" message to the server.
      */
     public void sendReady() {
-        try {
-            out.writeObject(new ReadyRequest(myPlayer));
-            out.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        send(new ReadyRequest(myPlayer));
     }
 
     /**
      * Sends a fire request (shot at a position) to the server.
      */
     public void sendFire(Position p) {
-        try {
-            out.writeObject(new FireRequest(p));
-            out.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        send(new FireRequest(p));
     }
 
     /**
      * Sends a rematch request to the server after the game ends.
      */
     public void sendRematchRequest() {
-        try {
-            out.writeObject(new RematchRequest(myPlayer));
-            out.flush();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        send(new RematchRequest(myPlayer));
     }
 }
@@ -0,0 +1,75 @@
+package client;
+
+import common.*;
+
+/**
+ * GameListener receives the server messages GameClient reads, one callback per message,
+ * on the client's reader thread. The Swing windows and the headless bots are both
+ * driven through it, so the protocol loop in GameClient knows nothing about the UI.
+ */
+public interface GameListener {
+
+    /**
+     * A match was found (or a rematch started); ship placement begins.
+     * @param player this client's player ID
+     */
+    void onMatchFound(int player);
+
+    /**
+     * The server answered a ship placement request.
+     */
+    void onPlaceShipResponse(PlaceShipResponse psr);
+
+    /**
+     * The turn changed (battle start, or after a shot under protocol v1).
+     */
+    void onTurn(TurnMessage tm);
+
+    /**
+     * The result of a shot by either player (protocol v1).
+     */
+    void onFireResponse(FireResponse fr);
+
+    /**
+     * The game ended (protocol v1).
+     */
+    void onGameOver(GameOverMessage gom);
+
+    /**
+     * The result of a shot together with the next turn or the game over (protocol v2).
+     * By default it is split into the v1 callbacks.
+     */
+    default void onTurnOutcome(TurnOutcomeMessage tom) {
+        onFireResponse(tom.getFire());
+        if (tom.isGameOver()) {
+            onGameOver(tom.getGameOver());
+        } else {
+            onTurn(tom.getTurn());
+        }
+    }
+
+    /**
+     * The connection dropped and was resumed (protocol v6); the snapshot shows where the game
+     * stands, including shots whose results were lost with the old connection.
+     */
+    default void onResume(ResumeMessage rm) {}
+
+    /**
+     * The opponent lost its connection, or came back after one (protocol v7).
+     * While it is away its seat is kept; if it does not return, the server ends the session.
+     */
+    default void onOpponentStatus(OpponentStatusMessage oss) {}
+
+    /**
+     * Both players asked for a rematch; a new match follows.
+     */
+    default void onRematch() {}
+
+    /**
+     * The connection ended, normally or not.
+     * @param cause the exception that ended the reader loop, or null if the server closed it
+     */
+    default void onDisconnect(Exception cause) {
+        if (cause != null) cause.printStackTrace();
+    }
+}
@@ -1,7 +1,10 @@
 package client;
 
 import common.PlaceShipResponse;
+import common.ResumeMessage;
 import common.TurnMessage;
+import model.Board.Cell;
+import model.FleetSampler;
 import model.Position;
 import model.Ship;
 import model.GameRules;
@@ -13,6 +16,7 @@ import java.awt.*;
 import java.awt.datatransfer.*;
 import java.awt.dnd.*;
 import java.awt.event.*;
+import java.util.Random;
 
 /**
  * GameUI handles the ship placement phase and readiness confirmation.
@@ -33,13 +37,15 @@ public class GameUI extends JFrame {
     // --- Client and state references ---
     private final GameClient client;
     private final int myPlayer;
-    private final GameState state = new GameState();
+    private GameState state = new GameState(); // replaced by the server's view on resume
 
     // --- UI components and state variables ---
     private int shipIdx = 0;
     private boolean dragHoriz = true;
     private Position firstClick = null;
+    private boolean readySent = false; // Ready clicked; sent again if it was lost in a reconnect
     private final int[] sizes = GameRules.SHIP_SIZES;
+    private final Random random = new Random();
 
     private final BoardPanel board;
     private final JLabel infoLabel = new JLabel();
@@ -94,6 +100,17 @@ public class GameUI extends JFrame {
         rot.setAlignmentX(Component.CENTER_ALIGNMENT);
         rot.addActionListener(e -> dragHoriz = !dragHoriz);
         side.add(rot);
+        side.add(Box.createVerticalStrut(10));
+
+        // Random Button: places the ships that are still missing
+        JButton rnd = new JButton("Random");
+        rnd.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        rnd.setBackground(HIGHLIGHT);
+        rnd.setForeground(Color.BLACK);
+        rnd.setFocusPainted(false);
+        rnd.setAlignmentX(Component.CENTER_ALIGNMENT);
+        rnd.addActionListener(e -> placeRandom());
+        side.add(rnd);
         side.add(Box.createVerticalStrut(15));
 
         // Ship labels for drag-and-drop
@@ -133,6 +150,7 @@ public class GameUI extends JFrame {
         readyBtn.setEnabled(false);
         readyBtn.addActionListener(e -> {
             client.sendReady();
+            readySent = true;
             readyBtn.setEnabled(false);
             infoLabel.setText("Waiting for opponent...");
         });
@@ -166,27 +184,98 @@ public class GameUI extends JFrame {
     }
 
     /**
-     * Handles server response for ship placement.
+     * Places every ship not placed yet at random, around the ships already on the board.
+     * Ships that were sent to the server stay where they are.
+     */
+    private void placeRandom() {
+        if (shipIdx >= sizes.length) return;
+        FleetSampler sampler = FleetSampler.standard();
+        long[] taken = new long[sampler.words()];
+        for (Ship s : state.getBoard(myPlayer).getShips()) {
+            sampler.mark(s, taken);
+        }
+        int[] placement = new int[sampler.ships()];
+        if (!sampler.sample(random, taken, shipIdx, placement)) {
+            JOptionPane.showMessageDialog(this, "No room left for the remaining ships!", "Invalid",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        for (int i = shipIdx; i < sizes.length; i++) {
+            Ship s = sampler.ship(i, placement[i]);
+            if (state.placeShip(myPlayer, s)) client.sendPlaceShip(s);
+        }
+        shipIdx = sizes.length;
+        firstClick = null;
+        updateView();
+    }
+
+    /**
+     * Handles server response for ship placement. Runs on the EDT.
      */
     public void handlePlaceShipResponse(PlaceShipResponse resp) {
-        SwingUtilities.invokeLater(() -> {
-            if (!resp.isSuccess()) {
-                JOptionPane.showMessageDialog(this, "Cannot place here!", "Invalid", JOptionPane.WARNING_MESSAGE);
-                shipIdx--;
-            }
-            updateView();
-        });
+        if (!resp.isSuccess()) {
+            JOptionPane.showMessageDialog(this, "Cannot place here!", "Invalid", JOptionPane.WARNING_MESSAGE);
+            shipIdx--;
+        }
+        updateView();
     }
 
     /**
-     * Handles transition to battle phase.
+     * Handles transition to battle phase. Runs on the EDT.
      */
     public void handleTurnMessage(TurnMessage tm) {
-        SwingUtilities.invokeLater(() -> {
-            BattleUI battle = new BattleUI(client, myPlayer, state, tm.isYourTurn());
-            client.setUI(battle);
-            dispose();
-        });
+        openBattle(tm.isYourTurn());
+    }
+
+    /**
+     * Catches up with the server after the connection was resumed. Runs on the EDT.
+     * Placements and a Ready sent while the connection was down are lost, so only the ships the
+     * snapshot shows on this player's grid are kept (those sent later must be placed again) and a
+     * Ready the server did not get is sent again. A snapshot of the battle opens the battle window.
+     */
+    public void handleResume(ResumeMessage rm) {
+        GameState resumed = new GameState();
+        for (Ship s : state.getBoard(myPlayer).getShips()) {
+            if (!onServer(rm, s)) break; // sent after the connection dropped, like every ship after it
+            resumed.placeShip(myPlayer, s);
+        }
+        state = resumed;
+        shipIdx = state.getBoard(myPlayer).getShips().size();
+        firstClick = null;
+        if (rm.isBattle()) {
+            openBattle(rm.isYourTurn()).handleResume(rm);
+            return;
+        }
+        updateView();
+        if (!rm.isReady() && readySent && shipIdx == sizes.length) {
+            client.sendReady();
+        } else if (!rm.isReady()) {
+            readySent = false; // the Ready button is enabled again once all ships are placed
+            return;
+        }
+        readyBtn.setEnabled(false);
+        infoLabel.setText("Waiting for opponent...");
+    }
+
+    /**
+     * Returns whether the snapshot shows the ship on this player's grid.
+     */
+    private static boolean onServer(ResumeMessage rm, Ship s) {
+        for (Position p : s.getPositions()) {
+            Cell cell = rm.getOwnCell(p);
+            if (cell != Cell.SHIP && cell != Cell.HIT) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Replaces this window with the battle window.
+     */
+    private BattleUI openBattle(boolean yourTurn) {
+        BattleUI battle = new BattleUI(client, myPlayer, state, yourTurn);
+        client.setUI(battle);
+        dispose();
+        return battle;
     }
 
     // === Inner class for the game board panel ===
@@ -211,7 +300,7 @@ public class GameUI extends JFrame {
                     btn.setBackground(EMPTY_CELL);
                     btn.setOpaque(true);
                     btn.setBorder(BorderFactory.createMatteBorder(2, 2, 2, 2, BORDER_COL));
-                    Position pos = new Position(r, c);
+                    Position pos = Position.of(r, c);
                     btn.putClientProperty("pos", pos);
                     btn.addActionListener(new CellHandler(pos));
                     btn.setDropTarget(new DropTarget(btn, new DropTargetAdapter() {
@@ -94,15 +94,13 @@ public class LobbyUI extends JFrame {
 
     /**
      * Callback when a match is successfully found.
-     * Transitions to the ship placement screen (GameUI).
+     * Transitions to the ship placement screen (GameUI). Runs on the EDT.
      */
     public void onMatchFound(int playerId, GameClient client) {
-        SwingUtilities.invokeLater(() -> {
-            progressBar.setIndeterminate(false);
-            progressBar.setValue(progressBar.getMaximum()); // visual cue
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(progressBar.getMaximum()); // visual cue
 
-            dispose();  // Close lobby screen
-            client.setUI(new GameUI(client, playerId)); // Launch ship placement UI
-        });
+        dispose();  // Close lobby screen
+        client.setUI(new GameUI(client, playerId)); // Launch ship placement UI
     }
 }
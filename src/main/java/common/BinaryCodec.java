@@ -0,0 +1,506 @@
+package common;
+
+import model.Board.Cell;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BinaryCodec is the compact wire format.
+ * Each payload is a one-byte type tag followed by fixed-width unsigned byte fields,
+ * so a fire request is 3 bytes instead of a few hundred bytes of serialized objects.
+ *
+ * Layout (after the tag):
+ *  WELCOME              -
+ *  MATCH_FOUND          playerId [, resumeToken (8 bytes, big-endian)                           (token: protocol v6)
+ *                       [, gridSize, shipCount, shipCount ship lengths (2 bytes each)]]         (rules: protocol v8)
+ *  PLACE_SHIP_REQUEST   player, startRow, startCol, endRow, endCol
+ *  PLACE_SHIP_RESPONSE  success
+ *  READY_REQUEST        player
+ *  TURN                 yourTurn
+ *  FIRE_REQUEST         row, col
+ *  FIRE_RESPONSE        row, col, result [, sunkStartRow, sunkStartCol, sunkEndRow, sunkEndCol]
+ *  GAME_OVER            winner
+ *  REMATCH_REQUEST      playerId
+ *  REMATCH_STATUS       bothAgreed
+ *  TURN_OUTCOME         row, col, result, gameOver, yourTurn-or-winner [, sunk ship as above]   (protocol v2)
+ *  SPECTATE_RESPONSE    sessionId (8 bytes, big-endian)                                        (protocol v5)
+ *  FLEET_REVEAL         count0, count0 ships, count1, count1 ships (4 bytes each, as above)    (protocol v5)
+ *  RESUME               playerId, flags (1 battle, 2 ready, 4 yourTurn), own grid, target grid  (protocol v6)
+ *  PING                 stamp (8 bytes), intervalMillis (4 bytes)                              (protocol v7)
+ *  PONG                 stamp (8 bytes)                                                        (protocol v7)
+ *  OPPONENT_STATUS      connected                                                              (protocol v7)
+ *
+ * The four sunk-ship bytes are only present when the shot sank a ship (protocol v3).
+ * The rules of MATCH_FOUND are only present when they are not the standard ones; the token
+ * is then always written (0 if resuming is not offered).
+ *
+ * From protocol v8 on, PLACE_SHIP_REQUEST, FIRE_REQUEST, FIRE_RESPONSE, TURN_OUTCOME and
+ * FLEET_REVEAL may carry the {@link #WIDE} flag on their tag: every row, column and fleet count
+ * then takes two bytes (big-endian), for grids larger than 256 cells a side. The flag is only
+ * set when a value does not fit one byte, so games on small grids keep the short layout.
+ */
+public final class BinaryCodec implements MessageCodec {
+
+    /** Shared stateless instance */
+    public static final BinaryCodec INSTANCE = new BinaryCodec();
+
+    static final byte WELCOME             = 1;
+    static final byte MATCH_FOUND         = 2;
+    static final byte PLACE_SHIP_REQUEST  = 3;
+    static final byte PLACE_SHIP_RESPONSE = 4;
+    static final byte READY_REQUEST       = 5;
+    static final byte TURN                = 6;
+    static final byte FIRE_REQUEST        = 7;
+    static final byte FIRE_RESPONSE       = 8;
+    static final byte GAME_OVER           = 9;
+    static final byte REMATCH_REQUEST     = 10;
+    static final byte REMATCH_STATUS      = 11;
+    static final byte TURN_OUTCOME        = 12;
+    static final byte SPECTATE_RESPONSE   = 13;
+    static final byte FLEET_REVEAL        = 14;
+    static final byte RESUME              = 15;
+    static final byte PING                = 16;
+    static final byte PONG                = 17;
+    static final byte OPPONENT_STATUS     = 18;
+
+    /** Tag flag: coordinates and fleet counts take two bytes (protocol v8) */
+    static final byte WIDE = 0x40;
+
+    private static final Cell[] CELLS = Cell.values();
+    private static final int TAG = Frames.HEADER_SIZE; // index of the tag byte inside a frame
+
+    private BinaryCodec() {}
+
+    @Override
+    public byte id() {
+        return BINARY;
+    }
+
+    @Override
+    public byte[] encode(Object msg) throws IOException {
+        byte[] f;
+        if ("WELCOME".equals(msg)) {
+            f = frame(WELCOME, 0);
+        } else if (msg instanceof MatchFoundMessage m) {
+            Ruleset rules = m.getRules();
+            boolean custom = !rules.isStandard();
+            boolean token  = custom || m.getResumeToken() != 0;
+            f = frame(MATCH_FOUND, 1 + (token ? 8 : 0) + (custom ? 4 + 2 * rules.numShips() : 0));
+            f[TAG + 1] = u8(m.getPlayerId());
+            if (token) putLong(f, TAG + 2, m.getResumeToken());
+            if (custom) putRules(f, TAG + 10, rules);
+        } else if (msg instanceof PlaceShipRequest m) {
+            boolean wide = wide(m.getShip().getEnd());
+            f = frame(PLACE_SHIP_REQUEST, wide, 1 + shipBytes(wide));
+            f[TAG + 1] = u8(m.getPlayer());
+            putShip(f, TAG + 2, m.getShip(), wide);
+        } else if (msg instanceof PlaceShipResponse m) {
+            f = frame(PLACE_SHIP_RESPONSE, 1);
+            f[TAG + 1] = bool(m.isSuccess());
+        } else if (msg instanceof ReadyRequest m) {
+            f = frame(READY_REQUEST, 1);
+            f[TAG + 1] = u8(m.getPlayer());
+        } else if (msg instanceof TurnMessage m) {
+            f = frame(TURN, 1);
+            f[TAG + 1] = bool(m.isYourTurn());
+        } else if (msg instanceof FireRequest m) {
+            boolean wide = wide(m.getPosition());
+            f = frame(FIRE_REQUEST, wide, 2 * width(wide));
+            putPosition(f, TAG + 1, m.getPosition(), wide);
+        } else if (msg instanceof FireResponse m) {
+            boolean wide = wide(m);
+            f = frame(FIRE_RESPONSE, wide, fireBytes(m, wide));
+            putFire(f, TAG + 1, m, wide);
+            if (m.isSunk()) putShip(f, TAG + 1 + resultBytes(wide), m.getSunkShip(), wide);
+        } else if (msg instanceof GameOverMessage m) {
+            f = frame(GAME_OVER, 1);
+            f[TAG + 1] = u8(m.getWinner());
+        } else if (msg instanceof RematchRequest m) {
+            f = frame(REMATCH_REQUEST, 1);
+            f[TAG + 1] = u8(m.getPlayerId());
+        } else if (msg instanceof RematchStatusMessage m) {
+            f = frame(REMATCH_STATUS, 1);
+            f[TAG + 1] = bool(m.isBothAgreed());
+        } else if (msg instanceof TurnOutcomeMessage m) {
+            FireResponse fire = m.getFire();
+            boolean wide = wide(fire);
+            int at = TAG + 1 + resultBytes(wide); // after row, col, result
+            f = frame(TURN_OUTCOME, wide, fireBytes(fire, wide) + 2);
+            putFire(f, TAG + 1, fire, wide);
+            f[at]     = bool(m.isGameOver());
+            f[at + 1] = m.isGameOver() ? u8(m.getGameOver().getWinner()) : bool(m.getTurn().isYourTurn());
+            if (fire.isSunk()) putShip(f, at + 2, fire.getSunkShip(), wide);
+        } else if (msg instanceof SpectateResponse m) {
+            f = frame(SPECTATE_RESPONSE, 8);
+            putLong(f, TAG + 1, m.getSessionId());
+        } else if (msg instanceof FleetRevealMessage m) {
+            List<Ship> f0 = m.getFleet(0), f1 = m.getFleet(1);
+            boolean wide = wide(f0) || wide(f1);
+            f = frame(FLEET_REVEAL, wide, 2 * width(wide) + (f0.size() + f1.size()) * shipBytes(wide));
+            int at = putFleet(f, TAG + 1, f0, wide);
+            putFleet(f, at, f1, wide);
+        } else if (msg instanceof ResumeMessage m) {
+            f = frame(RESUME, 2 + 2 * ResumeMessage.GRID_BYTES);
+            f[TAG + 1] = u8(m.getPlayerId());
+            f[TAG + 2] = (byte) ((m.isBattle() ? 1 : 0) | (m.isReady() ? 2 : 0) | (m.isYourTurn() ? 4 : 0));
+            System.arraycopy(m.packedOwn(), 0, f, TAG + 3, ResumeMessage.GRID_BYTES);
+            System.arraycopy(m.packedTarget(), 0, f, TAG + 3 + ResumeMessage.GRID_BYTES, ResumeMessage.GRID_BYTES);
+        } else if (msg instanceof PingMessage m) {
+            f = frame(PING, 12);
+            putLong(f, TAG + 1, m.getStamp());
+            putInt(f, TAG + 9, m.getIntervalMillis());
+        } else if (msg instanceof PongMessage m) {
+            f = frame(PONG, 8);
+            putLong(f, TAG + 1, m.getStamp());
+        } else if (msg instanceof OpponentStatusMessage m) {
+            f = frame(OPPONENT_STATUS, 1);
+            f[TAG + 1] = bool(m.isConnected());
+        } else {
+            throw new IOException("Binary codec cannot encode " + msg);
+        }
+        return f;
+    }
+
+    @Override
+    public Object decode(byte[] buf, int off, int len) throws IOException {
+        try {
+            return decodeTagged(buf, off, len);
+        } catch (IllegalArgumentException e) { // a diagonal ship, a coordinate out of range
+            throw new IOException("Malformed message: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes one payload; values the model rejects surface as IllegalArgumentException.
+     */
+    private Object decodeTagged(byte[] buf, int off, int len) throws IOException {
+        if (len < 1) {
+            throw new IOException("Empty payload");
+        }
+        byte tag = buf[off];
+        boolean wide = (tag & WIDE) != 0;
+        if (wide) {
+            tag &= ~WIDE;
+            if (tag != PLACE_SHIP_REQUEST && tag != FIRE_REQUEST && tag != FIRE_RESPONSE
+                    && tag != TURN_OUTCOME && tag != FLEET_REVEAL) {
+                throw new IOException("Unknown message tag: " + buf[off]);
+            }
+        }
+        int p = off + 1; // first field
+        switch (tag) {
+            case WELCOME:
+                expect(len, 0);
+                return "WELCOME";
+            case MATCH_FOUND:
+                if (len > 1 + 9) {
+                    return new MatchFoundMessage(u8(buf, p), getLong(buf, p + 1), readRules(buf, p + 9, len));
+                }
+                if (len == 1 + 9) return new MatchFoundMessage(u8(buf, p), getLong(buf, p + 1));
+                expect(len, 1);
+                return new MatchFoundMessage(u8(buf, p));
+            case PLACE_SHIP_REQUEST:
+                expect(len, 1 + shipBytes(wide));
+                return new PlaceShipRequest(u8(buf, p), readShip(buf, p + 1, wide));
+            case PLACE_SHIP_RESPONSE:
+                expect(len, 1);
+                return new PlaceShipResponse(buf[p] != 0);
+            case READY_REQUEST:
+                expect(len, 1);
+                return new ReadyRequest(u8(buf, p));
+            case TURN:
+                expect(len, 1);
+                return new TurnMessage(buf[p] != 0);
+            case FIRE_REQUEST:
+                expect(len, 2 * width(wide));
+                return new FireRequest(readPosition(buf, p, wide));
+            case FIRE_RESPONSE: {
+                int rb = resultBytes(wide);
+                boolean sunk = len - 1 == rb + shipBytes(wide);
+                if (!sunk) expect(len, rb);
+                return new FireResponse(readPosition(buf, p, wide), cell(buf[p + rb - 1]),
+                        sunk ? readShip(buf, p + rb, wide) : null);
+            }
+            case GAME_OVER:
+                expect(len, 1);
+                return new GameOverMessage(u8(buf, p));
+            case REMATCH_REQUEST:
+                expect(len, 1);
+                return new RematchRequest(u8(buf, p));
+            case REMATCH_STATUS:
+                expect(len, 1);
+                return new RematchStatusMessage(buf[p] != 0);
+            case TURN_OUTCOME: {
+                int rb = resultBytes(wide);
+                boolean sunk = len - 1 == rb + 2 + shipBytes(wide);
+                if (!sunk) expect(len, rb + 2);
+                FireResponse fire = new FireResponse(readPosition(buf, p, wide), cell(buf[p + rb - 1]),
+                        sunk ? readShip(buf, p + rb + 2, wide) : null);
+                return buf[p + rb] != 0
+                        ? new TurnOutcomeMessage(fire, new GameOverMessage(u8(buf, p + rb + 1)))
+                        : new TurnOutcomeMessage(fire, new TurnMessage(buf[p + rb + 1] != 0));
+            }
+            case SPECTATE_RESPONSE:
+                expect(len, 8);
+                return new SpectateResponse(getLong(buf, p));
+            case FLEET_REVEAL: {
+                int end = off + len, w = width(wide), sb = shipBytes(wide);
+                List<Ship> f0 = readFleet(buf, p, end, wide);
+                List<Ship> f1 = readFleet(buf, p + w + f0.size() * sb, end, wide);
+                expect(len, 2 * w + (f0.size() + f1.size()) * sb);
+                return new FleetRevealMessage(f0, f1);
+            }
+            case RESUME: {
+                expect(len, 2 + 2 * ResumeMessage.GRID_BYTES);
+                int flags = u8(buf, p + 1);
+                int grid = p + 2;
+                return new ResumeMessage(u8(buf, p), (flags & 1) != 0, (flags & 2) != 0, (flags & 4) != 0,
+                        Arrays.copyOfRange(buf, grid, grid + ResumeMessage.GRID_BYTES),
+                        Arrays.copyOfRange(buf, grid + ResumeMessage.GRID_BYTES, grid + 2 * ResumeMessage.GRID_BYTES));
+            }
+            case PING:
+                expect(len, 12);
+                return new PingMessage(getLong(buf, p), getInt(buf, p + 8));
+            case PONG:
+                expect(len, 8);
+                return new PongMessage(getLong(buf, p));
+            case OPPONENT_STATUS:
+                expect(len, 1);
+                return new OpponentStatusMessage(buf[p] != 0);
+            default:
+                throw new IOException("Unknown message tag: " + tag);
+        }
+    }
+
+    /**
+     * Returns whether a position needs the two-byte layout.
+     */
+    private static boolean wide(Position p) {
+        return p.getRow() > 0xFF || p.getCol() > 0xFF;
+    }
+
+    /**
+     * Returns whether a fire result (and the ship it sank) needs the two-byte layout.
+     */
+    private static boolean wide(FireResponse fire) {
+        return wide(fire.getPosition()) || (fire.isSunk() && wide(fire.getSunkShip().getEnd()));
+    }
+
+    /**
+     * Returns whether a fleet, or its size, needs the two-byte layout.
+     */
+    private static boolean wide(List<Ship> fleet) {
+        if (fleet.size() > 0xFF) return true;
+        for (Ship s : fleet) {
+            if (wide(s.getEnd())) return true;
+        }
+        return false;
+    }
+
+    /** Returns the bytes one coordinate or fleet count takes */
+    private static int width(boolean wide) {
+        return wide ? 2 : 1;
+    }
+
+    /** Returns the bytes of row, col and result */
+    private static int resultBytes(boolean wide) {
+        return 2 * width(wide) + 1;
+    }
+
+    /** Returns the bytes of startRow, startCol, endRow, endCol */
+    private static int shipBytes(boolean wide) {
+        return 4 * width(wide);
+    }
+
+    /**
+     * Returns the number of field bytes a fire result takes.
+     */
+    private static int fireBytes(FireResponse fire, boolean wide) {
+        return fire.isSunk() ? resultBytes(wide) + shipBytes(wide) : resultBytes(wide);
+    }
+
+    /**
+     * Writes a coordinate or count in one or two bytes.
+     * @return the index after it
+     */
+    private static int putCoord(byte[] f, int at, int value, boolean wide) throws IOException {
+        if (!wide) {
+            f[at] = u8(value);
+            return at + 1;
+        }
+        if (value < 0 || value > 0xFFFF) {
+            throw new IOException("Value out of range for binary codec: " + value);
+        }
+        f[at]     = (byte) (value >>> 8);
+        f[at + 1] = (byte) value;
+        return at + 2;
+    }
+
+    private static int readCoord(byte[] buf, int p, boolean wide) {
+        return wide ? u8(buf, p) << 8 | u8(buf, p + 1) : u8(buf, p);
+    }
+
+    /**
+     * Writes row and col starting at {@code at}.
+     * @return the index after them
+     */
+    private static int putPosition(byte[] f, int at, Position pos, boolean wide) throws IOException {
+        return putCoord(f, putCoord(f, at, pos.getRow(), wide), pos.getCol(), wide);
+    }
+
+    private static Position readPosition(byte[] buf, int p, boolean wide) {
+        return Position.of(readCoord(buf, p, wide), readCoord(buf, p + width(wide), wide));
+    }
+
+    /**
+     * Writes the row, col and result of a fire result starting at {@code at}.
+     */
+    private static void putFire(byte[] f, int at, FireResponse fire, boolean wide) throws IOException {
+        at = putPosition(f, at, fire.getPosition(), wide);
+        f[at] = (byte) fire.getResult().ordinal();
+    }
+
+    /**
+     * Writes a ship as startRow, startCol, endRow, endCol starting at {@code at}.
+     */
+    private static void putShip(byte[] f, int at, Ship s, boolean wide) throws IOException {
+        putPosition(f, putPosition(f, at, s.getStart(), wide), s.getEnd(), wide);
+    }
+
+    /**
+     * Reads a ship written by {@link #putShip}.
+     */
+    private static Ship readShip(byte[] buf, int p, boolean wide) {
+        return new Ship(readPosition(buf, p, wide), readPosition(buf, p + 2 * width(wide), wide));
+    }
+
+    /**
+     * Writes a ship count followed by the ships starting at {@code at}.
+     * @return the index after the last ship
+     */
+    private static int putFleet(byte[] f, int at, List<Ship> fleet, boolean wide) throws IOException {
+        at = putCoord(f, at, fleet.size(), wide);
+        for (Ship s : fleet) {
+            putShip(f, at, s, wide);
+            at += shipBytes(wide);
+        }
+        return at;
+    }
+
+    /**
+     * Reads a fleet written by {@link #putFleet}; {@code end} bounds the payload.
+     */
+    private static List<Ship> readFleet(byte[] buf, int p, int end, boolean wide) throws IOException {
+        int w = width(wide), sb = shipBytes(wide);
+        if (p + w > end) throw new IOException("Truncated fleet");
+        int n = readCoord(buf, p, wide);
+        if (p + w + n * sb > end) throw new IOException("Truncated fleet");
+        List<Ship> fleet = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            fleet.add(readShip(buf, p + w + i * sb, wide));
+        }
+        return fleet;
+    }
+
+    /**
+     * Writes gridSize, shipCount and the ship lengths, two bytes each, starting at {@code at}.
+     */
+    private static void putRules(byte[] f, int at, Ruleset rules) throws IOException {
+        at = putCoord(f, at, rules.getGridSize(), true);
+        at = putCoord(f, at, rules.numShips(), true);
+        for (int i = 0; i < rules.numShips(); i++) {
+            at = putCoord(f, at, rules.getShipSize(i), true);
+        }
+    }
+
+    /**
+     * Reads the rules written by {@link #putRules}; they must end the payload of length {@code len}.
+     */
+    private static Ruleset readRules(byte[] buf, int p, int len) throws IOException {
+        if (len < 1 + 9 + 4) throw new IOException("Truncated rules");
+        int n = readCoord(buf, p + 2, true);
+        expect(len, 9 + 4 + 2 * n);
+        int[] sizes = new int[n];
+        for (int i = 0; i < n; i++) {
+            sizes[i] = readCoord(buf, p + 4 + 2 * i, true);
+        }
+        try {
+            return new Ruleset(readCoord(buf, p, true), sizes);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid rules: " + e.getMessage(), e);
+        }
+    }
+
+    private static void putLong(byte[] f, int at, long v) {
+        for (int i = 7; i >= 0; i--, v >>>= 8) {
+            f[at + i] = (byte) v;
+        }
+    }
+
+    private static void putInt(byte[] f, int at, int v) {
+        for (int i = 3; i >= 0; i--, v >>>= 8) {
+            f[at + i] = (byte) v;
+        }
+    }
+
+    private static int getInt(byte[] buf, int p) {
+        return (buf[p] & 0xFF) << 24 | (buf[p + 1] & 0xFF) << 16 | (buf[p + 2] & 0xFF) << 8 | (buf[p + 3] & 0xFF);
+    }
+
+    private static long getLong(byte[] buf, int p) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (buf[p + i] & 0xFF);
+        }
+        return v;
+    }
+
+    /**
+     * Allocates a frame for a message with the given number of field bytes and writes its tag.
+     */
+    private static byte[] frame(byte tag, int fieldBytes) {
+        byte[] f = Frames.allocate(1 + fieldBytes);
+        f[TAG] = tag;
+        return f;
+    }
+
+    /**
+     * Allocates a frame like {@link #frame(byte, int)}, flagging the tag {@link #WIDE} if asked to.
+     */
+    private static byte[] frame(byte tag, boolean wide, int fieldBytes) {
+        return frame(wide ? (byte) (tag | WIDE) : tag, fieldBytes);
+    }
+
+    private static byte u8(int value) throws IOException {
+        if (value < 0 || value > 0xFF) {
+            throw new IOException("Value out of range for binary codec: " + value);
+        }
+        return (byte) value;
+    }
+
+    private static int u8(byte[] buf, int index) {
+        return buf[index] & 0xFF;
+    }
+
+    private static byte bool(boolean value) {
+        return (byte) (value ? 1 : 0);
+    }
+
+    private static Cell cell(byte ordinal) throws IOException {
+        if (ordinal < 0 || ordinal >= CELLS.length) {
+            throw new IOException("Invalid cell value: " + ordinal);
+        }
+        return CELLS[ordinal];
+    }
+
+    private static void expect(int len, int fieldBytes) throws IOException {
+        if (len != 1 + fieldBytes) {
+            throw new IOException("Bad payload length " + len + " for " + fieldBytes + " field bytes");
+        }
+    }
+}
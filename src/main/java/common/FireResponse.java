@@ -2,27 +2,42 @@
 package common;
 
 import model.Position;
+import model.Ship;
 import model.Board.Cell;
 import java.io.Serializable;
 
 /**
  * FireResponse is sent from the server to the client
  * after a fire request, indicating the result of the shot.
+ * If the shot sank a ship, the response also carries that ship,
+ * so clients do not have to work out sunk ships themselves.
  */
 public class FireResponse implements Serializable {
     private static final long serialVersionUID = 1L; // For Java serialization consistency
 
     private final Position position;  // Position that was targeted
-    private final Cell result;        // Result of the shot (e.g., HIT, MISS, SUNK)
+    private final Cell result;        // Result of the shot (HIT or MISS)
+    private final Ship sunkShip;      // Ship sunk by this shot (protocol v3), otherwise null
 
     /**
      * Constructs a response with the position fired at and the outcome.
      * @param position The position the player fired at
-     * @param result The result of the fire (HIT, MISS, or SUNK)
+     * @param result The result of the fire (HIT or MISS)
      */
     public FireResponse(Position position, Cell result) {
+        this(position, result, null);
+    }
+
+    /**
+     * Constructs a response for a shot that may have sunk a ship.
+     * @param position The position the player fired at
+     * @param result   The result of the fire (HIT or MISS)
+     * @param sunkShip The ship this shot sank, or null
+     */
+    public FireResponse(Position position, Cell result, Ship sunkShip) {
         this.position = position;
         this.result   = result;
+        this.sunkShip = sunkShip;
     }
 
     /**
@@ -40,4 +55,19 @@ public class FireResponse implements Serializable {
     public Cell getResult() {
         return result;
     }
+
+    /**
+     * Gets the ship this shot sank; all of its cells are now HIT.
+     * @return the sunk ship, or null if the shot sank nothing
+     */
+    public Ship getSunkShip() {
+        return sunkShip;
+    }
+
+    /**
+     * Returns whether this shot sank a ship.
+     */
+    public boolean isSunk() {
+        return sunkShip != null;
+    }
 }
@@ -0,0 +1,36 @@
+// src/common/FleetRevealMessage.java
+package common;
+
+import model.Ship;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * FleetRevealMessage is sent to spectators when a game ends (protocol version 5 and later).
+ * Spectators never see ship positions while the game runs; this message shows both fleets.
+ */
+public class FleetRevealMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Ship> fleet0; // Ships of player 0
+    private final List<Ship> fleet1; // Ships of player 1
+
+    /**
+     * Constructs the reveal of both fleets.
+     * @param fleet0 the ships of player 0
+     * @param fleet1 the ships of player 1
+     */
+    public FleetRevealMessage(List<Ship> fleet0, List<Ship> fleet1) {
+        this.fleet0 = List.copyOf(fleet0);
+        this.fleet1 = List.copyOf(fleet1);
+    }
+
+    /**
+     * Returns the ships of the given player.
+     * @param player the player (0 or 1)
+     */
+    public List<Ship> getFleet(int player) {
+        return player == 0 ? fleet0 : fleet1;
+    }
+}
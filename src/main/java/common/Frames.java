@@ -0,0 +1,80 @@
+package common;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Frames implements the length-prefixed framing used on the wire.
+ * Every message is sent as a 4-byte big-endian payload length followed by the payload,
+ * so both blocking streams and non-blocking channels can find message boundaries
+ * without having to understand the payload itself. What goes inside the payload
+ * is decided by the {@link MessageCodec} negotiated in the {@link Handshake}.
+ */
+public final class Frames {
+
+    /** Size of the length prefix in bytes */
+    public static final int HEADER_SIZE = 4;
+
+    /** Largest payload accepted from a peer; anything bigger is treated as a protocol error */
+    public static final int MAX_PAYLOAD = 64 * 1024;
+
+    private Frames() {}
+
+    /**
+     * Encodes a message with the given codec, writes it as one frame and flushes the stream.
+     */
+    public static void write(DataOutputStream out, MessageCodec codec, Object msg) throws IOException {
+        out.write(codec.encode(msg));
+        out.flush();
+    }
+
+    /**
+     * Blocks until a complete frame has been read and returns the decoded message.
+     */
+    public static Object read(DataInputStream in, MessageCodec codec) throws IOException {
+        byte[] payload = readPayload(in);
+        return codec.decode(payload, 0, payload.length);
+    }
+
+    /**
+     * Blocks until a complete frame has been read and returns its raw payload.
+     */
+    public static byte[] readPayload(DataInputStream in) throws IOException {
+        int len = in.readInt();
+        checkLength(len);
+        byte[] payload = new byte[len];
+        in.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * Validates a length prefix received from a peer.
+     * @throws IOException if the length is negative or exceeds {@link #MAX_PAYLOAD}
+     */
+    public static void checkLength(int len) throws IOException {
+        if (len < 0 || len > MAX_PAYLOAD) {
+            throw new IOException("Invalid frame length: " + len);
+        }
+    }
+
+    /**
+     * Allocates a frame with room for {@code payloadLength} bytes and fills in its length prefix.
+     * @return the frame; the payload starts at {@link #HEADER_SIZE}
+     */
+    public static byte[] allocate(int payloadLength) {
+        byte[] frame = new byte[HEADER_SIZE + payloadLength];
+        putLength(frame, payloadLength);
+        return frame;
+    }
+
+    /**
+     * Writes the big-endian length prefix at the start of a frame.
+     */
+    public static void putLength(byte[] frame, int payloadLength) {
+        frame[0] = (byte) (payloadLength >>> 24);
+        frame[1] = (byte) (payloadLength >>> 16);
+        frame[2] = (byte) (payloadLength >>> 8);
+        frame[3] = (byte) payloadLength;
+    }
+}
@@ -0,0 +1,290 @@
+package common;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Handshake negotiates the protocol version and message codec of a connection.
+ *
+ * Right after connecting, the client sends a HELLO frame with the highest version it
+ * speaks and the codec it prefers. The server answers with a frame of the same layout
+ * carrying the agreed version and codec; every later frame uses that codec.
+ * From version 4 on the client echoes that answer back, so the server can time the
+ * round trip. All handshake frames are raw (codec independent): magic "BS", version, codec id.
+ * From version 5 on a spectator appends the 8-byte id of the session it wants to watch
+ * (0 for the featured one) to its hello; players keep sending the 4-byte form.
+ * From version 6 on a player that lost its connection sends a 13-byte hello instead:
+ * the 4-byte form, the kind byte {@link #RESUME} and the resume token it got with its
+ * MatchFoundMessage. If the token still names a seat, the first message it receives is a
+ * ResumeMessage; otherwise the server closes the connection without sending anything.
+ */
+public final class Handshake {
+
+    /** Magic number at the start of both handshake frames ("BS") */
+    public static final int MAGIC = 0x4253;
+
+    /**
+     * Highest protocol version this build speaks.
+     * v1: one frame per message. v2: adds TurnOutcomeMessage, one frame per player per shot.
+     * v3: fire results name the ship a shot sank.
+     * v4: the client echoes the server's answer (three-way handshake, measures round-trip time).
+     * v5: read-only spectators (extended hello, SpectateResponse, FleetRevealMessage).
+     * v6: resume tokens (MatchFoundMessage token, resume hello, ResumeMessage).
+     * v7: heartbeats (PingMessage, PongMessage) and OpponentStatusMessage.
+     * v8: per-session rulesets (MatchFoundMessage carries grid and fleet, coordinates may be two bytes).
+     */
+    public static final int VERSION = 8;
+
+    /** First version in which the client echoes the server's answer */
+    public static final int ECHO_VERSION = 4;
+
+    /** First version that supports spectators */
+    public static final int SPECTATE_VERSION = 5;
+
+    /** First version that supports resuming a session after a lost connection */
+    public static final int RESUME_VERSION = 6;
+
+    /** First version whose clients answer pings and may be reaped when they stop */
+    public static final int HEARTBEAT_VERSION = 7;
+
+    /** First version that can play (and watch) games with rules other than the standard ones */
+    public static final int RULES_VERSION = 8;
+
+    /** Kind byte of a 13-byte hello that watches a session */
+    public static final byte SPECTATE = 1;
+
+    /** Kind byte of a 13-byte hello that takes a seat back with a resume token */
+    public static final byte RESUME = 2;
+
+    /** Session id a spectator asks for to watch the server's featured session */
+    public static final long FEATURED = 0;
+
+    /** Lowest protocol version this build still accepts */
+    public static final int MIN_VERSION = 1;
+
+    /** System property clients use to pick a codec ("binary" or "java") */
+    public static final String CODEC_PROPERTY = "battleship.codec";
+
+    private static final int LENGTH          = 4;          // payload length of a player's hello and of the answer
+    private static final int SPECTATE_LENGTH = LENGTH + 8; // payload length of a spectator's hello
+    private static final int KIND_LENGTH     = LENGTH + 9; // payload length of a hello with a kind byte
+
+    private Handshake() {}
+
+    /**
+     * Version and codec carried by a handshake frame.
+     */
+    public static final class Hello {
+        private final int version;
+        private final byte codec;
+        private final long spectate; // session a spectator wants to watch, -1 for players
+        private final long resume;   // token of a reconnecting player, 0 if none
+
+        public Hello(int version, byte codec) {
+            this(version, codec, -1);
+        }
+
+        /**
+         * Creates a spectator's hello for the given session ({@link #FEATURED} for any).
+         */
+        public Hello(int version, byte codec, long spectate) {
+            this(version, codec, spectate, 0);
+        }
+
+        private Hello(int version, byte codec, long spectate, long resume) {
+            this.version  = version;
+            this.codec    = codec;
+            this.spectate = spectate;
+            this.resume   = resume;
+        }
+
+        /**
+         * Creates the hello of a player that reconnects with the given (non-zero) resume token.
+         */
+        public static Hello resume(int version, byte codec, long token) {
+            if (token == 0) throw new IllegalArgumentException("No resume token");
+            return new Hello(version, codec, -1, token);
+        }
+
+        /** Returns the protocol version (maximum for a request, agreed for an answer) */
+        public int getVersion() {
+            return version;
+        }
+
+        /** Returns the codec id (preferred for a request, agreed for an answer) */
+        public byte getCodec() {
+            return codec;
+        }
+
+        /** Returns whether this hello comes from a spectator */
+        public boolean isSpectator() {
+            return spectate >= 0;
+        }
+
+        /** Returns the session a spectator wants to watch ({@link #FEATURED} for any), -1 for players */
+        public long getSpectate() {
+            return spectate;
+        }
+
+        /** Returns whether this hello comes from a player resuming a session */
+        public boolean isResume() {
+            return resume != 0;
+        }
+
+        /** Returns the resume token of a reconnecting player, 0 otherwise */
+        public long getResume() {
+            return resume;
+        }
+
+        /**
+         * Encodes this hello as a complete frame.
+         */
+        public byte[] toFrame() {
+            int length = isResume() ? KIND_LENGTH : isSpectator() ? SPECTATE_LENGTH : LENGTH;
+            byte[] f = Frames.allocate(length);
+            f[Frames.HEADER_SIZE]     = (byte) (MAGIC >>> 8);
+            f[Frames.HEADER_SIZE + 1] = (byte) MAGIC;
+            f[Frames.HEADER_SIZE + 2] = (byte) version;
+            f[Frames.HEADER_SIZE + 3] = codec;
+            if (isResume()) f[Frames.HEADER_SIZE + LENGTH] = RESUME;
+            if (length > LENGTH) {
+                long id = isResume() ? resume : spectate;
+                for (int i = length - 1; i >= length - 8; i--, id >>>= 8) {
+                    f[Frames.HEADER_SIZE + i] = (byte) id;
+                }
+            }
+            return f;
+        }
+
+        @Override
+        public String toString() {
+            return "v" + version + "/codec=" + codec + (isSpectator() ? "/spectate=" + spectate : "")
+                    + (isResume() ? "/resume" : "");
+        }
+    }
+
+    /**
+     * Parses a handshake frame payload.
+     * @throws IOException if the payload is not a handshake frame
+     */
+    public static Hello parse(byte[] buf, int off, int len) throws IOException {
+        if ((len != LENGTH && len != SPECTATE_LENGTH && len != KIND_LENGTH)
+                || (((buf[off] & 0xFF) << 8) | (buf[off + 1] & 0xFF)) != MAGIC) {
+            throw new IOException("Not a Battleship handshake");
+        }
+        int version = buf[off + 2] & 0xFF;
+        if (len == LENGTH) {
+            return new Hello(version, buf[off + 3]);
+        }
+        byte kind = len == KIND_LENGTH ? buf[off + LENGTH] : SPECTATE;
+        long id = 0;
+        for (int i = len - 8; i < len; i++) {
+            id = (id << 8) | (buf[off + i] & 0xFF);
+        }
+        if (kind == RESUME) {
+            if (id == 0) throw new IOException("Missing token in resume hello");
+            return Hello.resume(version, buf[off + 3], id);
+        }
+        if (kind != SPECTATE || id < 0) {
+            throw new IOException("Bad session id in spectator hello");
+        }
+        return new Hello(version, buf[off + 3], id);
+    }
+
+    /**
+     * Server side: picks the version and codec to use for a client's hello.
+     * @param request the client's hello
+     * @param allowed codec ids the server accepts, most preferred first
+     * @return the agreed version and codec
+     * @throws IOException if the client only speaks versions this server no longer supports,
+     *                     or asks to spectate below {@link #SPECTATE_VERSION}
+     *                     or to resume below {@link #RESUME_VERSION}
+     */
+    public static Hello negotiate(Hello request, byte[] allowed) throws IOException {
+        int version = Math.min(request.getVersion(), VERSION);
+        if (version < MIN_VERSION) {
+            throw new IOException("Unsupported protocol version " + request.getVersion());
+        }
+        if (request.isSpectator() && version < SPECTATE_VERSION) {
+            throw new IOException("Spectating needs protocol version " + SPECTATE_VERSION);
+        }
+        if (request.isResume() && version < RESUME_VERSION) {
+            throw new IOException("Resuming needs protocol version " + RESUME_VERSION);
+        }
+        for (byte codec : allowed) {
+            if (codec == request.getCodec()) {
+                return new Hello(version, codec);
+            }
+        }
+        return new Hello(version, allowed[0]);
+    }
+
+    /**
+     * Client side: sends a hello and waits for the server's answer.
+     * @param preferredCodec the codec the client would like to use
+     * @return the agreed version and codec
+     */
+    public static Hello connect(DataInputStream in, DataOutputStream out, byte preferredCodec) throws IOException {
+        return connect(in, out, VERSION, preferredCodec);
+    }
+
+    /**
+     * Client side: like {@link #connect(DataInputStream, DataOutputStream, byte)} but offers
+     * at most {@code maxVersion}, e.g. to compare protocol versions in a benchmark.
+     */
+    public static Hello connect(DataInputStream in, DataOutputStream out, int maxVersion, byte preferredCodec)
+            throws IOException {
+        return exchange(in, out, new Hello(maxVersion, preferredCodec));
+    }
+
+    /**
+     * Client side: connects as a read-only spectator of the given session.
+     * @param session the session id, or {@link #FEATURED} for the server's featured session
+     * @return the agreed version and codec
+     */
+    public static Hello spectate(DataInputStream in, DataOutputStream out, byte preferredCodec, long session)
+            throws IOException {
+        return exchange(in, out, new Hello(VERSION, preferredCodec, session));
+    }
+
+    /**
+     * Client side: reconnects a player that lost its connection to its seat.
+     * @param token the resume token from the player's MatchFoundMessage
+     * @return the agreed version and codec
+     */
+    public static Hello resume(DataInputStream in, DataOutputStream out, byte preferredCodec, long token)
+            throws IOException {
+        return exchange(in, out, Hello.resume(VERSION, preferredCodec, token));
+    }
+
+    private static Hello exchange(DataInputStream in, DataOutputStream out, Hello hello) throws IOException {
+        out.write(hello.toFrame());
+        out.flush();
+        byte[] answer = Frames.readPayload(in);
+        Hello agreed = parse(answer, 0, answer.length);
+        if (agreed.getVersion() >= ECHO_VERSION) {
+            out.write(agreed.toFrame());
+            out.flush();
+        }
+        return agreed;
+    }
+
+    /**
+     * Server side: checks that a frame is the client's echo of the agreed hello.
+     * @throws IOException if it is not
+     */
+    public static void checkEcho(Hello agreed, byte[] buf, int off, int len) throws IOException {
+        Hello echo = parse(buf, off, len);
+        if (echo.getVersion() != agreed.getVersion() || echo.getCodec() != agreed.getCodec()) {
+            throw new IOException("Handshake echo " + echo + " does not match " + agreed);
+        }
+    }
+
+    /**
+     * Returns the codec a client should ask for, from {@link #CODEC_PROPERTY} (default binary).
+     */
+    public static byte preferredCodec() {
+        return MessageCodec.idForName(System.getProperty(CODEC_PROPERTY, "binary"));
+    }
+}
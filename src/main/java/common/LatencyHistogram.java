@@ -0,0 +1,90 @@
+package common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram counts latencies in log-linear buckets: values below 32 get a bucket each,
+ * every power of two above that is split into 32 equal buckets. Percentiles are therefore
+ * accurate to about 3%, whatever the range, in a fixed ~15 KB table.
+ * Recording is lock-free and allocation-free, so any number of threads may share one histogram.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;                  // log2 of the buckets per power of two
+    private static final int SUB      = 1 << SUB_BITS;
+    private static final int BUCKETS  = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records one value (e.g. nanoseconds); negative values count as 0.
+     */
+    public void record(long value) {
+        counts.incrementAndGet(bucket(Math.max(0, value)));
+    }
+
+    /**
+     * Returns the number of recorded values.
+     */
+    public long count() {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            n += counts.get(i);
+        }
+        return n;
+    }
+
+    /**
+     * Returns an estimate of the given percentile, e.g. 0.99 for p99, or 0 if nothing was recorded.
+     * The estimate is the midpoint of the bucket holding that rank.
+     */
+    public long percentile(double q) {
+        long total = count();
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBound(i) + (width(i) - 1) / 2;
+            }
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+
+    /**
+     * Adds all counts of {@code other} to this histogram.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = other.counts.get(i);
+            if (c != 0) counts.addAndGet(i, c);
+        }
+    }
+
+    /**
+     * Clears all counts.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int e = 63 - Long.numberOfLeadingZeros(v);              // highest set bit, >= SUB_BITS
+        int sub = (int) (v >>> (e - SUB_BITS)) & (SUB - 1);
+        return ((e - SUB_BITS + 1) << SUB_BITS) | sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB) return bucket;
+        int e = (bucket >>> SUB_BITS) + SUB_BITS - 1;
+        return (long) (SUB + (bucket & (SUB - 1))) << (e - SUB_BITS);
+    }
+
+    private static long width(int bucket) {
+        return bucket < SUB ? 1 : 1L << ((bucket >>> SUB_BITS) - 1);
+    }
+}
@@ -1,10 +1,15 @@
 package common;
 
+import model.Ruleset;
+
 import java.io.Serializable;
 
 /**
  * MatchFoundMessage is sent from the server to the client
  * to indicate that a match has been found and the game is about to start.
+ * From protocol version 6 on it may carry a resume token: a client that loses its connection
+ * can reconnect with it and take its seat back (see {@link Handshake#resume}).
+ * From version 8 on it names the rules of the game when they are not the standard ones.
  */
 public class MatchFoundMessage implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -12,12 +17,40 @@ public class MatchFoundMessage implements Serializable {
     /** The player ID assigned to this client (0 or 1) */
     private final int playerId;
 
+    /** Secret that lets this player reconnect to the session, 0 if resuming is not offered */
+    private final long resumeToken;
+
+    /** Grid size and fleet of the game; null (read as standard) in messages of older builds */
+    private final Ruleset rules;
+
     /**
      * Constructs a new MatchFoundMessage with the given player ID.
      * @param playerId the player number (0 or 1) assigned by the server
      */
     public MatchFoundMessage(int playerId) {
-        this.playerId = playerId;
+        this(playerId, 0);
+    }
+
+    /**
+     * Constructs a new MatchFoundMessage that offers a resume token (protocol version 6 and later).
+     * @param playerId    the player number (0 or 1) assigned by the server
+     * @param resumeToken the token to reconnect with, or 0 if resuming is not offered
+     */
+    public MatchFoundMessage(int playerId, long resumeToken) {
+        this(playerId, resumeToken, Ruleset.STANDARD);
+    }
+
+    /**
+     * Constructs a new MatchFoundMessage for a game with the given rules (protocol version 8
+     * and later when they are not the standard ones).
+     * @param playerId    the player number (0 or 1) assigned by the server
+     * @param resumeToken the token to reconnect with, or 0 if resuming is not offered
+     * @param rules       grid size and fleet of the game
+     */
+    public MatchFoundMessage(int playerId, long resumeToken, Ruleset rules) {
+        this.playerId    = playerId;
+        this.resumeToken = resumeToken;
+        this.rules       = rules;
     }
 
     /**
@@ -28,6 +61,20 @@ public class MatchFoundMessage implements Serializable {
         return playerId;
     }
 
+    /**
+     * Returns the token this client can resume the session with, or 0 if there is none.
+     */
+    public long getResumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Returns the grid size and fleet of the game.
+     */
+    public Ruleset getRules() {
+        return rules != null ? rules : Ruleset.STANDARD;
+    }
+
     /**
      * Returns a string representation of this message.
      * @return a string including the player ID
@@ -0,0 +1,63 @@
+package common;
+
+import java.io.IOException;
+
+/**
+ * MessageCodec turns message objects into frame payloads and back.
+ * The codec used on a connection is agreed on in the {@link Handshake}.
+ */
+public interface MessageCodec {
+
+    /** Wire id of the legacy Java serialization codec */
+    byte JAVA = 0;
+
+    /** Wire id of the compact binary codec */
+    byte BINARY = 1;
+
+    /**
+     * Returns the id announced for this codec during the handshake.
+     */
+    byte id();
+
+    /**
+     * Encodes a message into a complete frame, length prefix included.
+     * @param msg the message to encode
+     * @return frame bytes ready to be written to a socket
+     * @throws IOException if the message cannot be represented by this codec
+     */
+    byte[] encode(Object msg) throws IOException;
+
+    /**
+     * Decodes one frame payload into a message.
+     * @param buf buffer holding the payload
+     * @param off offset of the first payload byte
+     * @param len payload length in bytes
+     * @return the decoded message
+     * @throws IOException if the payload is malformed
+     */
+    Object decode(byte[] buf, int off, int len) throws IOException;
+
+    /**
+     * Returns the codec with the given wire id.
+     * @throws IOException if the id is unknown
+     */
+    static MessageCodec forId(byte id) throws IOException {
+        switch (id) {
+            case JAVA:   return SerializedCodec.INSTANCE;
+            case BINARY: return BinaryCodec.INSTANCE;
+            default: throw new IOException("Unknown codec id: " + id);
+        }
+    }
+
+    /**
+     * Returns the wire id for a codec name as used in flags ("java" or "binary").
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    static byte idForName(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "java":   return JAVA;
+            case "binary": return BINARY;
+            default: throw new IllegalArgumentException("Unknown codec: " + name);
+        }
+    }
+}
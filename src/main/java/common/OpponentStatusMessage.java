@@ -0,0 +1,35 @@
+// src/common/OpponentStatusMessage.java
+package common;
+
+import java.io.Serializable;
+
+/**
+ * OpponentStatusMessage tells a player that its opponent lost its connection or came back
+ * (protocol version 7 and later). While the opponent is away the server keeps its seat
+ * for the resume grace period; if it does not return, the session ends.
+ */
+public class OpponentStatusMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean connected; // true: the opponent is back, false: it went away
+
+    /**
+     * Constructs a status update.
+     * @param connected true if the opponent is connected again, false if it went away
+     */
+    public OpponentStatusMessage(boolean connected) {
+        this.connected = connected;
+    }
+
+    /**
+     * Returns true if the opponent is connected again, false if it went away.
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public String toString() {
+        return "OpponentStatusMessage{connected=" + connected + '}';
+    }
+}
@@ -0,0 +1,46 @@
+// src/common/PingMessage.java
+package common;
+
+import java.io.Serializable;
+
+/**
+ * PingMessage is the server's heartbeat (protocol version 7 and later).
+ * The client answers every ping with a {@link PongMessage} carrying the same stamp.
+ * A peer that stays silent for longer than the server's idle timeout is treated as dead;
+ * clients can use the interval the same way to notice a server that went away.
+ */
+public class PingMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long stamp;          // Opaque value the pong must echo
+    private final int intervalMillis;  // Time until the next ping, in milliseconds
+
+    /**
+     * Constructs a ping.
+     * @param stamp          the value the client echoes in its pong
+     * @param intervalMillis the time until the next ping, in milliseconds
+     */
+    public PingMessage(long stamp, int intervalMillis) {
+        this.stamp          = stamp;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Returns the value the pong must echo.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Returns the time until the next ping, in milliseconds.
+     */
+    public int getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "PingMessage{stamp=" + stamp + ", intervalMillis=" + intervalMillis + '}';
+    }
+}
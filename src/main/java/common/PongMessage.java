@@ -0,0 +1,33 @@
+// src/common/PongMessage.java
+package common;
+
+import java.io.Serializable;
+
+/**
+ * PongMessage is a client's answer to a {@link PingMessage} (protocol version 7 and later).
+ */
+public class PongMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long stamp; // The stamp of the ping being answered
+
+    /**
+     * Constructs the answer to a ping.
+     * @param stamp the stamp of that ping
+     */
+    public PongMessage(long stamp) {
+        this.stamp = stamp;
+    }
+
+    /**
+     * Returns the stamp of the ping being answered.
+     */
+    public long getStamp() {
+        return stamp;
+    }
+
+    @Override
+    public String toString() {
+        return "PongMessage{stamp=" + stamp + '}';
+    }
+}
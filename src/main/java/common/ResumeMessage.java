@@ -0,0 +1,143 @@
+// src/common/ResumeMessage.java
+package common;
+
+import model.Board;
+import model.Board.Cell;
+import model.GameRules;
+import model.GameState;
+import model.Position;
+
+import java.io.Serializable;
+
+/**
+ * ResumeMessage is the first message a reconnecting player receives (protocol version 6 and later).
+ * It is a snapshot of the game the player rejoined: the phase, whose turn it is and both grids,
+ * so the client can catch up on everything it missed while it was away.
+ *
+ * Both grids are packed at two bits per cell (a {@link Cell} ordinal), row by row.
+ * The target grid only shows shots: ships the player has not hit yet read as EMPTY.
+ */
+public class ResumeMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Bytes one packed grid takes */
+    public static final int GRID_BYTES = (GameRules.GRID_SIZE * GameRules.GRID_SIZE + 3) / 4;
+
+    private static final Cell[] CELLS = Cell.values();
+
+    private final int playerId;     // The seat this client took back
+    private final boolean battle;   // true once both players were ready
+    private final boolean ready;    // true if this player already sent ReadyRequest
+    private final boolean yourTurn; // true if this player is on turn (battle phase only)
+    private final byte[] own;       // this player's grid, ships included
+    private final byte[] target;    // the opponent's grid, shots only
+
+    /**
+     * Constructs a snapshot from packed grids.
+     * @param own    this player's grid, {@link #GRID_BYTES} bytes
+     * @param target the opponent's grid, {@link #GRID_BYTES} bytes
+     */
+    public ResumeMessage(int playerId, boolean battle, boolean ready, boolean yourTurn, byte[] own, byte[] target) {
+        if (own.length != GRID_BYTES || target.length != GRID_BYTES) {
+            throw new IllegalArgumentException("Packed grids must be " + GRID_BYTES + " bytes");
+        }
+        this.playerId = playerId;
+        this.battle   = battle;
+        this.ready    = ready;
+        this.yourTurn = yourTurn;
+        this.own      = own.clone();
+        this.target   = target.clone();
+    }
+
+    /**
+     * Takes a snapshot of a running game as seen by the given player.
+     * @param state  the game
+     * @param player the player who reconnects (0 or 1)
+     * @param ready  whether that player already sent ReadyRequest
+     * @param battle whether the battle phase has started
+     */
+    public static ResumeMessage of(GameState state, int player, boolean ready, boolean battle) {
+        return new ResumeMessage(player, battle, ready, battle && state.getCurrentPlayer() == player,
+                pack(state.getBoard(player), false), pack(state.getBoard(1 - player), true));
+    }
+
+    /**
+     * Packs a board two bits per cell.
+     * @param hideShips whether unhit ship cells are written as EMPTY
+     */
+    private static byte[] pack(Board board, boolean hideShips) {
+        byte[] packed = new byte[GRID_BYTES];
+        int i = 0;
+        for (int r = 0; r < GameRules.GRID_SIZE; r++) {
+            for (int c = 0; c < GameRules.GRID_SIZE; c++, i++) {
+                Cell cell = board.getCell(Position.of(r, c));
+                if (hideShips && cell == Cell.SHIP) cell = Cell.EMPTY;
+                packed[i >>> 2] |= (byte) (cell.ordinal() << ((i & 3) * 2));
+            }
+        }
+        return packed;
+    }
+
+    private static Cell unpack(byte[] packed, Position p) {
+        int i = p.getRow() * GameRules.GRID_SIZE + p.getCol();
+        return CELLS[(packed[i >>> 2] >>> ((i & 3) * 2)) & 3];
+    }
+
+    /**
+     * Returns the player ID of the seat this client took back.
+     */
+    public int getPlayerId() {
+        return playerId;
+    }
+
+    /**
+     * Returns whether the battle phase has started; false while ships are still being placed.
+     */
+    public boolean isBattle() {
+        return battle;
+    }
+
+    /**
+     * Returns whether this player already confirmed its placement.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns whether this player is on turn (always false before the battle).
+     */
+    public boolean isYourTurn() {
+        return yourTurn;
+    }
+
+    /**
+     * Returns a cell of this player's own grid.
+     */
+    public Cell getOwnCell(Position p) {
+        return unpack(own, p);
+    }
+
+    /**
+     * Returns a cell of the opponent's grid as this player knows it: EMPTY, HIT or MISS.
+     */
+    public Cell getTargetCell(Position p) {
+        return unpack(target, p);
+    }
+
+    /** Returns the packed own grid (for codecs); do not modify */
+    byte[] packedOwn() {
+        return own;
+    }
+
+    /** Returns the packed target grid (for codecs); do not modify */
+    byte[] packedTarget() {
+        return target;
+    }
+
+    @Override
+    public String toString() {
+        return "ResumeMessage{playerId=" + playerId + ", battle=" + battle + ", ready=" + ready
+                + ", yourTurn=" + yourTurn + '}';
+    }
+}
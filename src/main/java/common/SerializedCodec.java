@@ -0,0 +1,46 @@
+package common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * SerializedCodec is the original wire format: every message is written with
+ * Java serialization. It is kept for clients that have not moved to
+ * {@link BinaryCodec} yet and can be forced with {@code -Dbattleship.codec=java}.
+ */
+public final class SerializedCodec implements MessageCodec {
+
+    /** Shared stateless instance */
+    public static final SerializedCodec INSTANCE = new SerializedCodec();
+
+    private SerializedCodec() {}
+
+    @Override
+    public byte id() {
+        return JAVA;
+    }
+
+    @Override
+    public byte[] encode(Object msg) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        bytes.write(new byte[Frames.HEADER_SIZE]); // placeholder for the length prefix
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(msg);
+        }
+        byte[] frame = bytes.toByteArray();
+        Frames.putLength(frame, frame.length - Frames.HEADER_SIZE);
+        return frame;
+    }
+
+    @Override
+    public Object decode(byte[] buf, int off, int len) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(buf, off, len))) {
+            return ois.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown message class: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+// src/common/SpectateResponse.java
+package common;
+
+import java.io.Serializable;
+
+/**
+ * SpectateResponse is the first message a spectator receives (protocol version 5 and later).
+ * It names the session the spectator is now watching, or reports that no such session runs,
+ * in which case the server closes the connection right after it.
+ */
+public class SpectateResponse implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long sessionId; // Session being watched, 0 if none was found
+
+    /**
+     * Constructs a response for the given session.
+     * @param sessionId the id of the watched session, or 0 if no session was found
+     */
+    public SpectateResponse(long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * Returns the id of the watched session, or 0 if no session was found.
+     */
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * Returns whether the spectator was attached to a session.
+     */
+    public boolean isFound() {
+        return sessionId != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SpectateResponse{sessionId=" + sessionId + '}';
+    }
+}
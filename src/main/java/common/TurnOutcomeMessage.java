@@ -0,0 +1,70 @@
+// src/common/TurnOutcomeMessage.java
+package common;
+
+import java.io.Serializable;
+
+/**
+ * TurnOutcomeMessage is sent from the server to each client after every shot
+ * (protocol version 2 and later). It carries everything the separate
+ * FireResponse + TurnMessage / GameOverMessage sequence used to carry,
+ * so one shot costs a single write per player.
+ */
+public class TurnOutcomeMessage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final FireResponse fire;         // Result of the shot, same for both players
+    private final TurnMessage turn;          // Whose turn is next; null if the game ended
+    private final GameOverMessage gameOver;  // Winner if the shot ended the game, otherwise null
+
+    /**
+     * Constructs the outcome of a shot after which the game goes on.
+     * @param fire the result of the shot
+     * @param turn the turn information for the receiving player
+     */
+    public TurnOutcomeMessage(FireResponse fire, TurnMessage turn) {
+        this(fire, turn, null);
+    }
+
+    /**
+     * Constructs the outcome of the shot that ended the game.
+     * @param fire     the result of the shot
+     * @param gameOver the game over message
+     */
+    public TurnOutcomeMessage(FireResponse fire, GameOverMessage gameOver) {
+        this(fire, null, gameOver);
+    }
+
+    private TurnOutcomeMessage(FireResponse fire, TurnMessage turn, GameOverMessage gameOver) {
+        this.fire     = fire;
+        this.turn     = turn;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * Returns the result of the shot.
+     */
+    public FireResponse getFire() {
+        return fire;
+    }
+
+    /**
+     * Returns the next turn, or null if the game ended with this shot.
+     */
+    public TurnMessage getTurn() {
+        return turn;
+    }
+
+    /**
+     * Returns the game over message, or null if the game goes on.
+     */
+    public GameOverMessage getGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Returns whether this shot ended the game.
+     */
+    public boolean isGameOver() {
+        return gameOver != null;
+    }
+}
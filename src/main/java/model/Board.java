@@ -1,16 +1,28 @@
-// src/model/Board.java
 package model;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * Board represents a player's game board.
  * It manages ships, fire actions, and hit/miss tracking.
+ *
+ * Cells are indexed {@code row * gridSize + col}. Grids of up to {@link #DENSE_CELLS} cells
+ * store them as three bitmasks (ship, hit, miss) plus the owning ship of each cell. Larger
+ * grids switch to a sparse form: ship cells and shots go into two {@link CellTable}s keyed by
+ * cell index, so the memory a board takes grows with its ships and shots, not with the grid.
+ * Either way a per-ship count of cells not yet hit makes fire, sunk detection and the
+ * game-over check constant time.
  */
 public class Board implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 3L;
+
+    /** Largest grid, in cells, stored densely; about 10 KB per board at this size */
+    public static final int DENSE_CELLS = 64 * 64;
+
+    private static final Cell[] CELLS = Cell.values();
 
     /**
      * Cell enum defines the state of each cell on the board.
@@ -22,21 +34,62 @@ public class Board implements Serializable {
         MISS   // A shot missed in this cell
     }
 
-    private final Cell[][] grid;      // 2D array representing the game board
-    private final List<Ship> ships;   // List of ships placed on this board
+    private final Ruleset rules;       // grid size and fleet of this board
+    private final int n;               // side of the grid
+    private final long[] shipBits;     // dense: bit set for every cell occupied by a ship
+    private final long[] hitBits;      // dense: bit set for every HIT cell
+    private final long[] missBits;     // dense: bit set for every MISS cell
+    private final short[] shipAt;      // dense: index + 1 of the ship covering each cell, 0 if none
+    private final CellTable shipCells; // sparse: ship index + 1 (0 if none known) per ship cell
+    private final CellTable shots;     // sparse: HIT or MISS ordinal per cell fired at
+    private int[] remaining;           // cells not yet hit, per placed ship
+    private int cellsLeft;             // cells not yet hit over all placed ships
+    private Ship lastSunk;             // ship sunk by the latest fire() call, or null
+    private final List<Ship> ships;    // List of ships placed on this board
 
     /**
-     * Constructs a new Board with all cells initialized as EMPTY.
+     * Constructs a new Board of the standard rules with all cells initialized as EMPTY.
      */
     public Board() {
-        grid = new Cell[GameRules.GRID_SIZE][GameRules.GRID_SIZE];
-        ships = new ArrayList<>();
+        this(Ruleset.STANDARD);
+    }
 
-        for (int r = 0; r < GameRules.GRID_SIZE; r++) {
-            for (int c = 0; c < GameRules.GRID_SIZE; c++) {
-                grid[r][c] = Cell.EMPTY;
-            }
+    /**
+     * Constructs a new, empty Board for the given rules; sparse if the grid is larger
+     * than {@link #DENSE_CELLS}.
+     */
+    public Board(Ruleset rules) {
+        this.rules = rules;
+        this.n     = rules.getGridSize();
+        if (rules.getCells() > DENSE_CELLS) {
+            shipBits = hitBits = missBits = null;
+            shipAt    = null;
+            shipCells = new CellTable();
+            shots     = new CellTable();
+        } else {
+            int words = (rules.getCells() + 63) >>> 6;
+            shipBits  = new long[words];
+            hitBits   = new long[words];
+            missBits  = new long[words];
+            shipAt    = new short[rules.getCells()];
+            shipCells = shots = null;
         }
+        remaining = new int[rules.numShips()];
+        ships     = new ArrayList<>();
+    }
+
+    /**
+     * Returns the rules this board was made for.
+     */
+    public Ruleset getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns whether this board uses the sparse form.
+     */
+    public boolean isSparse() {
+        return shots != null;
     }
 
     /**
@@ -47,18 +100,26 @@ public class Board implements Serializable {
      * @return true if placement is successful, false otherwise
      */
     public boolean placeShip(Ship ship) {
-        for (Position p : ship.getPositions()) {
-            int r = p.getRow(), c = p.getCol();
-            if (r < 0 || r >= GameRules.GRID_SIZE
-             || c < 0 || c >= GameRules.GRID_SIZE
-             || grid[r][c] != Cell.EMPTY) {
-                return false; // Invalid position or overlapping
+        if (!ship.fits(n)) {
+            return false; // Runs off the grid
+        }
+        int length = ship.length();
+        for (int i = 0; i < length; i++) {
+            int idx = ship.cellIndex(i, n);
+            if (shipId(idx) >= 0 || shot(idx) != null) {
+                return false; // Overlapping
             }
         }
 
-        for (Position p : ship.getPositions()) {
-            grid[p.getRow()][p.getCol()] = Cell.SHIP;
+        if (ships.size() == remaining.length) {
+            remaining = Arrays.copyOf(remaining, remaining.length * 2 + 1);
+        }
+        short id = (short) (ships.size() + 1);
+        for (int i = 0; i < length; i++) {
+            setShip(ship.cellIndex(i, n), id);
         }
+        remaining[id - 1] = length;
+        cellsLeft += length;
         ships.add(ship);
         return true;
     }
@@ -72,35 +133,71 @@ public class Board implements Serializable {
      */
     public Cell fire(Position p) {
         int r = p.getRow(), c = p.getCol();
+        lastSunk = null;
 
-        if (r < 0 || r >= GameRules.GRID_SIZE
-         || c < 0 || c >= GameRules.GRID_SIZE) {
+        if (r < 0 || r >= n || c < 0 || c >= n) {
             return Cell.MISS; // Out of bounds is treated as miss
         }
 
-        Cell current = grid[r][c];
+        int idx = r * n + c;
+        if (shots != null) {
+            return fireSparse(idx);
+        }
+        if (isSet(hitBits, idx))  return Cell.HIT;  // Already fired here
+        if (isSet(missBits, idx)) return Cell.MISS;
 
-        if (current == Cell.HIT || current == Cell.MISS) {
-            return current; // Already fired here
+        if (isSet(shipBits, idx)) {
+            set(hitBits, idx);
+            hitShip(shipAt[idx]);
+            return Cell.HIT;
+        } else {
+            set(missBits, idx);
+            return Cell.MISS;
         }
+    }
+
+    /**
+     * {@link #fire} on a sparse board, for a cell on the grid.
+     */
+    private Cell fireSparse(int idx) {
+        int before = shots.get(idx);
+        if (before >= 0) return CELLS[before]; // Already fired here
 
-        if (current == Cell.SHIP) {
-            grid[r][c] = Cell.HIT;
+        int id = shipCells.get(idx);
+        if (id >= 0) {
+            shots.put(idx, Cell.HIT.ordinal());
+            hitShip(id);
             return Cell.HIT;
         } else {
-            grid[r][c] = Cell.MISS;
+            shots.put(idx, Cell.MISS.ordinal());
             return Cell.MISS;
         }
     }
 
+    /**
+     * Counts a fresh hit on the ship with the given index + 1 (0: no known ship) and
+     * remembers the ship if that hit sank it.
+     */
+    private void hitShip(int id) {
+        if (id == 0) return;
+        cellsLeft--;
+        if (--remaining[id - 1] == 0) {
+            lastSunk = ships.get(id - 1);
+        }
+    }
+
     /**
      * Returns the current state of a cell at the given position.
      *
      * @param p the position to query
      * @return the cell status
+     * @throws IndexOutOfBoundsException if the position is not on the grid
      */
     public Cell getCell(Position p) {
-        return grid[p.getRow()][p.getCol()];
+        int idx = index(p);
+        Cell shot = shot(idx);
+        if (shot != null) return shot;
+        return shipId(idx) >= 0 ? Cell.SHIP : Cell.EMPTY;
     }
 
     /**
@@ -109,9 +206,23 @@ public class Board implements Serializable {
      *
      * @param p the position to update
      * @param v the new cell value
+     * @throws IndexOutOfBoundsException if the position is not on the grid
      */
     public void setCell(Position p, Cell v) {
-        grid[p.getRow()][p.getCol()] = v;
+        int idx = index(p);
+        boolean wasHit = shot(idx) == Cell.HIT;
+        setShot(idx, null);
+
+        switch (v) {
+            case EMPTY -> clearShip(idx);
+            case SHIP  -> { if (shipId(idx) < 0) setShip(idx, 0); }
+            case HIT, MISS -> setShot(idx, v);
+        }
+
+        boolean nowHit = v == Cell.HIT;
+        if (wasHit != nowHit) {
+            onHit(idx, nowHit ? -1 : 1);
+        }
     }
 
     /**
@@ -120,14 +231,16 @@ public class Board implements Serializable {
      * @return true if every ship cell is HIT, false otherwise
      */
     public boolean allSunk() {
-        for (Ship s : ships) {
-            for (Position p : s.getPositions()) {
-                if (grid[p.getRow()][p.getCol()] != Cell.HIT) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return cellsLeft == 0;
+    }
+
+    /**
+     * Returns the ship sunk by the most recent {@link #fire(Position)} call.
+     *
+     * @return the ship whose last intact cell that shot hit, or null if it sank nothing
+     */
+    public Ship getLastSunk() {
+        return lastSunk;
     }
 
     /**
@@ -139,4 +252,124 @@ public class Board implements Serializable {
     public List<Ship> getShips() {
         return ships;
     }
+
+    /**
+     * Returns every cell that is not EMPTY as {@code index * 4 + Cell ordinal}, in index order.
+     * On a sparse board this costs the number of ship cells and shots, not the grid area.
+     */
+    public int[] markedCells() {
+        int[] marked;
+        int count = 0;
+        if (isSparse()) {
+            marked = new int[shipCells.size() + shots.size()];
+            for (int i = 0; i < shots.slots(); i++) {
+                int idx = shots.keyAt(i);
+                if (idx >= 0) marked[count++] = idx * 4 + shots.valueAt(i);
+            }
+            for (int i = 0; i < shipCells.slots(); i++) {
+                int idx = shipCells.keyAt(i);
+                if (idx >= 0 && shots.get(idx) < 0) marked[count++] = idx * 4 + Cell.SHIP.ordinal();
+            }
+        } else {
+            marked = new int[rules.getCells()];
+            for (int w = 0; w < shipBits.length; w++) {
+                for (long bits = shipBits[w] | hitBits[w] | missBits[w]; bits != 0; bits &= bits - 1) {
+                    int idx = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    Cell shot = shot(idx);
+                    marked[count++] = idx * 4 + (shot != null ? shot : Cell.SHIP).ordinal();
+                }
+            }
+        }
+        marked = Arrays.copyOf(marked, count);
+        Arrays.sort(marked);
+        return marked;
+    }
+
+    /**
+     * Updates the remaining-cell counters when a ship cell becomes hit (-1) or un-hit (+1).
+     */
+    private void onHit(int idx, int delta) {
+        int id = shipId(idx);
+        if (id > 0) {
+            remaining[id - 1] += delta;
+            cellsLeft += delta;
+        }
+    }
+
+    /**
+     * Returns the index + 1 of the ship on a cell (0 if the owner is unknown), or -1 if there is no ship.
+     */
+    private int shipId(int idx) {
+        if (shipCells != null) return shipCells.get(idx);
+        return isSet(shipBits, idx) ? shipAt[idx] : -1;
+    }
+
+    private void setShip(int idx, int id) {
+        if (shipCells != null) {
+            shipCells.put(idx, id);
+        } else {
+            set(shipBits, idx);
+            if (id != 0) shipAt[idx] = (short) id;
+        }
+    }
+
+    private void clearShip(int idx) {
+        if (shipCells != null) {
+            shipCells.remove(idx);
+        } else {
+            clear(shipBits, idx);
+        }
+    }
+
+    /**
+     * Returns HIT or MISS if the cell was fired at, null otherwise.
+     */
+    private Cell shot(int idx) {
+        if (shots != null) {
+            int v = shots.get(idx);
+            return v < 0 ? null : CELLS[v];
+        }
+        if (isSet(hitBits, idx))  return Cell.HIT;
+        if (isSet(missBits, idx)) return Cell.MISS;
+        return null;
+    }
+
+    /**
+     * Records a HIT or MISS on a cell, or forgets its shot if {@code shot} is null.
+     */
+    private void setShot(int idx, Cell shot) {
+        if (shots != null) {
+            if (shot == null) shots.remove(idx);
+            else shots.put(idx, shot.ordinal());
+            return;
+        }
+        clear(hitBits, idx);
+        clear(missBits, idx);
+        if (shot == Cell.HIT)  set(hitBits, idx);
+        if (shot == Cell.MISS) set(missBits, idx);
+    }
+
+    /**
+     * Returns the cell index of a position, rejecting positions off the grid like the
+     * two-dimensional array of earlier versions did.
+     */
+    private int index(Position p) {
+        int r = p.getRow(), c = p.getCol();
+        if (r < 0 || r >= n || c < 0 || c >= n) {
+            throw new IndexOutOfBoundsException("Position " + r + "," + c + " is off the " + n + "x" + n + " grid");
+        }
+        return r * n + c;
+    }
+
+    private static boolean isSet(long[] bits, int idx) {
+        return (bits[idx >>> 6] & (1L << idx)) != 0;
+    }
+
+    private static void set(long[] bits, int idx) {
+        bits[idx >>> 6] |= 1L << idx;
+    }
+
+    private static void clear(long[] bits, int idx) {
+        bits[idx >>> 6] &= ~(1L << idx);
+    }
 }
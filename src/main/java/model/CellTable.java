@@ -0,0 +1,127 @@
+package model;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * CellTable maps cell indexes to small non-negative values for the sparse boards of large grids.
+ *
+ * Keys and values live in two parallel int arrays with open addressing and linear probing;
+ * the table doubles once it is half full and deletes by shifting later entries back, so it
+ * never holds tombstones. Its memory follows the number of entries, not the grid area.
+ */
+final class CellTable implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int FREE = -1; // key of an empty slot (cell indexes are never negative)
+
+    private int[] keys;   // cell index per slot, FREE if empty
+    private int[] values; // value per slot
+    private int size;     // entries in use
+    private int mask;     // slots - 1 (slots is a power of two)
+
+    CellTable() {
+        allocate(16);
+    }
+
+    /**
+     * Returns the value stored for a cell, or -1 if there is none.
+     */
+    int get(int key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            int k = keys[i];
+            if (k == key) return values[i];
+            if (k == FREE) return -1;
+        }
+    }
+
+    /**
+     * Stores a value for a cell, replacing any previous one.
+     */
+    void put(int key, int value) {
+        int i = slot(key);
+        for (; keys[i] != FREE; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i]   = key;
+        values[i] = value;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    /**
+     * Removes the entry of a cell, if any.
+     */
+    void remove(int key) {
+        int i = slot(key);
+        while (keys[i] != key) {
+            if (keys[i] == FREE) return;
+            i = (i + 1) & mask;
+        }
+        // shift back the entries after the gap that would no longer be found
+        for (int j = (i + 1) & mask; keys[j] != FREE; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i]   = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = FREE;
+        size--;
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots; {@link #keyAt} and {@link #valueAt} walk them.
+     */
+    int slots() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the cell stored in a slot, or -1 if the slot is empty.
+     */
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the value stored in a slot.
+     */
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys, oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) continue;
+            int j = slot(oldKeys[i]);
+            while (keys[j] != FREE) j = (j + 1) & mask;
+            keys[j]   = oldKeys[i];
+            values[j] = oldValues[i];
+        }
+    }
+
+    private void allocate(int slots) {
+        keys   = new int[slots];
+        values = new int[slots];
+        mask   = slots - 1;
+        Arrays.fill(keys, FREE);
+    }
+}
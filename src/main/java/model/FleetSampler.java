@@ -0,0 +1,203 @@
+package model;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+/**
+ * FleetSampler draws random legal fleets fast enough for simulations and load tests.
+ *
+ * Every placement of every ship length is computed once as a bitmask over the grid
+ * (cells indexed {@code row * gridSize + col}, like {@link Board}), horizontal placements
+ * first. Sampling a fleet then only picks random placement indexes and tests them against
+ * the mask of the cells already taken with a few AND operations; no Ship or Position is
+ * built until a caller asks for one. Ships are placed in the order of the size list.
+ *
+ * An instance is immutable after construction and can be shared between threads;
+ * each thread brings its own random generator and scratch mask.
+ */
+public final class FleetSampler {
+
+    private static final int TRIES = 16;    // random picks per ship before scanning for a free placement
+    private static final int RESTARTS = 64; // fleets started over after a ship found no room at all
+
+    private static final FleetSampler STANDARD = new FleetSampler(GameRules.GRID_SIZE, GameRules.SHIP_SIZES);
+
+    private final int gridSize;
+    private final int words;       // longs per mask
+    private final int[] sizes;     // ship lengths, in placement order
+    private final long[][] masks;  // per length: placement p occupies masks[len][p * words .. + words)
+    private final int[] counts;    // per length: number of placements
+
+    /**
+     * Precomputes the placement masks of every length in {@code sizes} on a square grid.
+     * @throws IllegalArgumentException if a ship does not fit on the grid at all
+     */
+    public FleetSampler(int gridSize, int[] sizes) {
+        this.gridSize = gridSize;
+        this.words    = (gridSize * gridSize + 63) >>> 6;
+        this.sizes    = sizes.clone();
+        int longest = 0;
+        for (int len : sizes) {
+            if (len < 1 || len > gridSize) throw new IllegalArgumentException("Ship length " + len + " does not fit");
+            longest = Math.max(longest, len);
+        }
+        this.masks  = new long[longest + 1][];
+        this.counts = new int[longest + 1];
+        for (int len : sizes) {
+            if (masks[len] != null) continue;
+            int perLine = gridSize - len + 1;
+            int count = 2 * gridSize * perLine;
+            long[] m = new long[count * words];
+            for (int p = 0; p < count; p++) {
+                int at = start(len, p), step = p < count / 2 ? 1 : gridSize;
+                for (int k = 0; k < len; k++, at += step) {
+                    m[p * words + (at >>> 6)] |= 1L << at;
+                }
+            }
+            masks[len]  = m;
+            counts[len] = count;
+        }
+    }
+
+    /**
+     * Returns the shared sampler for the standard grid and fleet of {@link GameRules}.
+     */
+    public static FleetSampler standard() {
+        return STANDARD;
+    }
+
+    /**
+     * Returns the number of longs in a cell mask of this grid.
+     */
+    public int words() {
+        return words;
+    }
+
+    /**
+     * Returns the number of ships in a fleet.
+     */
+    public int ships() {
+        return sizes.length;
+    }
+
+    /**
+     * Samples the ships {@code from} to the end of the fleet, keeping clear of {@code taken}.
+     * On success {@code taken} holds the old cells plus the new ships and {@code out[i]} the
+     * placement index of ship {@code i}; on failure {@code taken} is left as it was.
+     *
+     * @param rnd   random source
+     * @param taken cell mask ({@link #words()} longs) of cells no ship may use
+     * @param from  index of the first ship to place
+     * @param out   receives the placement of every sampled ship
+     * @return false if the remaining ships found no room after repeated attempts
+     */
+    public boolean sample(RandomGenerator rnd, long[] taken, int from, int[] out) {
+        long[] scratch = new long[words];
+        for (int attempt = 0; attempt < RESTARTS; attempt++) {
+            System.arraycopy(taken, 0, scratch, 0, words);
+            if (place(rnd, scratch, from, out)) {
+                System.arraycopy(scratch, 0, taken, 0, words);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Samples a whole fleet onto an empty grid; allocation-free apart from the scratch mask
+     * the caller passes in, so it is the call to use in tight simulation loops.
+     * @param taken scratch mask; cleared first, holds the fleet's cells afterwards
+     * @param out   receives the placement of every ship
+     * @throws IllegalStateException if the fleet repeatedly finds no room on the grid
+     */
+    public void sampleFleet(RandomGenerator rnd, long[] taken, int[] out) {
+        for (int attempt = 0; attempt < RESTARTS; attempt++) {
+            Arrays.fill(taken, 0L);
+            if (place(rnd, taken, 0, out)) return;
+        }
+        throw new IllegalStateException("No room for a random fleet of " + Arrays.toString(sizes)
+                + " on a " + gridSize + "x" + gridSize + " grid");
+    }
+
+    /**
+     * Samples a whole fleet and returns it as ships, in the order of the size list.
+     * @throws IllegalStateException if the fleet repeatedly finds no room on the grid
+     */
+    public Ship[] randomFleet(Random rnd) {
+        int[] out = new int[sizes.length];
+        sampleFleet(rnd, new long[words], out);
+        Ship[] fleet = new Ship[sizes.length];
+        for (int i = 0; i < fleet.length; i++) {
+            fleet[i] = ship(i, out[i]);
+        }
+        return fleet;
+    }
+
+    /**
+     * Returns placement {@code p} of ship {@code i} as a Ship.
+     */
+    public Ship ship(int i, int p) {
+        int len = sizes[i];
+        int at = start(len, p);
+        Position start = Position.of(at / gridSize, at % gridSize);
+        return p < counts[len] / 2 ? Ship.fromHorizontal(start, len) : Ship.fromVertical(start, len);
+    }
+
+    /**
+     * Adds the cells of a ship to a cell mask.
+     */
+    public void mark(Ship ship, long[] mask) {
+        for (int k = 0; k < ship.length(); k++) {
+            int at = ship.cellIndex(k, gridSize);
+            mask[at >>> 6] |= 1L << at;
+        }
+    }
+
+    /**
+     * Places ships {@code from..} one after another; false as soon as one finds no free placement.
+     */
+    private boolean place(RandomGenerator rnd, long[] taken, int from, int[] out) {
+        for (int i = from; i < sizes.length; i++) {
+            int len = sizes[i];
+            long[] m = masks[len];
+            int count = counts[len];
+            int p = -1;
+            for (int t = 0; t < TRIES && p < 0; t++) {
+                int c = rnd.nextInt(count);
+                if (free(m, c, taken)) p = c;
+            }
+            if (p < 0) { // crowded grid: take the first free placement after a random one
+                int first = rnd.nextInt(count);
+                for (int k = 0; k < count && p < 0; k++) {
+                    int c = first + k < count ? first + k : first + k - count;
+                    if (free(m, c, taken)) p = c;
+                }
+                if (p < 0) return false;
+            }
+            for (int w = 0, base = p * words; w < words; w++) {
+                taken[w] |= m[base + w];
+            }
+            out[i] = p;
+        }
+        return true;
+    }
+
+    private boolean free(long[] m, int p, long[] taken) {
+        for (int w = 0, base = p * words; w < words; w++) {
+            if ((m[base + w] & taken[w]) != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the top-left cell of placement {@code p} of a ship of the given length.
+     */
+    private int start(int len, int p) {
+        int perLine = gridSize - len + 1;
+        int half = gridSize * perLine;
+        return p < half
+                ? (p / perLine) * gridSize + p % perLine // horizontal: row by row
+                : p - half;                              // vertical: the top cells, row by row
+    }
+}
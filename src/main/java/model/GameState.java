@@ -8,19 +8,29 @@ import java.io.Serializable;
  * It tracks both players' boards, whose turn it is, and whether the game is over.
  */
 public class GameState implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
+    private final Ruleset rules;    // Grid size and fleet of this game
     private Board[] boards;         // Each player's board (index 0 and 1)
     private int[] shipsPlaced;      // Number of ships placed by each player
     private int currentPlayer;      // Whose turn it is (0 or 1)
     private boolean gameOver;       // Flag to indicate if game is over
     private int winner;             // The winning player's ID (-1 if not decided)
+    private Ship lastSunk;          // Ship sunk by the latest shot, or null
 
     /**
-     * Constructs a new game state with initial settings.
+     * Constructs a new game state with initial settings and the standard rules.
      */
     public GameState() {
-        boards = new Board[]{new Board(), new Board()};
+        this(Ruleset.STANDARD);
+    }
+
+    /**
+     * Constructs a new game state with initial settings, played with the given rules.
+     */
+    public GameState(Ruleset rules) {
+        this.rules = rules;
+        boards = new Board[]{new Board(rules), new Board(rules)};
         shipsPlaced = new int[]{0, 0};
         currentPlayer = 0;
         gameOver = false;
@@ -34,7 +44,7 @@ public class GameState implements Serializable {
      * @param player the player ID (0 or 1)
      */
     public void clearBoard(int player) {
-        boards[player] = new Board();
+        boards[player] = new Board(rules);
         shipsPlaced[player] = 0;
     }
 
@@ -47,7 +57,7 @@ public class GameState implements Serializable {
      * @return true if the ship was successfully placed
      */
     public boolean placeShip(int player, Ship ship) {
-        if (shipsPlaced[player] >= GameRules.numShips()) {
+        if (shipsPlaced[player] >= rules.numShips()) {
             return false; // All ships already placed
         }
         if (boards[player].placeShip(ship)) {
@@ -68,6 +78,7 @@ public class GameState implements Serializable {
     public Board.Cell fire(Position pos) {
         int opponent = 1 - currentPlayer;
         Board.Cell result = boards[opponent].fire(pos);
+        lastSunk = boards[opponent].getLastSunk();
 
         if (result == Board.Cell.MISS) {
             currentPlayer = opponent; // Switch turn on miss
@@ -81,6 +92,20 @@ public class GameState implements Serializable {
         return result;
     }
 
+    /**
+     * Returns the rules this game is played with.
+     */
+    public Ruleset getRules() {
+        return rules;
+    }
+
+    /**
+     * Returns the ship sunk by the latest shot, or null if that shot sank nothing.
+     */
+    public Ship getLastSunk() {
+        return lastSunk;
+    }
+
     /**
      * Returns whether the game has ended.
      */
@@ -129,10 +154,11 @@ public class GameState implements Serializable {
      * Used for rematch or restart.
      */
     public void reset() {
-        boards = new Board[]{new Board(), new Board()};
+        boards = new Board[]{new Board(rules), new Board(rules)};
         shipsPlaced = new int[]{0, 0};
         currentPlayer = 0;
         gameOver = false;
         winner = -1;
+        lastSunk = null;
     }
 }
@@ -2,30 +2,53 @@
 package model;
 
 import java.io.Serializable;
-import java.util.Objects;
 
 /**
  * Position represents the coordinates of a single cell on the game board.
  * It is defined by a row and column index.
+ *
+ * Positions are immutable flyweights: {@link #of(int, int)} returns a shared instance
+ * for every cell of the standard grid, and deserialized positions resolve to the same instances,
+ * so gameplay does not allocate coordinates. Cells of larger grids are plain instances.
  */
 public class Position implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private static final int N = GameRules.GRID_SIZE;
+    private static final Position[] CELLS = new Position[N * N]; // one shared instance per grid cell
+
+    static {
+        for (int i = 0; i < CELLS.length; i++) {
+            CELLS[i] = new Position(i / N, i % N);
+        }
+    }
+
     private final int row;  // The row index (0-based)
     private final int col;  // The column index (0-based)
 
+    private Position(int row, int col) {
+        this.row = row;
+        this.col = col;
+    }
+
     /**
-     * Constructs a new Position object with the given row and column.
+     * Returns the position with the given row and column.
+     * Cells of the standard grid are served from a preallocated table; other coordinates
+     * (cells of larger grids, or shots off the grid) get a new instance.
+     *
      * @param row the row index (must be >= 0)
      * @param col the column index (must be >= 0)
+     * @return the position
      * @throws IllegalArgumentException if row or col is negative
      */
-    public Position(int row, int col) {
+    public static Position of(int row, int col) {
         if (row < 0 || col < 0) {
             throw new IllegalArgumentException("Row and col must be non-negative.");
         }
-        this.row = row;
-        this.col = col;
+        if (row < N && col < N) {
+            return CELLS[row * N + col];
+        }
+        return new Position(row, col);
     }
 
     /**
@@ -60,7 +83,14 @@ public class Position implements Serializable {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(row, col);
+        return 31 * row + col;
+    }
+
+    /**
+     * Replaces a deserialized position with the shared instance.
+     */
+    private Object readResolve() {
+        return of(row, col);
     }
 
     /**
@@ -0,0 +1,144 @@
+package model;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Ruleset is the grid size and fleet one game is played with.
+ *
+ * {@link #STANDARD} is the classic grid of {@link GameRules}. Other rulesets are chosen per
+ * session and may use square grids of up to {@link #MAX_GRID_SIZE} cells a side with up to
+ * {@link #MAX_SHIPS} ships. Cells are indexed {@code row * gridSize + col}, which fits an int
+ * for every allowed size.
+ */
+public final class Ruleset implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /** Largest grid side a ruleset may use */
+    public static final int MAX_GRID_SIZE = 4096;
+
+    /** Largest fleet a ruleset may use; both fleets still fit in one FleetRevealMessage frame */
+    public static final int MAX_SHIPS = 1000;
+
+    /** The classic rules: {@link GameRules#GRID_SIZE} and {@link GameRules#SHIP_SIZES} */
+    public static final Ruleset STANDARD = new Ruleset(GameRules.GRID_SIZE, GameRules.SHIP_SIZES);
+
+    private final int gridSize;    // Side of the square grid
+    private final int[] shipSizes; // Lengths of the ships, in placement order
+
+    /**
+     * @param gridSize  side of the square grid, 1 to {@link #MAX_GRID_SIZE}
+     * @param shipSizes ship lengths, 1 to {@link #MAX_SHIPS} of them, each no longer than the grid
+     * @throws IllegalArgumentException if the grid or fleet is out of range, or the ships
+     *                                  have more cells than the grid
+     */
+    public Ruleset(int gridSize, int[] shipSizes) {
+        this.gridSize  = gridSize;
+        this.shipSizes = shipSizes.clone();
+        String error = check();
+        if (error != null) throw new IllegalArgumentException(error);
+    }
+
+    /**
+     * Parses a ruleset from a grid size and a comma-separated list of ship lengths.
+     * @throws IllegalArgumentException if either is malformed or out of range
+     */
+    public static Ruleset parse(int gridSize, String fleet) {
+        String[] parts = fleet.split(",");
+        int[] sizes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            sizes[i] = Integer.parseInt(parts[i].trim());
+        }
+        return new Ruleset(gridSize, sizes);
+    }
+
+    /**
+     * Returns the side of the square grid.
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Returns the number of cells of the grid.
+     */
+    public int getCells() {
+        return gridSize * gridSize;
+    }
+
+    /**
+     * Returns the number of ships each player must place.
+     */
+    public int numShips() {
+        return shipSizes.length;
+    }
+
+    /**
+     * Returns the length of the i-th ship of the fleet.
+     */
+    public int getShipSize(int i) {
+        return shipSizes[i];
+    }
+
+    /**
+     * Returns a copy of the ship lengths, in placement order.
+     */
+    public int[] getShipSizes() {
+        return shipSizes.clone();
+    }
+
+    /**
+     * Returns whether these are the classic rules every protocol version understands.
+     */
+    public boolean isStandard() {
+        return equals(STANDARD);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Ruleset r && r.gridSize == gridSize && Arrays.equals(r.shipSizes, shipSizes);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * gridSize + Arrays.hashCode(shipSizes);
+    }
+
+    @Override
+    public String toString() {
+        return gridSize + "x" + gridSize + ", " + shipSizes.length + " ships";
+    }
+
+    /**
+     * Returns why the fields do not form a valid ruleset, or null if they do.
+     */
+    private String check() {
+        if (gridSize < 1 || gridSize > MAX_GRID_SIZE) {
+            return "Grid size must be between 1 and " + MAX_GRID_SIZE + ": " + gridSize;
+        }
+        if (shipSizes.length < 1 || shipSizes.length > MAX_SHIPS) {
+            return "A fleet must have between 1 and " + MAX_SHIPS + " ships: " + shipSizes.length;
+        }
+        long cells = 0;
+        for (int len : shipSizes) {
+            if (len < 1 || len > gridSize) return "Ship length " + len + " does not fit a grid of " + gridSize;
+            cells += len;
+        }
+        if (cells > (long) gridSize * gridSize) {
+            return "The fleet has more cells (" + cells + ") than the grid";
+        }
+        return null;
+    }
+
+    /**
+     * Rejects streams whose fields could not have come from the constructor.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        String error = shipSizes == null ? "No fleet" : check();
+        if (error != null) throw new InvalidObjectException(error);
+    }
+}
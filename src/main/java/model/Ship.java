@@ -1,23 +1,34 @@
 // src/model/Ship.java
 package model;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Ship represents a battleship defined by its start and end positions.
  * The ship must be aligned either horizontally or vertically.
+ *
+ * The footprint is computed once: a ship is stored as its top-left cell, its length and
+ * an orientation flag, so length, containment and cell lookups are plain arithmetic and
+ * the serialized form carries nothing more than those four primitives.
  */
 public class Ship implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
 
-    private final Position start; // Starting position of the ship
-    private final Position end;   // Ending position of the ship
+    private final int row;            // Row of the top-left cell
+    private final int col;            // Column of the top-left cell
+    private final int length;         // Number of cells the ship occupies
+    private final boolean vertical;   // True if the ship extends downwards, false if to the right
+    private transient List<Position> cells; // Read-only view over the footprint, created on first use
 
     /**
      * Constructs a ship with a start and end position.
-     * The ship must be either horizontal or vertical.
+     * The ship must be either horizontal or vertical; start and end may be given in either order.
      *
      * @param start the starting cell of the ship
      * @param end the ending cell of the ship
@@ -27,51 +38,112 @@ public class Ship implements Serializable {
         if (start.getRow() != end.getRow() && start.getCol() != end.getCol()) {
             throw new IllegalArgumentException("Ship must be horizontal or vertical.");
         }
-        this.start = start;
-        this.end = end;
+        this.row      = Math.min(start.getRow(), end.getRow());
+        this.col      = Math.min(start.getCol(), end.getCol());
+        this.vertical = start.getRow() != end.getRow();
+        this.length   = vertical
+                ? Math.abs(end.getRow() - start.getRow()) + 1
+                : Math.abs(end.getCol() - start.getCol()) + 1;
     }
 
-    /** Returns the start position of the ship */
+    /** Returns the start (top-left) position of the ship */
     public Position getStart() {
-        return start;
+        return Position.of(row, col);
     }
 
-    /** Returns the end position of the ship */
+    /** Returns the end (bottom-right) position of the ship */
     public Position getEnd() {
-        return end;
+        return getPosition(length - 1);
+    }
+
+    /** Returns true if the ship extends downwards, false if it extends to the right */
+    public boolean isVertical() {
+        return vertical;
     }
 
     /**
-     * Returns a list of all positions occupied by this ship.
+     * Returns the i-th cell of the ship, counted from the start.
      *
-     * @return list of Position objects between start and end (inclusive)
+     * @param i cell number, 0 &lt;= i &lt; {@link #length()}
+     * @return the position of that cell
      */
-    public List<Position> getPositions() {
-        List<Position> posList = new ArrayList<>();
+    public Position getPosition(int i) {
+        return vertical ? Position.of(row + i, col) : Position.of(row, col + i);
+    }
 
-        int dr = Integer.signum(end.getRow() - start.getRow()); // direction row
-        int dc = Integer.signum(end.getCol() - start.getCol()); // direction col
+    /**
+     * Returns the row-major index ({@code row * GRID_SIZE + col}) of the i-th cell.
+     * The result is only meaningful if {@link #fits()} is true.
+     *
+     * @param i cell number, 0 &lt;= i &lt; {@link #length()}
+     */
+    public int cellIndex(int i) {
+        return cellIndex(i, GameRules.GRID_SIZE);
+    }
 
-        int length = Math.max(
-            Math.abs(end.getRow() - start.getRow()),
-            Math.abs(end.getCol() - start.getCol())
-        ) + 1;
+    /**
+     * Returns the row-major index ({@code row * gridSize + col}) of the i-th cell on a grid
+     * of the given size. The result is only meaningful if {@link #fits(int)} is true.
+     *
+     * @param i        cell number, 0 &lt;= i &lt; {@link #length()}
+     * @param gridSize side of the grid
+     */
+    public int cellIndex(int i, int gridSize) {
+        int start = row * gridSize + col;
+        return start + (vertical ? i * gridSize : i);
+    }
 
-        int r = start.getRow(), c = start.getCol();
-        for (int i = 0; i < length; i++) {
-            posList.add(new Position(r, c));
-            r += dr;
-            c += dc;
-        }
+    /**
+     * Returns whether every cell of the ship lies on the standard grid.
+     */
+    public boolean fits() {
+        return fits(GameRules.GRID_SIZE);
+    }
+
+    /**
+     * Returns whether every cell of the ship lies on a grid of the given size.
+     */
+    public boolean fits(int gridSize) {
+        return vertical
+                ? col < gridSize && row < gridSize && length <= gridSize - row
+                : row < gridSize && col < gridSize && length <= gridSize - col;
+    }
 
-        return posList;
+    /**
+     * Returns whether the ship occupies the given cell.
+     */
+    public boolean contains(int r, int c) {
+        return vertical
+                ? c == col && r >= row && r < row + length
+                : r == row && c >= col && c < col + length;
+    }
+
+    /**
+     * Returns whether the ship occupies the given position.
+     */
+    public boolean contains(Position p) {
+        return contains(p.getRow(), p.getCol());
+    }
+
+    /**
+     * Returns a read-only list of all positions occupied by this ship.
+     * The list is a view over the footprint and does not copy any cells.
+     *
+     * @return list of Position objects between start and end (inclusive)
+     */
+    public List<Position> getPositions() {
+        List<Position> view = cells;
+        if (view == null) {
+            view = cells = new Cells();
+        }
+        return view;
     }
 
     /**
      * Returns the length of the ship in cells.
      */
     public int length() {
-        return getPositions().size();
+        return length;
     }
 
     /**
@@ -82,7 +154,7 @@ public class Ship implements Serializable {
      * @return Ship instance
      */
     public static Ship fromHorizontal(Position start, int length) {
-        Position end = new Position(start.getRow(), start.getCol() + length - 1);
+        Position end = Position.of(start.getRow(), start.getCol() + length - 1);
         return new Ship(start, end);
     }
 
@@ -94,7 +166,40 @@ public class Ship implements Serializable {
      * @return Ship instance
      */
     public static Ship fromVertical(Position start, int length) {
-        Position end = new Position(start.getRow() + length - 1, start.getCol());
+        Position end = Position.of(start.getRow() + length - 1, start.getCol());
         return new Ship(start, end);
     }
+
+    /**
+     * Rejects streams whose fields could not have come from the constructor.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (row < 0 || col < 0 || length < 1 || length > Ruleset.MAX_GRID_SIZE) {
+            throw new InvalidObjectException("Invalid ship: " + row + "," + col + " length " + length);
+        }
+    }
+
+    /**
+     * Index-based view over the footprint backing {@link #getPositions()}.
+     */
+    private final class Cells extends AbstractList<Position> implements RandomAccess {
+        @Override
+        public Position get(int i) {
+            if (i < 0 || i >= length) {
+                throw new IndexOutOfBoundsException(i);
+            }
+            return getPosition(i);
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Position p && Ship.this.contains(p);
+        }
+    }
 }
@@ -0,0 +1,217 @@
+package server;
+
+import common.Frames;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * BlockingConnection wraps a classic socket with blocking streams.
+ * Its {@link #run()} method is the reader loop: it blocks on the next frame and,
+ * once the connection is seated in a session, handles it while holding the session lock.
+ *
+ * Sending only appends the frame to an outbound queue; a drain task on the writer executor
+ * writes the queue out and ends when it is empty, so a client that does not read blocks its
+ * own writer rather than the session lock and the opponent's reader.
+ */
+public class BlockingConnection extends Connection implements Runnable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final Executor writers;                            // runs the drain task
+    private final ArrayDeque<byte[]> outbound = new ArrayDeque<>(); // frames to write, guarded by itself
+    private boolean draining;                                  // a drain task is running, guarded by outbound
+    private volatile boolean closed;
+
+    /**
+     * Wraps an accepted socket.
+     * @param codecs  codec ids clients may negotiate, most preferred first
+     * @param limits  budget of the outbound queue
+     * @param writers executor that runs the task draining the outbound queue
+     * @param lobby   callback receiving the connection once the handshake is done
+     * @param metrics metrics of the owning server
+     */
+    public BlockingConnection(Socket socket, byte[] codecs, OutboundLimits limits, Executor writers,
+                              Consumer<Connection> lobby, ServerMetrics metrics) throws IOException {
+        super(codecs, limits, lobby, metrics);
+        this.socket  = socket;
+        this.writers = writers;
+        socket.setTcpNoDelay(true); // frames are small and already written in one piece
+        socket.setKeepAlive(true);  // lets the OS notice dead peers of clients without heartbeats
+        this.in     = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out    = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Reader loop: runs until the peer disconnects or the connection is closed.
+     */
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                byte[] payload = Frames.readPayload(in);
+                GameSession s = session();
+                if (s == null) {
+                    onFrame(payload, 0, payload.length); // handshake, not seated yet
+                } else {
+                    synchronized (s) {
+                        onFrame(payload, 0, payload.length);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                System.out.println("Connection lost: " + describe() + " (" + e.getMessage() + ")");
+                close();
+                leaveSession();
+            }
+        } catch (RuntimeException e) {
+            // A bug while handling a frame: drop the connection, but never leave the opponent waiting
+            System.err.println("Reader failed for " + describe() + ":");
+            e.printStackTrace();
+            close();
+            leaveSession();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Tells the session, under its lock, that this connection is gone. Called after {@link #close()},
+     * so a session that seats this connection later sees it closed instead.
+     */
+    private void leaveSession() {
+        GameSession s = session();
+        if (s != null) {
+            synchronized (s) {
+                disconnected();
+            }
+        }
+    }
+
+    @Override
+    protected void sendFrame(byte[] frame) {
+        boolean start;
+        synchronized (outbound) {
+            if (closed) return;
+            outbound.add(frame);
+            start = !draining;
+            draining = true;
+        }
+        enqueued(frame.length);
+        if (start) {
+            writers.execute(this::drain);
+        }
+    }
+
+    /**
+     * Drain task: writes queued frames until the queue is empty, flushing once per batch,
+     * then closes the socket if {@link #close()} was called in the meantime.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                byte[] frame;
+                synchronized (outbound) {
+                    frame = outbound.poll();
+                }
+                if (frame == null) {
+                    out.flush();
+                    synchronized (outbound) {
+                        if (!outbound.isEmpty()) continue; // sent while flushing
+                        draining = false;
+                        if (!closed) return;
+                    }
+                    closeSocket(); // graceful close waited for us
+                    return;
+                }
+                out.write(frame);
+                dequeued(frame.length);
+            }
+        } catch (IOException e) {
+            boolean lost;
+            synchronized (outbound) {
+                outbound.clear();
+                draining = false;
+                lost = !closed;
+            }
+            discarded();
+            if (lost) {
+                System.err.println("Send failed to " + describe() + ": " + e.getMessage());
+                abort();
+                execute(this::disconnected);
+            }
+        }
+    }
+
+    /**
+     * Runs the task on the calling thread, holding the session lock once the connection is seated.
+     */
+    @Override
+    protected void execute(Runnable task) {
+        GameSession s = session();
+        if (s == null) {
+            task.run();
+        } else {
+            synchronized (s) {
+                task.run();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting frames; the socket is closed once the drain task wrote what was queued.
+     */
+    @Override
+    public void close() {
+        boolean now;
+        synchronized (outbound) {
+            closed = true;
+            now = !draining;
+        }
+        released();
+        if (now) {
+            closeSocket();
+        } else {
+            closing();
+        }
+    }
+
+    /**
+     * Closes the socket at once, which also fails a write the drain task is blocked in.
+     */
+    @Override
+    protected void abort() {
+        synchronized (outbound) {
+            closed = true;
+            outbound.clear();
+        }
+        released();
+        discarded();
+        closeSocket();
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String describe() {
+        return String.valueOf(socket.getRemoteSocketAddress());
+    }
+}
@@ -0,0 +1,164 @@
+package server;
+
+import bot.BotPlayer;
+import bot.FireStrategy;
+import bot.HuntStrategy;
+import bot.MonteCarloStrategy;
+import common.*;
+import model.Board;
+import model.Position;
+import model.Ruleset;
+import model.Ship;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BotConnection is a seat taken by a server-side bot instead of a client, for a player
+ * who waited in the lobby too long. The session talks to it like to any player: what the
+ * session sends is handled in {@link #send(Object)}, and the bot's answers go back through
+ * {@link #receive(Object)} on the session's own thread, never from inside a send.
+ *
+ * The fleet is placed at random. Every shot is chosen by a {@link MonteCarloStrategy} on the
+ * server's fork/join pool, so thinking never holds the session's thread or lock and many bot
+ * games can share a few cores. On grids too large for sampling (sparse boards) the bot hunts
+ * and targets instead. After a game the bot always asks for a rematch.
+ */
+public class BotConnection extends Connection {
+
+    private static final AtomicLong IDS = new AtomicLong();
+
+    private final long id = IDS.incrementAndGet();
+    private final MonteCarloStrategy montecarlo; // for small grids
+    private final HuntStrategy hunt;          // for grids larger than Board.DENSE_CELLS
+    private FireStrategy strategy;            // the one playing this round; session thread only
+    private final ForkJoinPool pool;          // runs the shot searches
+    private final Random random;              // places the fleet
+    private volatile Executor sessionThread;  // hands tasks to the session's thread, never inline
+    private volatile boolean closed;
+    private int player;                       // seat, from MatchFoundMessage; session thread only
+    private int round;                        // games started on this seat; session thread only
+    private boolean aiming;                   // a shot is being chosen or awaits its answer; session thread only
+
+    /**
+     * @param pool       fork/join pool the shot searches run on
+     * @param samples    fleet placements sampled per shot (the difficulty)
+     * @param moveMillis thinking time per shot
+     * @param seed       seeds the fleet and the search
+     * @param limits     outbound limits of the server (a bot never queues anything)
+     * @param metrics    metrics of the owning server
+     */
+    BotConnection(ForkJoinPool pool, int samples, long moveMillis, long seed, OutboundLimits limits,
+                  ServerMetrics metrics) {
+        super(new byte[0], limits, c -> { }, metrics);
+        this.pool       = pool;
+        this.random     = new Random(seed);
+        this.montecarlo = new MonteCarloStrategy(seed, samples, moveMillis, pool);
+        this.hunt       = new HuntStrategy(seed);
+        this.strategy   = montecarlo;
+    }
+
+    /**
+     * Sets how the bot gets back onto its session's thread; call before the session starts.
+     * @param sessionThread runs a task on the session's thread (or under its lock), never on the caller's
+     */
+    void runOn(Executor sessionThread) {
+        this.sessionThread = sessionThread;
+    }
+
+    /**
+     * Reacts to a message from the session. Runs on the session's thread.
+     */
+    @Override
+    public void send(Object msg) {
+        if (closed) return;
+        metrics().messageOut(msg);
+        if (msg instanceof MatchFoundMessage mf) {
+            player = mf.getPlayerId();
+            round++;
+            aiming = false;
+            Ruleset rules = mf.getRules();
+            strategy = rules.getCells() <= Board.DENSE_CELLS ? montecarlo : hunt;
+            strategy.reset(rules);
+            Ship[] fleet = BotPlayer.randomFleet(random, rules);
+            execute(() -> {
+                for (Ship ship : fleet) {
+                    receive(new PlaceShipRequest(player, ship));
+                }
+                receive(new ReadyRequest(player));
+            });
+        } else if (msg instanceof TurnMessage tm) {
+            if (tm.isYourTurn()) aim();
+        } else if (msg instanceof TurnOutcomeMessage outcome) {
+            if (aiming) { // our own shot; the opponent cannot fire while we wait
+                aiming = false;
+                strategy.onResult(outcome.getFire());
+            }
+            if (outcome.isGameOver()) {
+                requestRematch();
+            } else if (outcome.getTurn().isYourTurn()) {
+                aim();
+            }
+        } else if (msg instanceof GameOverMessage) {
+            requestRematch(); // the opponent forfeited
+        }
+    }
+
+    /**
+     * Chooses the next shot on the pool and fires it on the session's thread.
+     */
+    private void aim() {
+        if (aiming) return;
+        aiming = true;
+        int r = round;
+        FireStrategy s = strategy;
+        pool.execute(() -> {
+            Position target = s.next();
+            execute(() -> {
+                if (!closed && round == r) receive(new FireRequest(target));
+            });
+        });
+    }
+
+    private void requestRematch() {
+        aiming = false;
+        execute(() -> receive(new RematchRequest(player)));
+    }
+
+    /**
+     * Returns the newest protocol version: the bot understands every message.
+     */
+    @Override
+    public int getVersion() {
+        return Handshake.VERSION;
+    }
+
+    @Override
+    protected void sendFrame(byte[] frame) {
+        // never called: messages are handled in send() without encoding
+    }
+
+    @Override
+    protected void execute(Runnable task) {
+        Executor e = sessionThread;
+        if (e != null && !closed) e.execute(task);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        released();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String describe() {
+        return "bot-" + id;
+    }
+}
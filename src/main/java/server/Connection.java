@@ -0,0 +1,409 @@
+package server;
+
+import common.Handshake;
+import common.MessageCodec;
+import common.PingMessage;
+import common.PongMessage;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Connection is the server-side view of one connected client.
+ * GameSession only talks to players through this type, so the same
+ * session logic runs on top of blocking sockets or non-blocking channels.
+ *
+ * The first frame a client sends is its {@link Handshake} hello; once it has been
+ * answered (and, from protocol v4, echoed back, which gives the round-trip time)
+ * the connection is handed to the lobby, and every later frame is decoded
+ * with the negotiated codec and dispatched to the session.
+ * Spectators go through the same handshake (with an extended hello) and are handed to the
+ * lobby callback too; {@link #spectateTarget()} tells them apart from players.
+ * So are players reconnecting with a resume token (protocol v6), see {@link #resumeToken()}.
+ *
+ * Every inbound frame refreshes {@link #lastSeen()}. {@link Heartbeat} uses it to reap
+ * connections that stopped talking: clients still in the handshake, and clients of
+ * protocol v7 and later, which answer its pings. Pongs never reach the session.
+ *
+ * Sending never blocks the caller: frames go into a per-connection outbound queue that the
+ * transport drains on its own. Subclasses report what enters and leaves the queue, and a
+ * connection that stays over its {@link OutboundLimits} budget is handled as a slow consumer.
+ */
+public abstract class Connection {
+
+    private final byte[] codecs;              // Codec ids this server accepts, most preferred first
+    private final OutboundLimits limits;      // Outbound queue budget
+    private final Consumer<Connection> lobby; // Receives the connection after the handshake
+    private final ServerMetrics metrics;      // Metrics of the owning server
+    private final AtomicBoolean open = new AtomicBoolean(true); // cleared by the first close
+    private volatile GameSession session;     // Session this connection is seated in
+    private int player;                       // Seat (0 or 1) inside the session
+    private MessageCodec codec;               // Negotiated codec, null until the handshake is done
+    private volatile int version;             // Negotiated protocol version, read by the heartbeat
+    private volatile long lastSeen = System.nanoTime(); // latest inbound frame, or when the connection opened
+    private long frameAt;                     // System.nanoTime() when the latest frame was complete
+    private Handshake.Hello awaitingEcho;     // Agreed hello until the client echoed it (v4+), else null
+    private long answeredAt;                  // System.nanoTime() when the hello was answered
+    private long rtt = -1;                    // Handshake round-trip time in nanoseconds, -1 if unknown
+    private long spectate = -1;               // Session a spectator asked for, -1 for players
+    private long resume;                      // Token of a player taking its seat back, 0 if none
+    private final AtomicLong queued = new AtomicLong(); // bytes in the outbound queue
+    private volatile long slowSince;          // System.nanoTime() the queue passed the high watermark, 0 if not slow
+    private volatile long closingSince;       // System.nanoTime() of a close still draining its queue, else 0
+    private final AtomicBoolean condemned = new AtomicBoolean(); // set once the slow-consumer policy applied
+
+    /**
+     * @param codecs  codec ids clients may negotiate, most preferred first
+     * @param limits  budget of the outbound queue
+     * @param lobby   callback receiving the connection once the handshake is done
+     * @param metrics metrics of the owning server
+     */
+    protected Connection(byte[] codecs, OutboundLimits limits, Consumer<Connection> lobby, ServerMetrics metrics) {
+        this.codecs  = codecs;
+        this.limits  = limits;
+        this.lobby   = lobby;
+        this.metrics = metrics;
+        metrics.connectionOpened();
+    }
+
+    /**
+     * Seats this connection in a session as the given player.
+     * @param session the owning game session
+     * @param player  the player index (0 or 1)
+     */
+    void attach(GameSession session, int player) {
+        this.player  = player;
+        this.session = session;
+    }
+
+    /**
+     * Unseats this connection, e.g. once another connection resumed its seat.
+     * Frames and disconnects of this connection no longer reach the session.
+     */
+    void detach() {
+        this.session = null;
+    }
+
+    /**
+     * Returns the session this connection belongs to, or null before matchmaking.
+     */
+    GameSession session() {
+        return session;
+    }
+
+    /**
+     * Returns the metrics of the server this connection belongs to.
+     */
+    ServerMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the System.nanoTime() at which the latest inbound frame was complete.
+     */
+    long frameAt() {
+        return frameAt;
+    }
+
+    /**
+     * Returns the System.nanoTime() of the latest inbound frame, or of the connection's creation.
+     * Safe to call from any thread.
+     */
+    long lastSeen() {
+        return lastSeen;
+    }
+
+    /**
+     * Returns whether silence means this peer is gone: it has not finished its handshake yet,
+     * or it speaks {@link Handshake#HEARTBEAT_VERSION} and answers pings. Safe to call from any thread.
+     */
+    boolean reapable() {
+        int v = version;
+        return v == 0 || v >= Handshake.HEARTBEAT_VERSION;
+    }
+
+    /**
+     * Sends a heartbeat ping on this connection's own thread, if the client understands pings.
+     */
+    void ping(long stamp, int intervalMillis) {
+        if (version < Handshake.HEARTBEAT_VERSION) return;
+        execute(() -> send(new PingMessage(stamp, intervalMillis)));
+    }
+
+    /**
+     * Closes a connection whose peer went silent and tells its session, like a lost connection.
+     * Runs on this connection's own thread.
+     */
+    void reap() {
+        execute(() -> {
+            if (isClosed()) return;
+            System.out.println("Reaping silent connection " + describe());
+            metrics.connectionReaped();
+            abort();
+            disconnected();
+        });
+    }
+
+    /**
+     * Returns the number of bytes waiting in the outbound queue. Safe to call from any thread.
+     */
+    long queuedBytes() {
+        return queued.get();
+    }
+
+    /**
+     * Applies the slow-consumer policy if the outbound queue has stayed above the high
+     * watermark, or a close has waited for it to drain, for longer than allowed.
+     * Called by the {@link Heartbeat} sweep.
+     */
+    void checkOutbound(long now) {
+        long since = slowSince != 0 ? slowSince : closingSince;
+        if (since != 0 && now - since > limits.stallNanos) {
+            slowConsumer();
+        }
+    }
+
+    /**
+     * Counts a frame entering the outbound queue; subclasses call it from {@link #sendFrame}.
+     */
+    protected final void enqueued(int bytes) {
+        long q = queued.addAndGet(bytes);
+        if (q > limits.high && slowSince == 0) {
+            slowSince = System.nanoTime();
+        }
+        if (q > limits.hard) {
+            slowConsumer(); // no point waiting: the queue is already far over budget
+        }
+    }
+
+    /**
+     * Counts a frame that left the outbound queue because it was written.
+     */
+    protected final void dequeued(int bytes) {
+        if (queued.addAndGet(-bytes) <= limits.low) {
+            slowSince = 0;
+        }
+    }
+
+    /**
+     * Records that the whole outbound queue was thrown away.
+     */
+    protected final void discarded() {
+        queued.set(0);
+        slowSince = 0;
+        closingSince = 0;
+    }
+
+    /**
+     * Records that {@link #close()} is waiting for the queue to drain; if that takes longer
+     * than a slow consumer is allowed, the connection is aborted.
+     */
+    protected final void closing() {
+        if (queued.get() > 0) closingSince = System.nanoTime();
+    }
+
+    /**
+     * Applies the slow-consumer policy once, on this connection's own thread: a player may
+     * forfeit its game, then the connection is dropped like a lost one.
+     */
+    private void slowConsumer() {
+        if (!condemned.compareAndSet(false, true)) return;
+        execute(() -> {
+            System.out.println("Slow consumer " + describe() + ": " + queued.get() + " bytes queued, "
+                    + (isClosed() ? "aborting its close" : limits.policy.name().toLowerCase()));
+            metrics.slowConsumer();
+            if (isClosed()) {
+                abort(); // already left the session, only the drain was stuck
+                return;
+            }
+            GameSession s = session;
+            if (s != null && limits.policy == ServerConfig.SlowConsumer.FORFEIT) {
+                s.forfeit(player);
+            }
+            abort();
+            disconnected();
+        });
+    }
+
+    /**
+     * Returns the round-trip time measured during the handshake in nanoseconds,
+     * or -1 for clients older than {@link Handshake#ECHO_VERSION}.
+     */
+    public long getRtt() {
+        return rtt;
+    }
+
+    /**
+     * Returns the negotiated protocol version (0 before the handshake).
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the session id a spectator asked to watch ({@link Handshake#FEATURED} for any),
+     * or -1 if this connection is a player.
+     */
+    long spectateTarget() {
+        return spectate;
+    }
+
+    /**
+     * Returns the resume token a reconnecting player sent in its hello, or 0 for a new player.
+     */
+    long resumeToken() {
+        return resume;
+    }
+
+    /**
+     * Returns the negotiated codec, or null before the handshake.
+     */
+    MessageCodec codec() {
+        return codec;
+    }
+
+    /**
+     * Handles one complete inbound frame payload: the handshake first, messages afterwards.
+     * @throws IOException if the payload is malformed
+     */
+    protected void onFrame(byte[] buf, int off, int len) throws IOException {
+        frameAt = System.nanoTime();
+        lastSeen = frameAt;
+        if (codec == null) {
+            handshake(buf, off, len);
+            return;
+        }
+        if (awaitingEcho != null) {
+            Handshake.checkEcho(awaitingEcho, buf, off, len);
+            awaitingEcho = null;
+            rtt = frameAt - answeredAt;
+            lobby.accept(this);
+            return;
+        }
+        Object msg = codec.decode(buf, off, len);
+        metrics.messageIn(msg);
+        if (msg instanceof PongMessage) return; // only refreshes lastSeen
+        GameSession s = session;
+        if (s != null) {
+            s.onMessage(player, msg);
+        }
+    }
+
+    /**
+     * Hands a message to the session as if it had arrived on this connection; for connections
+     * without a socket, see {@link BotConnection}. Must run on the connection's own thread.
+     */
+    void receive(Object msg) {
+        frameAt = System.nanoTime();
+        lastSeen = frameAt;
+        metrics.messageIn(msg);
+        GameSession s = session;
+        if (s != null) {
+            s.onMessage(player, msg);
+        }
+    }
+
+    private void handshake(byte[] buf, int off, int len) throws IOException {
+        Handshake.Hello hello  = Handshake.parse(buf, off, len);
+        Handshake.Hello agreed = Handshake.negotiate(hello, codecs);
+        spectate = hello.getSpectate();
+        resume   = hello.getResume();
+        codec   = MessageCodec.forId(agreed.getCodec());
+        version = agreed.getVersion();
+        answeredAt = System.nanoTime();
+        sendFrame(agreed.toFrame());
+        if (version >= Handshake.ECHO_VERSION) {
+            awaitingEcho = agreed; // enter the lobby once the echo arrives
+        } else {
+            lobby.accept(this);
+        }
+    }
+
+    /**
+     * Tells the owning session that the peer went away.
+     */
+    protected void disconnected() {
+        GameSession s = session;
+        if (s != null) {
+            s.onDisconnect(player);
+        }
+    }
+
+    /**
+     * Sends a message to the client using the negotiated codec.
+     * Failures close the connection instead of throwing.
+     * @param msg the message object to send
+     */
+    public void send(Object msg) {
+        if (isClosed() || codec == null) return;
+        byte[] frame;
+        try {
+            frame = codec.encode(msg);
+        } catch (IOException e) {
+            System.err.println("Encode failed for " + describe() + ": " + e.getMessage());
+            return;
+        }
+        metrics.messageOut(msg);
+        sendFrame(frame);
+    }
+
+    /**
+     * Sends a frame that was already encoded with this connection's codec, e.g. one frame
+     * shared by every spectator of a session. The frame must not be modified afterwards.
+     * @param msg   the message the frame encodes (for the metrics)
+     * @param frame the complete frame
+     */
+    void sendEncoded(Object msg, byte[] frame) {
+        if (isClosed() || codec == null) return;
+        metrics.messageOut(msg);
+        sendFrame(frame);
+    }
+
+    /**
+     * Counts this connection as closed in the metrics; subclasses call it from {@link #close()}.
+     * Only the first call has an effect.
+     */
+    protected final void released() {
+        if (open.compareAndSet(true, false)) {
+            metrics.connectionClosed();
+        }
+    }
+
+    /**
+     * Writes one complete frame to the client.
+     */
+    protected abstract void sendFrame(byte[] frame);
+
+    /**
+     * Runs a task on the thread that drives this connection (or under its session's lock),
+     * so timers can act on it like its own reader does.
+     */
+    protected abstract void execute(Runnable task);
+
+    /**
+     * Closes the connection; no new frames are accepted. Frames already queued are still
+     * written as far as the transport can do so without blocking anyone (the blocking
+     * transport lets its writer finish). Calling it more than once has no effect.
+     */
+    public abstract void close();
+
+    /**
+     * Closes the connection at once, discarding queued frames, e.g. because the peer is dead
+     * or not reading. By default the same as {@link #close()}.
+     */
+    protected void abort() {
+        close();
+    }
+
+    /**
+     * Returns whether this connection has been closed.
+     */
+    public abstract boolean isClosed();
+
+    /**
+     * Returns a human readable description of the remote peer (for logging).
+     */
+    public abstract String describe();
+}
@@ -0,0 +1,165 @@
+package server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * EventLoop owns one Selector and the thread that polls it.
+ * Every channel registered here, and every session built on those channels,
+ * is only ever touched from this loop's thread.
+ *
+ * Each loop is one shard of the NIO server: it counts the sessions pinned to it,
+ * the tasks waiting in its queue and the time its thread spends working rather than
+ * waiting in select(), so the matchmaker can place new pairs on the least-loaded loop.
+ */
+public class EventLoop implements Runnable {
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>(); // work handed in from other threads
+    private final AtomicInteger pending  = new AtomicInteger(); // tasks queued but not yet run
+    private final AtomicInteger sessions = new AtomicInteger(); // sessions pinned to this loop
+    private volatile long busyNanos;                            // time spent outside select(), written by the loop thread only
+    private volatile boolean running = true;
+
+    /**
+     * Creates a loop with its own selector; call {@link #start()} to run it.
+     * @param name thread name used for this loop
+     */
+    public EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.thread   = new Thread(this, name);
+    }
+
+    /**
+     * Starts the loop thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a task to run on the loop thread and wakes the selector up.
+     */
+    public void execute(Runnable task) {
+        pending.incrementAndGet();
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    /**
+     * Returns the thread name of this loop.
+     */
+    public String name() {
+        return thread.getName();
+    }
+
+    /**
+     * Returns the number of sessions currently pinned to this loop.
+     */
+    public int sessions() {
+        return sessions.get();
+    }
+
+    /**
+     * Returns the number of tasks handed to this loop that have not run yet.
+     */
+    public int queueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * Returns the total time in nanoseconds this loop spent handling events and tasks.
+     */
+    public long busyNanos() {
+        return busyNanos;
+    }
+
+    /**
+     * Counts a session as pinned to this loop; called when a pair is assigned here.
+     */
+    void sessionOpened() {
+        sessions.incrementAndGet();
+    }
+
+    /**
+     * Releases a session counted by {@link #sessionOpened()}.
+     */
+    void sessionClosed() {
+        sessions.decrementAndGet();
+    }
+
+    /**
+     * Registers a connection's channel with this loop. Must be called on the loop thread.
+     */
+    void register(NioConnection conn) throws IOException {
+        SelectionKey key = conn.channel().register(selector, SelectionKey.OP_READ, conn);
+        conn.bind(this, key);
+    }
+
+    /**
+     * Stops the loop; registered channels are closed when the thread exits.
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                System.err.println(thread.getName() + ": select failed: " + e.getMessage());
+                break;
+            }
+            long t0 = System.nanoTime();
+            runTasks();
+
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                NioConnection conn = (NioConnection) key.attachment();
+                try {
+                    if (key.isValid() && key.isReadable()) conn.onReadable();
+                    if (key.isValid() && key.isWritable()) conn.onWritable();
+                } catch (RuntimeException e) {
+                    // A bug in one session must not take the whole loop down, nor strand the opponent
+                    e.printStackTrace();
+                    conn.close();
+                    try {
+                        conn.disconnected();
+                    } catch (RuntimeException again) {
+                        again.printStackTrace();
+                    }
+                }
+            }
+            busyNanos += System.nanoTime() - t0;
+        }
+        for (SelectionKey key : selector.keys()) {
+            ((NioConnection) key.attachment()).close();
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package server;
+
+import java.util.ArrayDeque;
+
+/**
+ * FifoPairing pairs connections strictly in arrival order.
+ */
+public class FifoPairing implements PairingPolicy {
+
+    /** One waiting connection and the time it arrived */
+    private record Waiting(Connection conn, long since) {}
+
+    private final ArrayDeque<Waiting> waiting = new ArrayDeque<>();
+
+    @Override
+    public void add(Connection conn, long now) {
+        waiting.add(new Waiting(conn, now));
+    }
+
+    @Override
+    public int prune() {
+        int before = waiting.size();
+        waiting.removeIf(w -> w.conn().isClosed());
+        return before - waiting.size();
+    }
+
+    @Override
+    public Connection[] nextPair(long now) {
+        if (waiting.size() < 2) return null;
+        return new Connection[]{waiting.poll().conn(), waiting.poll().conn()};
+    }
+
+    @Override
+    public Connection takeWaitingSince(long deadline) {
+        Waiting oldest = waiting.peek();
+        if (oldest == null || oldest.since() - deadline > 0) return null;
+        return waiting.poll().conn();
+    }
+
+    @Override
+    public int size() {
+        return waiting.size();
+    }
+}
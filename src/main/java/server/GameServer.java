@@ -1,86 +1,242 @@
 package server;
 
-import common.*;
+import common.Handshake;
+import common.SpectateResponse;
+
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
- * GameServer listens for client connections, pairs them,
+ * GameServer listens for client connections, hands them to the {@link Matchmaker},
  * and creates GameSession instances to handle gameplay between pairs.
+ * This is the blocking implementation; see {@link NioGameServer} for the selector-based one.
  */
 public class GameServer {
 
-    private static final int PORT = 12345; // Server port for incoming connections
+    private final ServerConfig config;
+    private final ExecutorService readers; // runs one blocking reader per connection
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final Matchmaker matchmaker;   // pairs waiting players on its own thread
+    private final ScheduledExecutorService timer = SessionExecutors.timer(); // session deadlines, heartbeat
+    private final OutboundLimits limits;   // outbound queue budget of every connection
+    private final ForkJoinPool bots;       // shot searches of server-side bots, null if bots are disabled
+    private volatile SessionJournal journal; // crash-safe session snapshots, null if disabled
+    private volatile MatchLog matchLog;      // binary event stream of every game, null if disabled
+    private final SessionRegistry sessions = new SessionRegistry(); // running sessions, for spectators
+    private volatile ServerSocket server;
+    private volatile boolean stopping;
 
     /**
-     * Entry point: starts the server.
+     * Creates a blocking server with the given configuration.
+     * @throws IllegalStateException if the requested thread kind is not available
+     */
+    public GameServer(ServerConfig config) {
+        this.config  = config;
+        this.readers = SessionExecutors.create(config.getThreads());
+        this.matchmaker = new Matchmaker(PairingPolicy.create(config.getPairing()), this::handleMatch, metrics);
+        this.limits  = OutboundLimits.from(config);
+        this.bots    = config.getBotAfterMillis() > 0 ? new ForkJoinPool() : null;
+        if (bots != null) matchmaker.enableBots(config.getBotAfterMillis(), this::handleLonely);
+    }
+
+    /**
+     * Entry point: starts the server in the mode chosen on the command line.
      */
     public static void main(String[] args) {
-        new GameServer().start();
+        ServerConfig config = ServerConfig.parse(args);
+        if (config.getMode() == ServerConfig.Mode.NIO) {
+            new NioGameServer(config).start();
+        } else {
+            new GameServer(config).start();
+        }
     }
 
     /**
-     * Starts the server, listens for connections, and manages matchmaking.
+     * Starts the server and listens for connections.
+     * Every accepted socket gets a reader on the reader executor, which runs the
+     * handshake and then puts the connection into the matchmaker's lobby.
      */
     public void start() {
-        Queue<Socket> lobby = new LinkedList<>(); // Waiting lobby for unmatched clients
-
-        try (ServerSocket server = new ServerSocket(PORT)) {
-            System.out.println("Server started on port " + PORT);
+        MetricsExporter exporter = null;
+        try (ServerSocket server = new ServerSocket(config.getPort())) {
+            this.server = server;
+            System.out.println("Server started on port " + config.getPort()
+                    + " (blocking, " + config.getThreads().name().toLowerCase() + " threads)");
+            if (!config.getRules().isStandard()) {
+                System.out.println("Rules for protocol v" + Handshake.RULES_VERSION + " players: " + config.getRules());
+            }
+            exporter = MetricsExporter.start(metrics, config);
+            journal  = SessionJournal.start(config);
+            matchLog = MatchLog.start(config);
+            resumeRecovered();
+            Heartbeat heartbeat = Heartbeat.start(timer, config);
+            matchmaker.start();
 
             while (true) {
                 Socket sock = server.accept();
                 System.out.println("Client connected: " + sock.getRemoteSocketAddress());
 
-                lobby.add(sock); // Add to waiting lobby
-
-                if (lobby.size() >= 2) {
-                    // Take two clients and start a game session
-                    Socket p0 = lobby.poll();
-                    Socket p1 = lobby.poll();
-                    handleMatch(p0, p1);
-                } else {
-                    System.out.println("Waiting for another player... (" + lobby.size() + "/2)");
+                try {
+                    BlockingConnection conn = new BlockingConnection(sock, config.getCodecs(), limits, readers,
+                            this::handleArrival, metrics);
+                    heartbeat.track(conn);
+                    readers.execute(conn);
+                } catch (IOException e) {
+                    System.err.println("Failed to set up connection: " + e.getMessage());
+                    closeQuietly(sock);
                 }
             }
         } catch (IOException e) {
-            System.err.println("Server exception: " + e.getMessage());
-            e.printStackTrace();
+            if (!stopping) {
+                System.err.println("Server exception: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            readers.shutdown();
+            matchmaker.shutdown();
+            timer.shutdownNow();
+            if (bots != null) bots.shutdownNow();
+            if (exporter != null) exporter.stop();
+            if (matchLog != null) matchLog.shutdown();
+            closeJournal();
         }
     }
 
     /**
-     * Starts a new thread for a pair of matched players.
-     * Inside the thread, a GameSession is started and managed.
-     *
-     * @param p0 socket for player 0
-     * @param p1 socket for player 1
+     * Stops accepting new connections. Running sessions end when their clients disconnect.
      */
-    private void handleMatch(Socket p0, Socket p1) {
-        new Thread(() -> {
+    public void stop() {
+        stopping = true;
+        ServerSocket s = server;
+        if (s != null) {
             try {
-                GameSession session = new GameSession(p0, p1);
-                boolean rematch;
-
-                do {
-                    rematch = session.playOnceAndCheckRematch(); // play game and check if both players want rematch
-                    if (rematch) {
-                        System.out.println("GameServer: Both players requested rematch — restarting session.");
-                    }
-                } while (rematch);
-
-            } catch (IOException ioe) {
-                System.err.println("Failed to create or run GameSession: " + ioe.getMessage());
-                ioe.printStackTrace();
-            } finally {
-                closeQuietly(p0);
-                closeQuietly(p1);
-                System.out.println("GameServer: Session ended, sockets closed.");
+                s.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Returns this server's metrics.
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Creates and starts a GameSession for a pair of matched players.
+     * Called on the matchmaker thread; from then on both readers drive the session,
+     * and timer tasks take the session lock just like they do. The players are seated under
+     * the lock, and a player whose reader already died is reported to the session right away.
+     *
+     * @param p0 connection of player 0
+     * @param p1 connection of player 1
+     */
+    private void handleMatch(Connection p0, Connection p1) {
+        GameSession session = new GameSession(p0, p1, journal, matchLog, sessions::remove);
+        synchronized (session) {
+            session.useRules(config.getRules());
+            if (config.getResumeGraceMillis() > 0) enableResume(session);
+            session.start();
+            sessions.add(session); // under the lock, so it cannot end (and be removed) before it is added
+            if (p0.isClosed() || p1.isClosed()) {
+                session.onDisconnect(p0.isClosed() ? 0 : 1); // left before being seated
+            }
+        }
+    }
+
+    /**
+     * Seats every game recovered from the journal again, waiting for its players to reconnect
+     * within the resume grace period. Called before the first connection is accepted.
+     */
+    private void resumeRecovered() {
+        if (journal == null) return;
+        for (SessionJournal.Recovered r : journal.recovered()) {
+            GameSession session = new GameSession(r, journal, metrics, sessions::remove);
+            synchronized (session) {
+                enableResume(session);
+                sessions.add(session);
             }
-        }, "GameSession-" + p0.getRemoteSocketAddress() + "-vs-" + p1.getRemoteSocketAddress()).start();
+        }
+    }
+
+    /**
+     * Lets the players of a session take their seats back within the grace period;
+     * the seat expiries take the session lock like a reader does.
+     */
+    private void enableResume(GameSession session) {
+        session.enableResume((task, delay) -> timer.schedule(() -> {
+            synchronized (session) {
+                task.run();
+            }
+        }, delay, TimeUnit.MILLISECONDS), config.getResumeGraceMillis());
+    }
+
+    /**
+     * Seats a player that found no opponent with a server-side bot. Called on the matchmaker thread.
+     * The bot's moves take the session lock like a reader does, from the bot pool.
+     */
+    private void handleLonely(Connection human) {
+        BotConnection bot = new BotConnection(bots, config.getBotSamples(), config.getBotMoveMillis(),
+                ThreadLocalRandom.current().nextLong(), limits, metrics);
+        bot.runOn(task -> bots.execute(() -> {
+            GameSession s = bot.session();
+            if (s == null) return;
+            synchronized (s) {
+                task.run();
+            }
+        }));
+        System.out.println("Matchmaker: no opponent for " + human.describe() + ", seating " + bot.describe());
+        handleMatch(human, bot);
+    }
+
+    /**
+     * Routes a connection that finished its handshake: players go to the matchmaker,
+     * spectators are attached to the session they asked for and reconnecting players take their
+     * seat back. Called on the connection's reader.
+     */
+    private void handleArrival(Connection conn) {
+        if (conn.resumeToken() != 0) {
+            GameSession session = sessions.findByToken(conn.resumeToken());
+            if (session == null) {
+                conn.close();
+                return;
+            }
+            synchronized (session) {
+                session.resume(conn);
+            }
+            return;
+        }
+        if (conn.spectateTarget() < 0) {
+            matchmaker.enter(conn);
+            return;
+        }
+        GameSession session = sessions.find(conn.spectateTarget());
+        if (session == null) {
+            conn.send(new SpectateResponse(0));
+            conn.close();
+            return;
+        }
+        synchronized (session) {
+            session.addSpectator(conn);
+        }
+    }
+
+    /**
+     * Flushes and closes the session journal, if any.
+     */
+    private void closeJournal() {
+        if (journal == null) return;
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Journal: close failed: " + e.getMessage());
+        }
     }
 
     /**
@@ -4,135 +4,512 @@ import common.*;
 import model.*;
 
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.Socket;
-import java.util.concurrent.CountDownLatch;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * GameSession manages a full game round between two players,
  * from handshake to battle phase and rematch decision.
+ *
+ * The session is a state machine driven by incoming messages: it never blocks
+ * and never starts threads, so the transport decides which thread calls it.
+ * Callers must not invoke it from two threads at the same time.
+ *
+ * Any number of read-only spectators can watch a session. They get the shot results,
+ * turn changes (seen from player 0: "your turn" means player 0 is on turn) and the winner,
+ * and both fleets once a game ends. Each of those events is encoded once per codec and the
+ * same frame is handed to every spectator.
+ *
+ * If resuming is enabled, players of protocol v6 and later get a resume token with their
+ * MatchFoundMessage. A player whose connection drops during placement or battle keeps its seat
+ * for a grace period: the opponent may go on (it only waits once it is the absent player's turn),
+ * both players may be away at once,
+ * and a connection presenting the token takes the seat back and receives a ResumeMessage snapshot.
+ *
+ * A session plays the standard rules unless {@link #useRules} gives it others and both players
+ * speak protocol v8. Resume, the journal and the match log only cover standard games, so a
+ * session with other rules is played without them.
  */
 public class GameSession {
 
-    private final Socket sock0, sock1;
-    private final ObjectOutputStream out0, out1;
-    private final ObjectInputStream in0, in1;
+    /** Phases of one session; REMATCH waits for both players' rematch votes. */
+    enum Phase { PLACEMENT, BATTLE, REMATCH, CLOSED }
+
+    /** Runs a task on the session's thread after a delay; supplied by the transport. */
+    interface Timer {
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    private static final AtomicLong IDS = new AtomicLong(); // session ids, starting at 1
+    private static final SecureRandom TOKENS = new SecureRandom();
+
+    private final long id;
+    private final Connection[] players;               // null while a player is away (resuming)
+    private final List<Connection> spectators = new ArrayList<>();
+    private volatile int spectatorCount;              // spectators.size(), readable from any thread
+    private final ServerMetrics metrics;
+    private final Consumer<GameSession> onEnd;        // called once when the session closes
+    private SessionJournal journal;                   // crash-safe snapshots, null if disabled
+    private SessionJournal.Slot slot;                 // this round's journal record, null if none
+    private MatchLog log;                             // event stream of every game, null if disabled
+    private long game;                                // this round's id in the match log
+    private final long[] tokens = new long[2];        // resume token per player, 0 if not offered
+    private final int[] away    = new int[2];         // bumped whenever a player leaves or returns
+    private Timer timer;                              // expires the seats of absent players
+    private long graceMillis;                         // how long an absent player's seat is kept
+    private final boolean[] ready   = new boolean[2]; // ReadyRequest received per player
+    private final boolean[] rematch = new boolean[2]; // RematchRequest received per player
+    private Ruleset rules = Ruleset.STANDARD;         // grid size and fleet of every round
+    private GameState state;
+    private Phase phase = Phase.PLACEMENT;
+    private long placementStart; // System.nanoTime() when the current round started
 
     /**
-     * Initializes the session with two connected client sockets.
+     * Seats two matched connections in a new session.
      */
-    public GameSession(Socket sock0, Socket sock1) throws IOException {
-        this.sock0 = sock0;
-        this.sock1 = sock1;
-        this.out0  = new ObjectOutputStream(sock0.getOutputStream());
-        this.in0   = new ObjectInputStream(sock0.getInputStream());
-        this.out1  = new ObjectOutputStream(sock1.getOutputStream());
-        this.in1   = new ObjectInputStream(sock1.getInputStream());
+    public GameSession(Connection p0, Connection p1) {
+        this(p0, p1, null, null, s -> { });
     }
 
     /**
-     * Runs the full game session once and returns whether both players agreed to rematch.
-     * @return true if both players requested a rematch
+     * Creates a session for two matched connections; {@link #start()} seats them.
+     * @param journal journal recording every round, or null
+     * @param log     match log receiving the events of every round, or null
+     * @param onEnd   called once, on the session's thread, when the session closes
      */
-    public boolean playOnceAndCheckRematch() {
-        GameState state = new GameState();
+    public GameSession(Connection p0, Connection p1, SessionJournal journal, MatchLog log,
+                       Consumer<GameSession> onEnd) {
+        this.id      = IDS.incrementAndGet();
+        this.players = new Connection[]{p0, p1};
+        this.metrics = p0.metrics();
+        this.journal = journal;
+        this.log     = log;
+        this.onEnd   = onEnd;
+        metrics.phaseChanged(null, phase);
+    }
 
-        try {
-            // 1. Handshake + MatchFound
-            out0.writeObject("WELCOME"); out0.flush();
-            out1.writeObject("WELCOME"); out1.flush();
-            out0.writeObject(new MatchFoundMessage(0)); out0.flush();
-            out1.writeObject(new MatchFoundMessage(1)); out1.flush();
+    /**
+     * Seats a game recovered from the journal again with both players away. They take their seats
+     * back with the resume tokens of the previous server process; {@link #enableResume} starts the
+     * grace period, after which a player that did not come back ends the session.
+     * @param recovered the game and its journal slot, which this session keeps writing
+     * @param journal   journal recording the next rounds, or null
+     * @param metrics   the server's metrics
+     * @param onEnd     called once, on the session's thread, when the session closes
+     */
+    GameSession(SessionJournal.Recovered recovered, SessionJournal journal, ServerMetrics metrics,
+                Consumer<GameSession> onEnd) {
+        this.id      = IDS.incrementAndGet();
+        this.players = new Connection[2];
+        this.metrics = metrics;
+        this.journal = journal;
+        this.onEnd   = onEnd;
+        this.state   = recovered.state();
+        this.slot    = recovered.slot();
+        for (int p = 0; p < 2; p++) {
+            tokens[p] = recovered.resumeToken(p);
+            ready[p]  = recovered.isReady(p);
+        }
+        this.phase = recovered.inBattle() ? Phase.BATTLE : Phase.PLACEMENT;
+        placementStart = System.nanoTime();
+        metrics.phaseChanged(null, phase);
+    }
 
-            // 2. Ship placement & Ready phase
-            CountDownLatch readyLatch = new CountDownLatch(2);
-            startInitThread(0, in0, out0, state, readyLatch);
-            startInitThread(1, in1, out1, state, readyLatch);
-            readyLatch.await(); // wait for both players to send ReadyRequest
+    /**
+     * Returns the id spectators use to pick this session.
+     */
+    public long getId() {
+        return id;
+    }
 
-            // 3. Battle phase
-            playBattle(state);
+    /**
+     * Returns the resume token of the given player, or 0 if it was not offered one.
+     */
+    long resumeToken(int player) {
+        return tokens[player];
+    }
 
-            // 4. Rematch check
-            boolean firstRematch  = in0.readObject() instanceof RematchRequest;
-            boolean secondRematch = in1.readObject() instanceof RematchRequest;
+    /**
+     * Plays this session with the given rules if both players understand them (protocol v8);
+     * otherwise it keeps the standard rules. Call before {@link #enableResume} and {@link #start()}.
+     */
+    void useRules(Ruleset rules) {
+        if (rules.isStandard()) return;
+        for (Connection c : players) {
+            if (c.getVersion() < Handshake.RULES_VERSION) return;
+        }
+        this.rules   = rules;
+        this.journal = null; // both record the standard grid only
+        this.log     = null;
+    }
 
-            return firstRematch && secondRematch;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * Offers resume tokens to the players that understand them; call before {@link #start()}.
+     * Sessions with other than the standard rules offer none. The empty seats of a recovered
+     * session keep their tokens and are kept for one grace period from now.
+     * @param timer       runs seat expiries on the session's thread
+     * @param graceMillis how long the seat of a disconnected player is kept
+     */
+    void enableResume(Timer timer, long graceMillis) {
+        this.timer       = timer;
+        this.graceMillis = graceMillis;
+        for (int p = 0; p < 2; p++) {
+            if (players[p] == null) {
+                int player = p, epoch = ++away[p];
+                timer.schedule(() -> expire(player, epoch), graceMillis);
+            } else if (players[p].getVersion() >= Handshake.RESUME_VERSION && rules.isStandard()) {
+                long token;
+                do {
+                    token = TOKENS.nextLong();
+                } while (token == 0);
+                tokens[p] = token;
+            }
         }
     }
 
     /**
-     * Handles ship placement and readiness confirmation in a separate thread for each player.
+     * Returns the number of spectators watching; safe to call from any thread.
      */
-    private void startInitThread(int player,
-                                 ObjectInputStream in,
-                                 ObjectOutputStream out,
-                                 GameState state,
-                                 CountDownLatch latch) {
-        new Thread(() -> {
-            try {
-                while (true) {
-                    Object msg = in.readObject();
+    public int getSpectatorCount() {
+        return spectatorCount;
+    }
 
-                    if (msg instanceof PlaceShipRequest req) {
-                        boolean ok = state.placeShip(req.getPlayer(), req.getShip());
-                        out.writeObject(new PlaceShipResponse(ok)); out.flush();
+    /**
+     * Attaches a read-only spectator, or turns it away if the session has already ended
+     * or plays rules the spectator's protocol version does not know.
+     * Must be called on the session's thread like every other method.
+     */
+    public void addSpectator(Connection conn) {
+        if (phase == Phase.CLOSED || (!rules.isStandard() && conn.getVersion() < Handshake.RULES_VERSION)) {
+            conn.send(new SpectateResponse(0));
+            conn.close();
+            return;
+        }
+        spectators.add(conn);
+        spectatorCount = spectators.size();
+        conn.send(new SpectateResponse(id));
+    }
 
-                    } else if (msg instanceof ReadyRequest) {
-                        latch.countDown(); // mark this player as ready
-                        break;
-                    }
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }).start();
+    /**
+     * Starts (or restarts, after a rematch) a game round: seats both players, so their frames and
+     * disconnects reach this session from now on, sends the handshake and MatchFound messages and
+     * enters the placement phase. A session that has already ended stays closed.
+     */
+    public void start() {
+        if (phase == Phase.CLOSED) return;
+        players[0].attach(this, 0);
+        players[1].attach(this, 1);
+        state = new GameState(rules);
+        ready[0]   = ready[1]   = false;
+        rematch[0] = rematch[1] = false;
+        enter(Phase.PLACEMENT);
+        placementStart = System.nanoTime();
+        if (journal != null) slot = journal.claim();
+        if (slot != null) slot.tokens(tokens[0], tokens[1]);
+        if (log != null) game = log.gameStarted();
+
+        // 1. Handshake + MatchFound
+        send(0, "WELCOME");
+        send(1, "WELCOME");
+        send(0, new MatchFoundMessage(0, tokens[0], rules));
+        send(1, new MatchFoundMessage(1, tokens[1], rules));
+    }
+
+    /**
+     * Handles one message received from a player.
+     * @param player the sender's player index (0 or 1)
+     * @param msg    the decoded message
+     */
+    public void onMessage(int player, Object msg) {
+        switch (phase) {
+            case PLACEMENT -> handlePlacement(player, msg);
+            case BATTLE    -> handleBattle(player, msg);
+            case REMATCH   -> handleRematch(player, msg);
+            case CLOSED    -> { }
+        }
     }
 
     /**
-     * Handles the battle phase turn-by-turn between the two players.
+     * Called when a player's connection is lost. During placement and battle a player holding a
+     * resume token keeps its seat for the grace period; otherwise the session ends for both players.
      */
-    private void playBattle(GameState state) throws IOException, ClassNotFoundException {
-        ObjectInputStream[]  ins  = {in0, in1};
-        ObjectOutputStream[] outs = {out0, out1};
+    public void onDisconnect(int player) {
+        if (phase == Phase.CLOSED) return;
+        System.out.println("GameSession: player " + player + " disconnected.");
+        if (tokens[player] != 0 && (phase == Phase.PLACEMENT || phase == Phase.BATTLE)) {
+            leave(player);
+        } else {
+            end();
+        }
+    }
+
+    /**
+     * Seats a player that reconnected with its resume token again and sends it a snapshot
+     * of the game. The connection is closed instead if the token does not belong to this
+     * session or the game can no longer be resumed.
+     */
+    public void resume(Connection conn) {
+        long token = conn.resumeToken();
+        int player = token == 0 ? -1 : token == tokens[0] ? 0 : token == tokens[1] ? 1 : -1;
+        if (player < 0 || (phase != Phase.PLACEMENT && phase != Phase.BATTLE)) {
+            conn.close();
+            return;
+        }
+        Connection old = players[player];
+        if (old != null) { // the old connection has not noticed it is dead yet
+            old.detach();
+            old.abort();
+        }
+        players[player] = conn;
+        away[player]++;
+        conn.attach(this, player);
+        conn.send(ResumeMessage.of(state, player, ready[player], phase == Phase.BATTLE));
+        sendStatus(1 - player, true);
+        System.out.println("GameSession " + id + ": player " + player + " resumed from " + conn.describe());
+    }
 
-        // Initial TurnMessage: player 0 starts
-        outs[0].writeObject(new TurnMessage(true));  outs[0].flush();
-        outs[1].writeObject(new TurnMessage(false)); outs[1].flush();
+    /**
+     * Keeps the seat of a player whose connection dropped until it resumes or the grace period ends.
+     */
+    private void leave(int player) {
+        Connection gone = players[player];
+        players[player] = null;
+        gone.detach(); // late frames or errors of the dead connection no longer reach us
+        gone.abort();
+        int epoch = ++away[player];
+        sendStatus(1 - player, false);
+        timer.schedule(() -> expire(player, epoch), graceMillis);
+        System.out.println("GameSession " + id + ": keeping player " + player + "'s seat for "
+                + graceMillis + " ms");
+    }
 
-        while (true) {
-            int attacker = state.getCurrentPlayer();
-            int defender = 1 - attacker;
+    /**
+     * Ends an undecided game in favour of the opponent, because the given player's connection
+     * is dropped as a slow consumer. The session then waits in REMATCH like after a normal
+     * ending, and the dropped connection ends it.
+     */
+    void forfeit(int player) {
+        if (phase != Phase.PLACEMENT && phase != Phase.BATTLE) return;
+        int winner = 1 - player;
+        System.out.println("GameSession " + id + ": player " + player + " forfeits.");
+        if (log != null) log.forfeit(game, player);
+        GameOverMessage gom = new GameOverMessage(winner);
+        send(winner, gom);
+        broadcast(new FleetRevealMessage(state.getBoard(0).getShips(), state.getBoard(1).getShips()));
+        broadcast(gom);
+        metrics.gameCompleted();
+        releaseSlot();
+        enter(Phase.REMATCH);
+    }
 
-            Object msg = ins[attacker].readObject();
-            if (!(msg instanceof FireRequest freq)) continue;
+    /**
+     * Ends the session if the player is still away since the given departure.
+     */
+    private void expire(int player, int epoch) {
+        if (phase == Phase.CLOSED || away[player] != epoch) return;
+        System.out.println("GameSession " + id + ": player " + player + " did not come back.");
+        end();
+    }
 
-            // Process the fire
-            Board.Cell result = state.fire(freq.getPosition());
-            FireResponse fresp = new FireResponse(freq.getPosition(), result);
+    /**
+     * Returns whether the session has ended.
+     */
+    public boolean isClosed() {
+        return phase == Phase.CLOSED;
+    }
 
-            // Send FireResponse to both players
-            for (ObjectOutputStream out : outs) {
-                out.writeObject(fresp); out.flush();
+    /**
+     * 2. Ship placement & Ready phase.
+     */
+    private void handlePlacement(int player, Object msg) {
+        if (ready[player]) return; // placement is over for this player
+
+        if (msg instanceof PlaceShipRequest req) {
+            boolean ok = state.placeShip(player, req.getShip());
+            if (ok && slot != null) slot.placed(player, req.getShip());
+            if (ok && log != null) log.placed(game, player, req.getShip());
+            send(player, new PlaceShipResponse(ok));
+
+        } else if (msg instanceof ReadyRequest) {
+            ready[player] = true; // mark this player as ready
+            if (slot != null) slot.ready(player);
+            metrics.placementToReady(players[player].frameAt() - placementStart);
+            if (ready[0] && ready[1]) {
+                startBattle();
             }
+        }
+    }
+
+    /**
+     * 3. Battle phase: player 0 starts.
+     */
+    private void startBattle() {
+        enter(Phase.BATTLE);
+        if (log != null) log.turn(game, 0);
+        send(0, new TurnMessage(true));
+        send(1, new TurnMessage(false));
+        broadcast(new TurnMessage(true));
+    }
+
+    /**
+     * Handles one shot of the battle phase. Messages from the player
+     * who is not on turn are ignored.
+     */
+    private void handleBattle(int player, Object msg) {
+        int attacker = state.getCurrentPlayer();
+        int defender = 1 - attacker;
+        if (player != attacker || !(msg instanceof FireRequest freq)) return;
+        long frameAt = players[player].frameAt(); // the sender may drop while we answer
+
+        // Process the fire
+        Board.Cell result = state.fire(freq.getPosition());
+        if (slot != null && !slot.shot(freq.getPosition())) {
+            releaseSlot(); // more shots than the record holds: stop journaling this round
+        }
+        if (log != null) log.fired(game, attacker, freq.getPosition(), result);
+        FireResponse fresp = new FireResponse(freq.getPosition(), result, state.getLastSunk());
+
+        // Check game over
+        if (state.isGameOver()) {
+            GameOverMessage gom = new GameOverMessage(state.getWinner());
+            if (log != null) log.gameOver(game, state.getWinner());
+            sendOutcome(attacker, fresp, null, gom);
+            sendOutcome(defender, fresp, null, gom);
+            broadcast(fresp);
+            broadcast(new FleetRevealMessage(state.getBoard(0).getShips(), state.getBoard(1).getShips()));
+            broadcast(gom);
+            metrics.fireLatency(System.nanoTime() - frameAt);
+            metrics.gameCompleted();
+            releaseSlot(); // a finished game needs no recovery
+            enter(Phase.REMATCH);
+            return;
+        }
+
+        // Send the shot result and the updated turn to both
+        boolean hit = (result == Board.Cell.HIT);
+        if (!hit && log != null) log.turn(game, defender);
+        sendOutcome(attacker, fresp, new TurnMessage(hit), null);
+        sendOutcome(defender, fresp, new TurnMessage(!hit), null);
+        broadcast(fresp);
+        broadcast(new TurnMessage(state.getCurrentPlayer() == 0));
+        metrics.fireLatency(System.nanoTime() - frameAt);
+    }
+
+    /**
+     * Sends the outcome of a shot to one player: a single TurnOutcomeMessage for
+     * protocol v2 clients, or the separate FireResponse and Turn/GameOver messages for v1.
+     * Clients older than v3 do not get the sunk ship. Absent players get nothing.
+     */
+    private void sendOutcome(int player, FireResponse fresp, TurnMessage turn, GameOverMessage gom) {
+        Connection conn = players[player];
+        if (conn == null) return;
+        if (conn.getVersion() < 3 && fresp.isSunk()) {
+            fresp = new FireResponse(fresp.getPosition(), fresp.getResult());
+        }
+        if (conn.getVersion() >= 2) {
+            conn.send(gom != null ? new TurnOutcomeMessage(fresp, gom) : new TurnOutcomeMessage(fresp, turn));
+        } else {
+            conn.send(fresp);
+            conn.send(gom != null ? gom : turn);
+        }
+    }
+
+    /**
+     * Sends a message to a player unless that player is away.
+     */
+    private void send(int player, Object msg) {
+        Connection conn = players[player];
+        if (conn != null) conn.send(msg);
+    }
 
-            // Check game over
-            if (state.isGameOver()) {
-                GameOverMessage gom = new GameOverMessage(state.getWinner());
-                for (ObjectOutputStream out : outs) {
-                    out.writeObject(gom); out.flush();
+    /**
+     * Tells a player (of protocol v7 and later) that its opponent went away or came back.
+     */
+    private void sendStatus(int player, boolean opponentConnected) {
+        Connection conn = players[player];
+        if (conn != null && conn.getVersion() >= Handshake.HEARTBEAT_VERSION) {
+            conn.send(new OpponentStatusMessage(opponentConnected));
+        }
+    }
+
+    /**
+     * Sends one event to every spectator, encoding it at most once per codec.
+     * Spectators that went away are dropped from the list.
+     */
+    private void broadcast(Object msg) {
+        if (spectators.isEmpty()) return;
+        byte[][] frames = new byte[2][]; // shared frame per codec id
+        for (Iterator<Connection> it = spectators.iterator(); it.hasNext(); ) {
+            Connection c = it.next();
+            if (c.isClosed()) {
+                it.remove();
+                continue;
+            }
+            MessageCodec codec = c.codec();
+            if (frames[codec.id()] == null) {
+                try {
+                    frames[codec.id()] = codec.encode(msg);
+                } catch (IOException e) {
+                    System.err.println("GameSession: cannot encode " + msg + " for spectators: " + e.getMessage());
+                    return;
                 }
-                break;
             }
+            c.sendEncoded(msg, frames[codec.id()]);
+        }
+        spectatorCount = spectators.size();
+    }
+
+    /**
+     * 4. Rematch check: anything other than a RematchRequest ends the session.
+     */
+    private void handleRematch(int player, Object msg) {
+        if (!(msg instanceof RematchRequest)) {
+            end();
+            return;
+        }
+        rematch[player] = true;
+        if (rematch[0] && rematch[1]) {
+            System.out.println("GameServer: Both players requested rematch — restarting session.");
+            start();
+        }
+    }
+
+    /**
+     * Switches to another phase and updates the per-phase session counts.
+     */
+    private void enter(Phase next) {
+        metrics.phaseChanged(phase, next);
+        phase = next;
+    }
 
-            // Send updated TurnMessage to both
-            boolean hit = (result == Board.Cell.HIT);
-            outs[attacker].writeObject(new TurnMessage(hit));  outs[attacker].flush();
-            outs[defender].writeObject(new TurnMessage(!hit)); outs[defender].flush();
+    /**
+     * Ends the session and closes both connections.
+     */
+    private void end() {
+        if (phase == Phase.CLOSED) return;
+        enter(Phase.CLOSED);
+        for (Connection c : players) {
+            if (c != null) c.close();
+        }
+        for (Connection c : spectators) c.close();
+        spectators.clear();
+        spectatorCount = 0;
+        System.out.println("GameServer: Session ended, sockets closed.");
+        releaseSlot();
+        onEnd.accept(this);
+    }
+
+    /**
+     * Frees this round's journal record, if any.
+     */
+    private void releaseSlot() {
+        if (slot != null) {
+            slot.release();
+            slot = null;
         }
     }
 }
@@ -0,0 +1,80 @@
+package server;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heartbeat keeps track of every connection of a server and, from one periodic task on the
+ * server's timer, pings the clients that understand pings and reaps the connections whose
+ * peer stayed silent for longer than the idle timeout. There is no timer per socket:
+ * a sweep costs one pass over the set, and the pings and reaps themselves run on each
+ * connection's own thread (see {@link Connection#execute}).
+ *
+ * A reaped connection is closed and its session is told like after any lost connection,
+ * so the opponent is notified and the seat is kept for a resume or the session ends.
+ *
+ * The same sweep checks every outbound queue against its {@link OutboundLimits}, so it
+ * keeps running (once a second) when pings are switched off.
+ */
+final class Heartbeat implements Runnable {
+
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private static final int QUEUE_CHECK_MILLIS = 1000; // sweep interval when pings are off
+
+    private final int intervalMillis; // time between pings, 0 if heartbeats are disabled
+    private final long idleNanos;     // silence after which a connection is reaped
+
+    private Heartbeat(int intervalMillis, long idleMillis) {
+        this.intervalMillis = intervalMillis;
+        this.idleNanos      = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+    }
+
+    /**
+     * Schedules the sweep on the server's timer. With {@code --heartbeat-seconds=0} it only
+     * checks the outbound queues.
+     */
+    static Heartbeat start(ScheduledExecutorService timer, ServerConfig config) {
+        Heartbeat h = new Heartbeat(config.getHeartbeatMillis(), config.getIdleTimeoutMillis());
+        int period = h.intervalMillis > 0 ? h.intervalMillis : QUEUE_CHECK_MILLIS;
+        timer.scheduleWithFixedDelay(h, period, period, TimeUnit.MILLISECONDS);
+        if (h.intervalMillis > 0) {
+            System.out.println("Heartbeat: ping every " + config.getHeartbeatMillis() + " ms, reap after "
+                    + config.getIdleTimeoutMillis() + " ms of silence");
+        }
+        return h;
+    }
+
+    /**
+     * Starts watching a newly accepted connection. Closed connections are forgotten by the next sweep.
+     */
+    void track(Connection conn) {
+        connections.add(conn);
+    }
+
+    /**
+     * One sweep over all connections.
+     */
+    @Override
+    public void run() {
+        long now = System.nanoTime();
+        for (Iterator<Connection> it = connections.iterator(); it.hasNext(); ) {
+            Connection c = it.next();
+            if (c.isClosed()) {
+                if (c.queuedBytes() <= 0) {
+                    it.remove();
+                } else {
+                    c.checkOutbound(now); // a close still draining to a peer that does not read
+                }
+            } else if (intervalMillis > 0 && c.reapable() && now - c.lastSeen() > idleNanos) {
+                it.remove();
+                c.reap();
+            } else {
+                c.checkOutbound(now);
+                if (intervalMillis > 0) c.ping(now, intervalMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package server;
+
+import model.Board;
+import model.GameRules;
+import model.Position;
+import model.Ship;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * MatchLog records every game as a compact binary event stream in rolling segment files.
+ *
+ * Sessions only encode an event into a few bytes and drop it into a bounded queue, so a
+ * game never waits for the disk; if the queue is full the event is counted and dropped.
+ * A background writer drains whatever has accumulated, writes it with one call and then
+ * forces it to disk once for the whole batch (group commit). A segment is closed and the
+ * next one started once it grows past the configured size. {@link MatchReplay} reads the
+ * segments back.
+ *
+ * Segment layout: the {@link #MAGIC} int, a format version byte and the grid size byte,
+ * followed by records of {@code type, gameId (8 bytes), payload}. The payload length is
+ * fixed per type:
+ * <pre>
+ *   GAME_START  8  start time (epoch millis)
+ *   PLACE       5  player, row, col, length, vertical
+ *   FIRE        4  player, row, col, result (Board.Cell ordinal)
+ *   TURN        1  player now on turn
+ *   GAME_OVER   1  winner
+ *   FORFEIT     1  player who forfeited (dropped as a slow consumer), the other one wins
+ * </pre>
+ */
+public class MatchLog implements Runnable {
+
+    static final int  MAGIC       = 0x42534D4C; // "BSML"
+    static final byte FORMAT      = 1;
+    static final int  HEADER_SIZE = 6;           // magic, format, grid size
+
+    static final byte GAME_START = 1;
+    static final byte PLACE      = 2;
+    static final byte FIRE       = 3;
+    static final byte TURN       = 4;
+    static final byte GAME_OVER  = 5;
+    static final byte FORFEIT    = 6;
+
+    private static final int QUEUE_CAPACITY = 1 << 16; // events waiting for the writer
+    private static final int MAX_BATCH      = 4096;    // events per write + force
+    private static final int RECORD_MAX     = 1 + 8 + 8;
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong nextGame;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private FileChannel segment; // only touched by the writer thread
+    private int segmentIndex;
+    private long segmentSize;
+
+    /**
+     * @param dir          directory holding the segment files
+     * @param segmentBytes size after which a new segment is started
+     */
+    private MatchLog(Path dir, long segmentBytes) throws IOException {
+        this.dir          = Files.createDirectories(dir);
+        this.segmentBytes = segmentBytes;
+        this.nextGame     = new AtomicLong(System.currentTimeMillis() << 16); // unique across restarts
+        this.segmentIndex = lastSegmentIndex(dir);
+        this.thread       = new Thread(this, "MatchLog");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts the match log configured with {@code --match-log}, if any.
+     * Failures are logged and leave the server running without a match log.
+     *
+     * @return the running log, or null if it is disabled or could not be started
+     */
+    static MatchLog start(ServerConfig config) {
+        if (config.getMatchLog() == null) return null;
+        try {
+            MatchLog log = new MatchLog(config.getMatchLog(), config.getMatchLogSegmentBytes());
+            log.thread.start();
+            System.out.println("Match log: " + config.getMatchLog());
+            return log;
+        } catch (IOException e) {
+            System.err.println("Match log: cannot use " + config.getMatchLog() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the file name of segment {@code index}.
+     */
+    static String segmentName(int index) {
+        return String.format("match-%06d.log", index);
+    }
+
+    /**
+     * Returns the segment files in a directory, oldest first.
+     */
+    static List<Path> segments(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        try (var files = Files.newDirectoryStream(dir, "match-*.log")) {
+            files.forEach(out::add);
+        }
+        out.sort(null);
+        return out;
+    }
+
+    private static int lastSegmentIndex(Path dir) throws IOException {
+        List<Path> existing = segments(dir);
+        if (existing.isEmpty()) return 0;
+        String name = existing.get(existing.size() - 1).getFileName().toString();
+        return Integer.parseInt(name.substring(6, name.length() - 4));
+    }
+
+    // ==============
+    // === Events ===
+    // ==============
+
+    /**
+     * Starts a new game and returns its id.
+     */
+    public long gameStarted() {
+        long game = nextGame.getAndIncrement();
+        byte[] r = record(GAME_START, game, 8);
+        ByteBuffer.wrap(r, 9, 8).putLong(System.currentTimeMillis());
+        offer(r);
+        return game;
+    }
+
+    /**
+     * Records a ship the board accepted.
+     */
+    public void placed(long game, int player, Ship ship) {
+        byte[] r = record(PLACE, game, 5);
+        Position s = ship.getStart();
+        r[9]  = (byte) player;
+        r[10] = (byte) s.getRow();
+        r[11] = (byte) s.getCol();
+        r[12] = (byte) ship.length();
+        r[13] = (byte) (ship.isVertical() ? 1 : 0);
+        offer(r);
+    }
+
+    /**
+     * Records a shot and its result.
+     */
+    public void fired(long game, int player, Position p, Board.Cell result) {
+        byte[] r = record(FIRE, game, 4);
+        r[9]  = (byte) player;
+        r[10] = (byte) Math.min(p.getRow(), 0xFF); // off-grid shots stay off-grid
+        r[11] = (byte) Math.min(p.getCol(), 0xFF);
+        r[12] = (byte) result.ordinal();
+        offer(r);
+    }
+
+    /**
+     * Records that the given player is now on turn.
+     */
+    public void turn(long game, int player) {
+        byte[] r = record(TURN, game, 1);
+        r[9] = (byte) player;
+        offer(r);
+    }
+
+    /**
+     * Records the end of a game.
+     */
+    public void gameOver(long game, int winner) {
+        byte[] r = record(GAME_OVER, game, 1);
+        r[9] = (byte) winner;
+        offer(r);
+    }
+
+    /**
+     * Records that a player forfeited a game that had not been decided yet.
+     */
+    public void forfeit(long game, int loser) {
+        byte[] r = record(FORFEIT, game, 1);
+        r[9] = (byte) loser;
+        offer(r);
+    }
+
+    /**
+     * Returns the payload length of a record type, or -1 if the type is unknown.
+     */
+    static int payloadSize(int type) {
+        return switch (type) {
+            case GAME_START -> 8;
+            case PLACE      -> 5;
+            case FIRE       -> 4;
+            case TURN, GAME_OVER, FORFEIT -> 1;
+            default -> -1;
+        };
+    }
+
+    private static byte[] record(byte type, long game, int payload) {
+        byte[] r = new byte[1 + 8 + payload];
+        r[0] = type;
+        ByteBuffer.wrap(r, 1, 8).putLong(game);
+        return r;
+    }
+
+    private void offer(byte[] record) {
+        if (!queue.offer(record)) {
+            dropped.increment(); // never make a game wait for the disk
+        }
+    }
+
+    // ==============
+    // === Writer ===
+    // ==============
+
+    /**
+     * Stops the writer after it has written and forced everything already queued.
+     * The writer notices within one poll interval; it is not interrupted, because an interrupt
+     * during a write or force closes the segment channel and loses the batch.
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            thread.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        List<byte[]> batch = new ArrayList<>(MAX_BATCH);
+        ByteBuffer buf = ByteBuffer.allocateDirect(MAX_BATCH * RECORD_MAX);
+        try {
+            while (running || !queue.isEmpty()) {
+                byte[] first;
+                try {
+                    first = running ? queue.poll(1, TimeUnit.SECONDS) : queue.poll();
+                } catch (InterruptedException e) {
+                    continue; // not expected; shutdown() only clears the flag
+                }
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+
+                buf.clear();
+                for (byte[] r : batch) buf.put(r);
+                buf.flip();
+                write(buf);
+                batch.clear();
+            }
+        } catch (IOException e) {
+            System.err.println("Match log: write failed, logging stopped: " + e.getMessage());
+        } finally {
+            closeSegment();
+            long lost = dropped.sum();
+            if (lost > 0) {
+                System.err.println("Match log: dropped " + lost + " events because the writer fell behind");
+            }
+        }
+    }
+
+    /**
+     * Appends one batch to the current segment and forces it, rolling over first if needed.
+     */
+    private void write(ByteBuffer batch) throws IOException {
+        if (segment == null || segmentSize + batch.remaining() > segmentBytes) {
+            closeSegment();
+            openSegment();
+        }
+        while (batch.hasRemaining()) {
+            segmentSize += segment.write(batch);
+        }
+        segment.force(false); // one fsync for the whole batch
+    }
+
+    private void openSegment() throws IOException {
+        segmentIndex++;
+        segment = FileChannel.open(dir.resolve(segmentName(segmentIndex)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).put(FORMAT).put((byte) GameRules.GRID_SIZE).flip();
+        while (header.hasRemaining()) segment.write(header);
+        segmentSize = HEADER_SIZE;
+    }
+
+    private void closeSegment() {
+        if (segment == null) return;
+        try {
+            segment.force(false);
+            segment.close();
+        } catch (IOException e) {
+            System.err.println("Match log: closing " + segmentName(segmentIndex) + " failed: " + e.getMessage());
+        }
+        segment = null;
+    }
+}
@@ -0,0 +1,199 @@
+package server;
+
+import model.Board;
+import model.GameRules;
+import model.GameState;
+import model.Position;
+import model.Ship;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MatchReplay streams {@link MatchLog} segments back through {@link GameState}.
+ * Every placement, shot result, turn change and winner in the log is checked against
+ * what the game logic produces, and a line of statistics is printed per finished game.
+ *
+ * Usage: {@code java -cp bin server.MatchReplay --dir=DIR [--quiet=true]}
+ * or {@code java -cp bin server.MatchReplay --file=match-000001.log}.
+ * Exits with status 1 if any game does not verify.
+ */
+public class MatchReplay {
+
+    private static final Board.Cell[] CELLS = Board.Cell.values();
+
+    /** A game being replayed */
+    private static final class Game {
+        final GameState state = new GameState();
+        final int[] shots = new int[2];
+        final int[] hits  = new int[2];
+        String error; // first mismatch, null while the game verifies
+    }
+
+    private final Map<Long, Game> games = new HashMap<>();
+    private final boolean quiet;
+    private long events, bytes, verified, failed, partial;
+
+    private MatchReplay(boolean quiet) {
+        this.quiet = quiet;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String dir  = arg(args, "dir", null);
+        String file = arg(args, "file", null);
+        boolean quiet = Boolean.parseBoolean(arg(args, "quiet", "false"));
+        if ((dir == null) == (file == null)) {
+            System.err.println("Usage: MatchReplay --dir=DIR | --file=FILE [--quiet=true]");
+            System.exit(2);
+        }
+        List<Path> segments = dir != null ? MatchLog.segments(Path.of(dir)) : List.of(Path.of(file));
+
+        MatchReplay replay = new MatchReplay(quiet);
+        long t0 = System.nanoTime();
+        for (Path segment : segments) {
+            replay.read(segment);
+        }
+        double seconds = (System.nanoTime() - t0) / 1e9;
+
+        System.out.printf("segments=%d bytes=%d events=%d in %.2f s (%.1f MB/s, %.0f events/s)%n",
+                segments.size(), replay.bytes, replay.events, seconds,
+                replay.bytes / 1e6 / seconds, replay.events / seconds);
+        System.out.printf("games verified=%d failed=%d in progress=%d skipped events of unknown games=%d%n",
+                replay.verified, replay.failed, replay.games.size(), replay.partial);
+        if (replay.failed > 0) System.exit(1);
+    }
+
+    /**
+     * Replays one segment file.
+     */
+    private void read(Path segment) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segment), 1 << 20))) {
+            if (in.readInt() != MatchLog.MAGIC || in.readByte() != MatchLog.FORMAT) {
+                throw new IOException(segment + " is not a match log segment");
+            }
+            if (in.readByte() != GameRules.GRID_SIZE) {
+                throw new IOException(segment + " was written for another grid size");
+            }
+            bytes += MatchLog.HEADER_SIZE;
+            while (true) {
+                int type;
+                try {
+                    type = in.readUnsignedByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                int size = MatchLog.payloadSize(type);
+                if (size < 0) {
+                    throw new IOException(segment + ": unknown record type " + type + " at byte " + bytes);
+                }
+                try {
+                    apply(type, in.readLong(), in);
+                } catch (EOFException e) {
+                    System.err.println(segment + ": truncated last record");
+                    return;
+                }
+                events++;
+                bytes += 1 + 8 + size;
+            }
+        }
+    }
+
+    /**
+     * Checks one record against the game logic.
+     */
+    private void apply(int type, long id, DataInputStream in) throws IOException {
+        if (type == MatchLog.GAME_START) {
+            in.readLong(); // start time
+            games.put(id, new Game());
+            return;
+        }
+        Game g = games.get(id);
+        switch (type) {
+            case MatchLog.PLACE -> {
+                int player = in.readUnsignedByte();
+                Position start = Position.of(in.readUnsignedByte(), in.readUnsignedByte());
+                int length = in.readUnsignedByte();
+                Ship ship = in.readUnsignedByte() != 0
+                        ? Ship.fromVertical(start, length) : Ship.fromHorizontal(start, length);
+                if (g != null && !g.state.placeShip(player, ship)) {
+                    fail(g, "placement of " + ship.getStart() + " rejected for player " + player);
+                }
+            }
+            case MatchLog.FIRE -> {
+                int player = in.readUnsignedByte();
+                Position p = Position.of(in.readUnsignedByte(), in.readUnsignedByte());
+                int logged = in.readUnsignedByte();
+                if (g == null) break;
+                if (player != g.state.getCurrentPlayer()) {
+                    fail(g, "player " + player + " fired out of turn");
+                }
+                Board.Cell result = g.state.fire(p);
+                g.shots[player]++;
+                if (result == Board.Cell.HIT) g.hits[player]++;
+                if (logged >= CELLS.length || result != CELLS[logged]) {
+                    fail(g, "shot at " + p + " logged as " + logged + " but replays as " + result);
+                }
+            }
+            case MatchLog.TURN -> {
+                int player = in.readUnsignedByte();
+                if (g != null && player != g.state.getCurrentPlayer()) {
+                    fail(g, "turn logged for player " + player + " but replay has player "
+                            + g.state.getCurrentPlayer());
+                }
+            }
+            case MatchLog.GAME_OVER -> {
+                int winner = in.readUnsignedByte();
+                if (g == null) break;
+                if (!g.state.isGameOver() || g.state.getWinner() != winner) {
+                    fail(g, "winner logged as " + winner + " but replay has "
+                            + (g.state.isGameOver() ? g.state.getWinner() : "no winner"));
+                }
+                finish(id, g, winner);
+            }
+            case MatchLog.FORFEIT -> {
+                int loser = in.readUnsignedByte();
+                if (g == null) break;
+                if (g.state.isGameOver()) {
+                    fail(g, "player " + loser + " forfeited a game that was already over");
+                }
+                finish(id, g, 1 - loser);
+            }
+            default -> throw new IllegalStateException("unhandled record type " + type);
+        }
+        if (g == null) partial++;
+    }
+
+    private void fail(Game g, String why) {
+        if (g.error == null) g.error = why;
+    }
+
+    private void finish(long id, Game g, int winner) {
+        games.remove(id);
+        if (g.error != null) {
+            failed++;
+            System.out.println("game " + id + ": MISMATCH: " + g.error);
+            return;
+        }
+        verified++;
+        if (!quiet) {
+            System.out.printf("game %d: winner %d after %d shots (p0 %d/%d hits, p1 %d/%d hits)%n",
+                    id, winner, g.shots[0] + g.shots[1], g.hits[0], g.shots[0], g.hits[1], g.shots[1]);
+        }
+    }
+
+    private static String arg(String[] args, String name, String def) {
+        String prefix = "--" + name + "=";
+        for (String a : args) {
+            if (a.startsWith(prefix)) return a.substring(prefix.length());
+        }
+        return def;
+    }
+}
@@ -0,0 +1,125 @@
+package server;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Matchmaker runs the lobby on its own thread.
+ * Connections that finished their handshake are dropped into a concurrent queue by
+ * whatever thread read their handshake; the matchmaker thread drains it into a
+ * {@link PairingPolicy}, discards players that disconnected while waiting and hands
+ * every pair the policy produces to the server. Neither accept() nor the readers
+ * ever wait for pairing work.
+ * If bots are enabled, a player that found no opponent within the configured wait is
+ * handed to the server to be seated with a server-side bot instead.
+ */
+public class Matchmaker implements Runnable {
+
+    private static final long TICK_MILLIS = 250; // re-check waiting players at least this often
+
+    private final PairingPolicy policy;                      // only touched by the matchmaker thread
+    private final BiConsumer<Connection, Connection> onMatch; // seats a pair in a new session
+    private final ServerMetrics metrics;
+    private final BlockingQueue<Connection> arrivals = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private long botAfterNanos;                 // lobby wait before a bot is offered, 0 if never
+    private Consumer<Connection> onBot;         // seats a lone player with a bot
+
+    /**
+     * @param policy  decides who plays whom
+     * @param onMatch called on the matchmaker thread with player 0 and player 1 of each pair
+     * @param metrics receives the lobby depth
+     */
+    public Matchmaker(PairingPolicy policy, BiConsumer<Connection, Connection> onMatch, ServerMetrics metrics) {
+        this.policy  = policy;
+        this.onMatch = onMatch;
+        this.metrics = metrics;
+        this.thread  = new Thread(this, "Matchmaker");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Seats players that waited longer than {@code afterMillis} with a bot; call before {@link #start()}.
+     * @param onBot called on the matchmaker thread with each such player
+     */
+    public void enableBots(long afterMillis, Consumer<Connection> onBot) {
+        this.botAfterNanos = TimeUnit.MILLISECONDS.toNanos(afterMillis);
+        this.onBot         = onBot;
+    }
+
+    /**
+     * Starts the matchmaker thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Puts a connection into the lobby. Safe to call from any thread; never blocks.
+     */
+    public void enter(Connection conn) {
+        arrivals.add(conn);
+    }
+
+    /**
+     * Stops the matchmaker thread; connections still waiting are left to the server's shutdown.
+     */
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            Connection conn;
+            try {
+                conn = arrivals.poll(TICK_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                break;
+            }
+            long now = System.nanoTime();
+            boolean arrived = conn != null;
+            for (; conn != null; conn = arrivals.poll()) {
+                policy.add(conn, now); // take the whole burst before pairing
+            }
+
+            int dropped = policy.prune();
+            if (dropped > 0) {
+                System.out.println("Matchmaker: dropped " + dropped + " disconnected player(s) from the lobby");
+            }
+
+            Connection[] pair;
+            while ((pair = policy.nextPair(now)) != null) {
+                try {
+                    onMatch.accept(pair[0], pair[1]);
+                } catch (RuntimeException e) {
+                    // A failed session start must not stop matchmaking for everyone else
+                    e.printStackTrace();
+                    pair[0].close();
+                    pair[1].close();
+                }
+            }
+            if (botAfterNanos > 0) {
+                Connection lone;
+                while ((lone = policy.takeWaitingSince(now - botAfterNanos)) != null) {
+                    try {
+                        onBot.accept(lone);
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        lone.close();
+                    }
+                }
+            }
+
+            if (arrived && policy.size() > 0) {
+                System.out.println("Waiting for another player... (" + policy.size() + " in lobby)");
+            }
+            metrics.lobbyDepth(policy.size());
+        }
+    }
+}
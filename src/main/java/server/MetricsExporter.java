@@ -0,0 +1,78 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * MetricsExporter publishes a server's {@link ServerMetrics}: always as an MXBean on the
+ * platform MBean server, and, if {@code --metrics-port} is set, as plain text on
+ * {@code http://127.0.0.1:<port>/metrics}. The HTTP endpoint only listens on the loopback address.
+ */
+class MetricsExporter {
+
+    private final ObjectName name;
+    private HttpServer http;
+
+    private MetricsExporter(ObjectName name) {
+        this.name = name;
+    }
+
+    /**
+     * Starts exporting; failures are logged and leave the server running without that endpoint.
+     */
+    static MetricsExporter start(ServerMetrics metrics, ServerConfig config) {
+        MetricsExporter exporter = null;
+        try {
+            ObjectName name = new ObjectName("battleship:type=ServerMetrics,port=" + config.getPort());
+            MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+            if (mbs.isRegistered(name)) mbs.unregisterMBean(name);
+            mbs.registerMBean(metrics, name);
+            exporter = new MetricsExporter(name);
+        } catch (JMException e) {
+            System.err.println("Metrics: JMX registration failed: " + e.getMessage());
+            exporter = new MetricsExporter(null);
+        }
+
+        if (config.getMetricsPort() > 0) {
+            try {
+                HttpServer http = HttpServer.create(
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getMetricsPort()), 0);
+                http.createContext("/metrics", exchange -> {
+                    byte[] body = metrics.render().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream os = exchange.getResponseBody()) {
+                        os.write(body);
+                    }
+                });
+                http.start(); // default executor: a single background thread
+                exporter.http = http;
+                System.out.println("Metrics on http://127.0.0.1:" + config.getMetricsPort() + "/metrics");
+            } catch (IOException e) {
+                System.err.println("Metrics: HTTP endpoint failed: " + e.getMessage());
+            }
+        }
+        return exporter;
+    }
+
+    /**
+     * Stops the HTTP endpoint and unregisters the MXBean.
+     */
+    void stop() {
+        if (http != null) http.stop(0);
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException ignored) {}
+        }
+    }
+}
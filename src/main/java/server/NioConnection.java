@@ -0,0 +1,222 @@
+package server;
+
+import common.Frames;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * NioConnection is a non-blocking channel driven by an {@link EventLoop}.
+ * Reads are reassembled into frames and handed to {@link #onFrame};
+ * writes that do not complete immediately are queued until the channel is writable,
+ * and count against the connection's {@link OutboundLimits}.
+ * All methods must be called on the thread of the loop the connection is registered with.
+ */
+public class NioConnection extends Connection {
+
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final SocketChannel channel;
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private ByteBuffer readBuf = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private volatile EventLoop loop; // loop currently driving this connection
+    private SelectionKey key;        // registration with that loop's selector
+    private volatile boolean closed; // read by the heartbeat thread
+
+    /**
+     * Wraps an accepted channel; it is driven once an {@link EventLoop} registers it.
+     * @param codecs  codec ids clients may negotiate, most preferred first
+     * @param limits  budget of the outbound queue
+     * @param lobby   callback receiving the connection once the handshake is done
+     * @param metrics metrics of the owning server
+     */
+    public NioConnection(SocketChannel channel, byte[] codecs, OutboundLimits limits,
+                         Consumer<Connection> lobby, ServerMetrics metrics) {
+        super(codecs, limits, lobby, metrics);
+        this.channel = channel;
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    /**
+     * Records the loop and key this connection was registered with.
+     */
+    void bind(EventLoop loop, SelectionKey key) {
+        this.loop = loop;
+        this.key  = key;
+        if (!writeQueue.isEmpty()) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Returns the loop currently driving this connection.
+     */
+    EventLoop loop() {
+        return loop;
+    }
+
+    /**
+     * Moves this connection to another loop so it can share a thread with its opponent.
+     * Must be called on the current loop's thread; {@code then} runs on the target loop
+     * once the connection is registered there, or once the move was abandoned because
+     * the connection closed on the way (check {@link #isClosed()}). Tasks handed to this
+     * connection from now on, and those still queued on the old loop, run on the target loop;
+     * frames sent before the registration wait in the queue until it is done.
+     */
+    void moveTo(EventLoop target, Runnable then) {
+        if (target == loop) {
+            then.run();
+            return;
+        }
+        if (key != null) key.cancel(); // stop reading here; unread bytes wait in the socket
+        loop = target;                 // before the hand-over, so no task runs on the old thread again
+        target.execute(() -> {
+            if (!closed) {
+                try {
+                    target.register(this);
+                } catch (IOException e) {
+                    System.err.println("Failed to move " + describe() + ": " + e.getMessage());
+                    close();
+                }
+            }
+            then.run();
+        });
+    }
+
+    /**
+     * Reads what is available and handles every complete frame.
+     */
+    void onReadable() {
+        int n;
+        try {
+            n = channel.read(readBuf);
+        } catch (IOException e) {
+            n = -1;
+        }
+        if (n < 0) {
+            System.out.println("Connection lost: " + describe());
+            close();
+            disconnected();
+            return;
+        }
+
+        readBuf.flip();
+        try {
+            while (!closed && key.isValid() && readBuf.remaining() >= Frames.HEADER_SIZE) {
+                int len = readBuf.getInt(readBuf.position());
+                Frames.checkLength(len);
+                if (readBuf.remaining() < Frames.HEADER_SIZE + len) break; // wait for the rest
+
+                int start = readBuf.position() + Frames.HEADER_SIZE;
+                readBuf.position(start + len);
+                onFrame(readBuf.array(), readBuf.arrayOffset() + start, len);
+            }
+        } catch (IOException e) {
+            System.err.println("Protocol error from " + describe() + ": " + e.getMessage());
+            close();
+            disconnected();
+            return;
+        }
+        readBuf.compact();
+
+        if (!readBuf.hasRemaining()) {
+            // A single frame is larger than the buffer: grow it (bounded by MAX_PAYLOAD)
+            ByteBuffer bigger = ByteBuffer.allocate(readBuf.capacity() * 2);
+            readBuf.flip();
+            bigger.put(readBuf);
+            readBuf = bigger;
+        }
+    }
+
+    /**
+     * Continues writing queued frames once the socket has room again.
+     */
+    void onWritable() {
+        flush();
+    }
+
+    @Override
+    protected void sendFrame(byte[] frame) {
+        if (closed) return;
+        writeQueue.add(ByteBuffer.wrap(frame));
+        enqueued(frame.length);
+        if (key.isValid()) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        try {
+            while (!writeQueue.isEmpty()) {
+                ByteBuffer head = writeQueue.peek();
+                channel.write(head);
+                if (head.hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return; // socket buffer full, resume on OP_WRITE
+                }
+                writeQueue.poll();
+                dequeued(head.capacity());
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            System.err.println("Send failed to " + describe() + ": " + e.getMessage());
+            close();
+            disconnected();
+        }
+    }
+
+    /**
+     * Hands the task to the loop driving this connection; dropped if it is not registered yet.
+     * A task that finds the connection moved to another loop meanwhile follows it there.
+     */
+    @Override
+    protected void execute(Runnable task) {
+        EventLoop l = loop;
+        if (l == null) return;
+        l.execute(() -> {
+            if (loop == l) {
+                task.run();
+            } else {
+                execute(task);
+            }
+        });
+    }
+
+    /**
+     * Closes the channel. Queued frames the socket buffer had no room for are dropped:
+     * the loop never waits for a peer.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        released();
+        if (key != null) key.cancel();
+        writeQueue.clear();
+        discarded();
+        try {
+            channel.close();
+        } catch (IOException ignored) {}
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public String describe() {
+        try {
+            return String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return "<closed>";
+        }
+    }
+}
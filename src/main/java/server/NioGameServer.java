@@ -0,0 +1,276 @@
+package server;
+
+import common.Handshake;
+import common.SpectateResponse;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NioGameServer is the selector-based server mode.
+ * Instead of starting threads, every accepted channel is registered with one of a small,
+ * fixed set of {@link EventLoop}s (one per core by default); when two clients are paired
+ * both channels are moved to the least-loaded loop, which then drives the GameSession
+ * state machine. A session is therefore only ever touched by one thread and needs no locks,
+ * and an idle session costs a few buffers instead of thread stacks.
+ */
+public class NioGameServer {
+
+    private final ServerConfig config;
+    private final EventLoop[] loops;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final Matchmaker matchmaker; // pairs waiting players on its own thread
+    private volatile SessionJournal journal; // crash-safe session snapshots, null if disabled
+    private volatile MatchLog matchLog;      // binary event stream of every game, null if disabled
+    private final SessionRegistry sessions = new SessionRegistry(); // running sessions, for spectators
+    private final Map<GameSession, EventLoop> homes = new ConcurrentHashMap<>(); // loop of every session
+    private final ScheduledExecutorService timer = SessionExecutors.timer(); // session deadlines, heartbeat
+    private final OutboundLimits limits; // outbound queue budget of every connection
+    private final ForkJoinPool bots;     // shot searches of server-side bots, null if bots are disabled
+    private int nextLoop; // round-robin cursor, only used by the accept thread
+    private volatile ServerSocketChannel server;
+    private volatile boolean stopping;
+
+    /**
+     * Creates a selector-based server with the given configuration.
+     */
+    public NioGameServer(ServerConfig config) {
+        this.config = config;
+        this.loops  = new EventLoop[config.getEventLoops()];
+        this.matchmaker = new Matchmaker(PairingPolicy.create(config.getPairing()),
+                (c0, c1) -> handleMatch((NioConnection) c0, (NioConnection) c1), metrics);
+        this.limits = OutboundLimits.from(config);
+        this.bots   = config.getBotAfterMillis() > 0 ? new ForkJoinPool() : null;
+        if (bots != null) {
+            matchmaker.enableBots(config.getBotAfterMillis(), c -> handleLonely((NioConnection) c));
+        }
+    }
+
+    /**
+     * Starts the event loops, then accepts connections forever.
+     * Each accepted channel is registered with the next loop, which runs its handshake.
+     */
+    public void start() {
+        MetricsExporter exporter = null;
+        try (ServerSocketChannel server = ServerSocketChannel.open()) {
+            this.server = server;
+            server.bind(new InetSocketAddress(config.getPort()));
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new EventLoop("EventLoop-" + i);
+                loops[i].start();
+            }
+            metrics.shards(loops);
+            System.out.println("Server started on port " + config.getPort()
+                    + " (nio, " + loops.length + " event loops)");
+            if (!config.getRules().isStandard()) {
+                System.out.println("Rules for protocol v" + Handshake.RULES_VERSION + " players: " + config.getRules());
+            }
+            exporter = MetricsExporter.start(metrics, config);
+            journal  = SessionJournal.start(config);
+            matchLog = MatchLog.start(config);
+            resumeRecovered();
+            Heartbeat heartbeat = Heartbeat.start(timer, config);
+            matchmaker.start();
+
+            while (true) {
+                SocketChannel ch = server.accept();
+                System.out.println("Client connected: " + ch.getRemoteAddress());
+                ch.configureBlocking(false);
+                ch.socket().setTcpNoDelay(true);
+                ch.socket().setKeepAlive(true); // lets the OS notice dead peers of clients without heartbeats
+
+                NioConnection conn = new NioConnection(ch, config.getCodecs(), limits, this::handleArrival, metrics);
+                heartbeat.track(conn);
+                EventLoop loop = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                loop.execute(() -> {
+                    try {
+                        loop.register(conn);
+                    } catch (IOException e) {
+                        System.err.println("Failed to register " + conn.describe() + ": " + e.getMessage());
+                        conn.close();
+                    }
+                });
+            }
+        } catch (IOException e) {
+            if (!stopping) {
+                System.err.println("Server exception: " + e.getMessage());
+                e.printStackTrace();
+            }
+        } finally {
+            for (EventLoop loop : loops) {
+                if (loop != null) loop.shutdown();
+            }
+            matchmaker.shutdown();
+            timer.shutdownNow();
+            if (bots != null) bots.shutdownNow();
+            if (exporter != null) exporter.stop();
+            if (matchLog != null) matchLog.shutdown();
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    System.err.println("Journal: close failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and shuts the event loops down, closing every channel.
+     */
+    public void stop() {
+        stopping = true;
+        ServerSocketChannel s = server;
+        if (s != null) {
+            try {
+                s.close();
+            } catch (IOException ignored) {}
+        }
+    }
+
+    /**
+     * Returns this server's metrics.
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Pins a matched pair to the least-loaded loop and starts their session there once both
+     * connections have moved, so the session is only ever touched by a single thread;
+     * timer tasks of the session are handed to that loop too. Called on the matchmaker thread.
+     */
+    private void handleMatch(NioConnection c0, NioConnection c1) {
+        EventLoop shard = leastLoaded();
+        shard.sessionOpened(); // count it now so the next pair already sees the load
+        Runnable arrived = new Runnable() {
+            private int moved; // only touched on the shard's thread
+
+            @Override
+            public void run() {
+                if (++moved == 2) startSession(shard, c0, c1);
+            }
+        };
+        c0.loop().execute(() -> c0.moveTo(shard, arrived));
+        c1.loop().execute(() -> c1.moveTo(shard, arrived));
+    }
+
+    /**
+     * Seats a player that found no opponent with a server-side bot on the least-loaded loop.
+     * The bot searches its shots on the bot pool and hands them to that loop.
+     * Called on the matchmaker thread.
+     */
+    private void handleLonely(NioConnection human) {
+        EventLoop shard = leastLoaded();
+        shard.sessionOpened();
+        BotConnection bot = new BotConnection(bots, config.getBotSamples(), config.getBotMoveMillis(),
+                ThreadLocalRandom.current().nextLong(), limits, metrics);
+        bot.runOn(shard::execute);
+        System.out.println("Matchmaker: no opponent for " + human.describe() + ", seating " + bot.describe());
+        human.loop().execute(() -> human.moveTo(shard, () -> startSession(shard, human, bot)));
+    }
+
+    /**
+     * Creates and starts the session of two players on its loop. Runs on that loop once both are there.
+     */
+    private void startSession(EventLoop shard, Connection c0, Connection c1) {
+        GameSession session = new GameSession(c0, c1, journal, matchLog, s -> {
+            shard.sessionClosed();
+            sessions.remove(s);
+            homes.remove(s);
+        });
+        session.useRules(config.getRules());
+        if (config.getResumeGraceMillis() > 0) {
+            session.enableResume((task, delay) -> timer.schedule(() -> shard.execute(task),
+                    delay, TimeUnit.MILLISECONDS), config.getResumeGraceMillis());
+        }
+        homes.put(session, shard);
+        session.start();
+        sessions.add(session);
+        if (c0.isClosed() || c1.isClosed()) {
+            session.onDisconnect(c0.isClosed() ? 0 : 1); // left while being moved
+        }
+    }
+
+    /**
+     * Seats every game recovered from the journal again on the least-loaded loop, waiting for its
+     * players to reconnect within the resume grace period. Called before the first connection is
+     * accepted, so nothing but the session's timer tasks, which run on its loop, can touch it yet.
+     */
+    private void resumeRecovered() {
+        if (journal == null) return;
+        for (SessionJournal.Recovered r : journal.recovered()) {
+            EventLoop shard = leastLoaded();
+            shard.sessionOpened();
+            GameSession session = new GameSession(r, journal, metrics, s -> {
+                shard.sessionClosed();
+                sessions.remove(s);
+                homes.remove(s);
+            });
+            session.enableResume((task, delay) -> timer.schedule(() -> shard.execute(task),
+                    delay, TimeUnit.MILLISECONDS), config.getResumeGraceMillis());
+            homes.put(session, shard);
+            sessions.add(session);
+        }
+    }
+
+    /**
+     * Routes a connection that finished its handshake: players go to the matchmaker,
+     * spectators and reconnecting players move to the loop of their session and are attached there.
+     * Called on the connection's loop.
+     */
+    private void handleArrival(Connection conn) {
+        if (conn.resumeToken() != 0) {
+            NioConnection player = (NioConnection) conn;
+            GameSession session = sessions.findByToken(conn.resumeToken());
+            EventLoop home = session != null ? homes.get(session) : null;
+            if (home == null) {
+                player.close();
+                return;
+            }
+            player.moveTo(home, () -> {
+                if (!player.isClosed()) session.resume(player);
+            });
+            return;
+        }
+        if (conn.spectateTarget() < 0) {
+            matchmaker.enter(conn);
+            return;
+        }
+        NioConnection spectator = (NioConnection) conn;
+        GameSession session = sessions.find(conn.spectateTarget());
+        EventLoop home = session != null ? homes.get(session) : null;
+        if (home == null) {
+            spectator.send(new SpectateResponse(0));
+            spectator.close();
+            return;
+        }
+        spectator.moveTo(home, () -> {
+            if (!spectator.isClosed()) session.addSpectator(spectator);
+        });
+    }
+
+    /**
+     * Returns the loop with the fewest pinned sessions, preferring the shorter task queue on a tie.
+     */
+    private EventLoop leastLoaded() {
+        EventLoop best = loops[0];
+        for (int i = 1; i < loops.length; i++) {
+            EventLoop l = loops[i];
+            if (l.sessions() < best.sessions()
+                    || l.sessions() == best.sessions() && l.queueDepth() < best.queueDepth()) {
+                best = l;
+            }
+        }
+        return best;
+    }
+}
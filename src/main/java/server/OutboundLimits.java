@@ -0,0 +1,39 @@
+package server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OutboundLimits is the budget every connection's outbound queue is held to.
+ *
+ * A connection whose queued bytes pass the high watermark is marked slow; it is fine
+ * again once the queue drains to the low watermark. If it stays slow for longer than the
+ * allowed time, or its queue reaches {@link #HARD_FACTOR} times the high watermark, the
+ * {@link ServerConfig.SlowConsumer} policy is applied. The session never waits for it.
+ */
+final class OutboundLimits {
+
+    /** Multiple of the high watermark at which the policy applies at once */
+    static final int HARD_FACTOR = 4;
+
+    final long high;       // bytes: above this the connection is slow
+    final long low;        // bytes: at or below this it has caught up
+    final long hard;       // bytes: above this the policy applies immediately
+    final long stallNanos; // time a connection may stay slow
+    final ServerConfig.SlowConsumer policy;
+
+    private OutboundLimits(long high, long low, long stallMillis, ServerConfig.SlowConsumer policy) {
+        this.high       = high;
+        this.low        = low;
+        this.hard       = high * HARD_FACTOR;
+        this.stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMillis);
+        this.policy     = policy;
+    }
+
+    /**
+     * Returns the limits configured on the command line.
+     */
+    static OutboundLimits from(ServerConfig config) {
+        return new OutboundLimits(config.getOutboundHighBytes(), config.getOutboundLowBytes(),
+                config.getSlowConsumerMillis(), config.getSlowConsumer());
+    }
+}
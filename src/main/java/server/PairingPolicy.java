@@ -0,0 +1,50 @@
+package server;
+
+/**
+ * PairingPolicy decides which waiting connections play each other.
+ * The {@link Matchmaker} owns the policy and calls it from its own thread only,
+ * so implementations need no synchronization.
+ */
+public interface PairingPolicy {
+
+    /**
+     * Adds a connection that finished its handshake.
+     * @param conn the waiting connection
+     * @param now  System.nanoTime() of its arrival
+     */
+    void add(Connection conn, long now);
+
+    /**
+     * Removes every waiting connection that has been closed.
+     * @return the number of connections removed
+     */
+    int prune();
+
+    /**
+     * Takes the next pair to seat in a session, or returns null if nobody should be paired now.
+     * @param now the current System.nanoTime()
+     */
+    Connection[] nextPair(long now);
+
+    /**
+     * Takes a connection that is still unpaired although it has been waiting since before
+     * {@code deadline}, e.g. to seat it with a bot; returns null if there is none.
+     * @param deadline a System.nanoTime() value
+     */
+    Connection takeWaitingSince(long deadline);
+
+    /**
+     * Returns the number of waiting connections.
+     */
+    int size();
+
+    /**
+     * Creates the policy selected in the configuration.
+     */
+    static PairingPolicy create(ServerConfig.Pairing pairing) {
+        return switch (pairing) {
+            case FIFO -> new FifoPairing();
+            case RTT  -> new RttPairing();
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package server;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RttPairing groups waiting connections into buckets by the round-trip time measured
+ * in their handshake and pairs players from the same bucket, so a fast client is not
+ * seated with one on the other side of the world. Within a bucket pairing is FIFO.
+ * Nobody waits forever: a connection waiting longer than {@link #MAX_WAIT_NANOS} is
+ * paired with the next-oldest connection of any bucket.
+ * Clients that cannot report an RTT (protocol before v4) share the last bucket.
+ */
+public class RttPairing implements PairingPolicy {
+
+    /** Upper RTT bounds of the buckets in milliseconds; the last bucket takes everything else */
+    private static final long[] BOUNDS_MILLIS = { 5, 25, 80, 200 };
+
+    /** Waiting time after which a connection is paired across buckets */
+    static final long MAX_WAIT_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    /** One waiting connection and the time it arrived */
+    private record Waiting(Connection conn, long since) {}
+
+    private final ArrayDeque<Waiting>[] buckets;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RttPairing() {
+        buckets = new ArrayDeque[BOUNDS_MILLIS.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    @Override
+    public void add(Connection conn, long now) {
+        buckets[bucket(conn.getRtt())].add(new Waiting(conn, now));
+        size++;
+    }
+
+    @Override
+    public int prune() {
+        int removed = 0;
+        for (ArrayDeque<Waiting> b : buckets) {
+            int before = b.size();
+            b.removeIf(w -> w.conn().isClosed());
+            removed += before - b.size();
+        }
+        size -= removed;
+        return removed;
+    }
+
+    @Override
+    public Connection[] nextPair(long now) {
+        for (ArrayDeque<Waiting> b : buckets) {
+            if (b.size() >= 2) {
+                size -= 2;
+                return new Connection[]{b.poll().conn(), b.poll().conn()};
+            }
+        }
+        // At most one connection per bucket now: pair the two oldest once one has waited too long
+        ArrayDeque<Waiting> first = null, second = null;
+        for (ArrayDeque<Waiting> b : buckets) {
+            if (b.isEmpty()) continue;
+            if (first == null || b.peek().since() < first.peek().since()) {
+                second = first;
+                first = b;
+            } else if (second == null || b.peek().since() < second.peek().since()) {
+                second = b;
+            }
+        }
+        if (second == null || now - first.peek().since() < MAX_WAIT_NANOS) return null;
+        size -= 2;
+        return new Connection[]{first.poll().conn(), second.poll().conn()};
+    }
+
+    @Override
+    public Connection takeWaitingSince(long deadline) {
+        ArrayDeque<Waiting> oldest = null;
+        for (ArrayDeque<Waiting> b : buckets) {
+            if (!b.isEmpty() && (oldest == null || b.peek().since() < oldest.peek().since())) oldest = b;
+        }
+        if (oldest == null || oldest.peek().since() - deadline > 0) return null;
+        size--;
+        return oldest.poll().conn();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private static int bucket(long rttNanos) {
+        if (rttNanos < 0) return BOUNDS_MILLIS.length;
+        long millis = TimeUnit.NANOSECONDS.toMillis(rttNanos);
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            if (millis < BOUNDS_MILLIS[i]) return i;
+        }
+        return BOUNDS_MILLIS.length;
+    }
+}
@@ -0,0 +1,279 @@
+package server;
+
+import bot.MonteCarloStrategy;
+import common.MessageCodec;
+import model.GameRules;
+import model.Ruleset;
+
+import java.nio.file.Path;
+
+/**
+ * ServerConfig holds the start-up options of the game server.
+ * Options are passed on the command line as {@code --name=value}.
+ */
+public class ServerConfig {
+
+    /** Default TCP port for incoming connections */
+    public static final int DEFAULT_PORT = 12345;
+
+    /** How sessions are executed on the server */
+    public enum Mode {
+        BLOCKING, // one blocking reader thread per connection
+        NIO       // a few selector threads multiplexing all connections
+    }
+
+    /** Which kind of thread runs the blocking readers in BLOCKING mode */
+    public enum Threads {
+        PLATFORM, // classic OS threads
+        VIRTUAL   // virtual threads (requires Java 21+)
+    }
+
+    /** How the matchmaker pairs waiting players */
+    public enum Pairing {
+        FIFO, // strictly in arrival order
+        RTT   // players with similar handshake round-trip times first
+    }
+
+    /** What happens to a player whose outbound queue stays over budget */
+    public enum SlowConsumer {
+        DISCONNECT, // close the connection like a lost one (the seat is kept for a resume)
+        FORFEIT     // the player loses the running game, then the connection is closed
+    }
+
+    private int port = DEFAULT_PORT;
+    private Mode mode = Mode.BLOCKING;
+    private int eventLoops = Runtime.getRuntime().availableProcessors(); // one shard per core
+    private Threads threads = Threads.PLATFORM;
+    private byte[] codecs = { MessageCodec.BINARY, MessageCodec.JAVA };
+    private int metricsPort;  // 0: no HTTP metrics endpoint
+    private Pairing pairing = Pairing.FIFO;
+    private Path journal;         // null: sessions are not journaled
+    private int journalSlots = 1024;
+    private Path matchLog;        // null: games are not logged
+    private int matchLogSegmentMb = 64;
+    private int resumeGraceSeconds = 30; // 0: a lost connection ends the session at once
+    private int heartbeatSeconds = 5;    // 0: no pings and no reaping of silent connections
+    private int idleTimeoutSeconds = 15;
+    private int outboundHighKb = 64;     // queued bytes above which a connection counts as slow
+    private int outboundLowKb  = 16;     // queued bytes below which it is fine again
+    private int slowConsumerMs = 5000;   // how long a connection may stay slow
+    private SlowConsumer slowConsumer = SlowConsumer.DISCONNECT;
+    private int botAfterSeconds;         // 0: a lone player waits for a human opponent forever
+    private int botSamples = MonteCarloStrategy.DEFAULT_SAMPLES;
+    private int botMoveMs  = (int) MonteCarloStrategy.DEFAULT_BUDGET_MILLIS;
+    private int gridSize = GameRules.GRID_SIZE;
+    private String fleet;                // null: the standard fleet
+    private Ruleset rules = Ruleset.STANDARD;
+
+    /**
+     * Parses command line options.
+     * Supported: --port=N, --mode=blocking|nio, --event-loops=N, --threads=platform|virtual,
+     * --codecs=binary,java (accepted codecs, most preferred first),
+     * --metrics-port=N (plain-text metrics on 127.0.0.1:N/metrics), --pairing=fifo|rtt,
+     * --journal=FILE (memory-mapped session snapshots), --journal-slots=N,
+     * --match-log=DIR (binary event log of every game), --match-log-segment-mb=N,
+     * --resume-grace-seconds=N (how long a seat is kept for a player who lost its connection),
+     * --heartbeat-seconds=N (ping interval, 0 disables), --idle-timeout-seconds=N (silence before a reap),
+     * --outbound-high-kb=N, --outbound-low-kb=N (outbound queue watermarks per connection),
+     * --slow-consumer-ms=N (time allowed above the high watermark), --slow-consumer=disconnect|forfeit,
+     * --bot-after-seconds=N (lobby wait before a server-side bot takes the empty seat, 0 disables),
+     * --bot-samples=N (fleet placements the bot samples per shot: its difficulty), --bot-move-ms=N,
+     * --grid-size=N, --fleet=5,4,3,3,2 (rules of sessions whose players both speak protocol v8)
+     *
+     * @param args the command line arguments
+     * @return the parsed configuration
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    public static ServerConfig parse(String[] args) {
+        ServerConfig config = new ServerConfig();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name  = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "port"                 -> config.port = Integer.parseInt(value);
+                case "mode"                 -> config.mode = Mode.valueOf(value.toUpperCase());
+                case "event-loops"          -> config.eventLoops = Integer.parseInt(value);
+                case "threads"              -> config.threads = Threads.valueOf(value.toUpperCase());
+                case "codecs"               -> config.codecs = parseCodecs(value);
+                case "metrics-port"         -> config.metricsPort = Integer.parseInt(value);
+                case "pairing"              -> config.pairing = Pairing.valueOf(value.toUpperCase());
+                case "journal"              -> config.journal = Path.of(value);
+                case "journal-slots"        -> config.journalSlots = Integer.parseInt(value);
+                case "match-log"            -> config.matchLog = Path.of(value);
+                case "match-log-segment-mb" -> config.matchLogSegmentMb = Integer.parseInt(value);
+                case "resume-grace-seconds" -> config.resumeGraceSeconds = Integer.parseInt(value);
+                case "heartbeat-seconds"    -> config.heartbeatSeconds = Integer.parseInt(value);
+                case "idle-timeout-seconds" -> config.idleTimeoutSeconds = Integer.parseInt(value);
+                case "outbound-high-kb"     -> config.outboundHighKb = Integer.parseInt(value);
+                case "outbound-low-kb"      -> config.outboundLowKb = Integer.parseInt(value);
+                case "slow-consumer-ms"     -> config.slowConsumerMs = Integer.parseInt(value);
+                case "slow-consumer"        -> config.slowConsumer = SlowConsumer.valueOf(value.toUpperCase());
+                case "bot-after-seconds"    -> config.botAfterSeconds = Integer.parseInt(value);
+                case "bot-samples"          -> config.botSamples = Integer.parseInt(value);
+                case "bot-move-ms"          -> config.botMoveMs = Integer.parseInt(value);
+                case "grid-size"            -> config.gridSize = Integer.parseInt(value);
+                case "fleet"                -> config.fleet = value;
+                default -> throw new IllegalArgumentException("Unknown option: --" + name);
+            }
+        }
+        if (config.eventLoops < 1) {
+            throw new IllegalArgumentException("--event-loops must be at least 1");
+        }
+        if (config.journalSlots < 1) {
+            throw new IllegalArgumentException("--journal-slots must be at least 1");
+        }
+        if (config.matchLogSegmentMb < 1) {
+            throw new IllegalArgumentException("--match-log-segment-mb must be at least 1");
+        }
+        if (config.resumeGraceSeconds < 0) {
+            throw new IllegalArgumentException("--resume-grace-seconds must not be negative");
+        }
+        if (config.heartbeatSeconds < 0) {
+            throw new IllegalArgumentException("--heartbeat-seconds must not be negative");
+        }
+        if (config.heartbeatSeconds > 0 && config.idleTimeoutSeconds <= config.heartbeatSeconds) {
+            throw new IllegalArgumentException("--idle-timeout-seconds must be longer than --heartbeat-seconds");
+        }
+        if (config.outboundLowKb < 0 || config.outboundHighKb <= config.outboundLowKb) {
+            throw new IllegalArgumentException("--outbound-high-kb must be above --outbound-low-kb (>= 0)");
+        }
+        if (config.slowConsumerMs < 0) {
+            throw new IllegalArgumentException("--slow-consumer-ms must not be negative");
+        }
+        if (config.botAfterSeconds < 0) {
+            throw new IllegalArgumentException("--bot-after-seconds must not be negative");
+        }
+        if (config.botSamples < 1 || config.botMoveMs < 1) {
+            throw new IllegalArgumentException("--bot-samples and --bot-move-ms must be at least 1");
+        }
+        if (config.gridSize != GameRules.GRID_SIZE || config.fleet != null) {
+            config.rules = config.fleet != null
+                    ? Ruleset.parse(config.gridSize, config.fleet)
+                    : new Ruleset(config.gridSize, GameRules.SHIP_SIZES);
+        }
+        return config;
+    }
+
+    private static byte[] parseCodecs(String value) {
+        String[] names = value.split(",");
+        byte[] ids = new byte[names.length];
+        for (int i = 0; i < names.length; i++) {
+            ids[i] = MessageCodec.idForName(names[i]);
+        }
+        return ids;
+    }
+
+    /** Returns the TCP port to listen on */
+    public int getPort() {
+        return port;
+    }
+
+    /** Returns the execution mode */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /** Returns the number of selector threads used in NIO mode */
+    public int getEventLoops() {
+        return eventLoops;
+    }
+
+    /** Returns the thread kind used for blocking readers */
+    public Threads getThreads() {
+        return threads;
+    }
+
+    /** Returns the ids of the codecs clients may negotiate, most preferred first */
+    public byte[] getCodecs() {
+        return codecs.clone();
+    }
+
+    /** Returns the port of the HTTP metrics endpoint, or 0 if it is disabled */
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    /** Returns the pairing policy of the matchmaker */
+    public Pairing getPairing() {
+        return pairing;
+    }
+
+    /** Returns the session journal file, or null if journaling is disabled */
+    public Path getJournal() {
+        return journal;
+    }
+
+    /** Returns the number of sessions the journal can hold at once */
+    public int getJournalSlots() {
+        return journalSlots;
+    }
+
+    /** Returns the directory of the match log segments, or null if match logging is disabled */
+    public Path getMatchLog() {
+        return matchLog;
+    }
+
+    /** Returns the size in bytes after which the match log starts a new segment */
+    public long getMatchLogSegmentBytes() {
+        return matchLogSegmentMb * 1024L * 1024L;
+    }
+
+    /** Returns the interval between heartbeat pings in milliseconds, 0 if heartbeats are disabled */
+    public int getHeartbeatMillis() {
+        return heartbeatSeconds * 1000;
+    }
+
+    /** Returns how long a connection may stay silent before it is reaped, in milliseconds */
+    public long getIdleTimeoutMillis() {
+        return idleTimeoutSeconds * 1000L;
+    }
+
+    /** Returns the outbound queue size in bytes above which a connection counts as a slow consumer */
+    public long getOutboundHighBytes() {
+        return outboundHighKb * 1024L;
+    }
+
+    /** Returns the outbound queue size in bytes at which a slow consumer has caught up again */
+    public long getOutboundLowBytes() {
+        return outboundLowKb * 1024L;
+    }
+
+    /** Returns how long a connection may stay above the high watermark, in milliseconds */
+    public int getSlowConsumerMillis() {
+        return slowConsumerMs;
+    }
+
+    /** Returns what happens to a slow consumer */
+    public SlowConsumer getSlowConsumer() {
+        return slowConsumer;
+    }
+
+    /** Returns how long a lone player waits before it is seated with a bot, in milliseconds, 0 if never */
+    public long getBotAfterMillis() {
+        return botAfterSeconds * 1000L;
+    }
+
+    /** Returns the number of fleet placements the bot samples per shot */
+    public int getBotSamples() {
+        return botSamples;
+    }
+
+    /** Returns the thinking time the bot gets per shot, in milliseconds */
+    public int getBotMoveMillis() {
+        return botMoveMs;
+    }
+
+    /** Returns the rules new sessions are played with when both players understand them */
+    public Ruleset getRules() {
+        return rules;
+    }
+
+    /** Returns how long a seat is kept for a disconnected player in milliseconds, 0 if never */
+    public long getResumeGraceMillis() {
+        return resumeGraceSeconds * 1000L;
+    }
+}
@@ -0,0 +1,250 @@
+package server;
+
+import common.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * ServerMetrics collects the counters and latency histograms of one server.
+ * Every update is lock-free and allocation-free on the hot path (after the first message
+ * of each type), so sessions can report from any thread without slowing down.
+ * {@link MetricsExporter} publishes it over JMX and HTTP.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+
+    private final AtomicLong connections = new AtomicLong();               // open connections
+    private final LongAdder connectionsReaped = new LongAdder();            // closed by the heartbeat
+    private final LongAdder slowConsumers = new LongAdder();                // dropped for not reading
+    private volatile int lobbyDepth;                                       // connections waiting for a match
+    private final AtomicLong[] sessions = new AtomicLong[GameSession.Phase.values().length]; // sessions per phase
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final Map<Class<?>, LongAdder> messagesIn  = new ConcurrentHashMap<>();
+    private final Map<Class<?>, LongAdder> messagesOut = new ConcurrentHashMap<>();
+    private final LatencyHistogram fireLatency    = new LatencyHistogram(); // nanoseconds
+    private final LatencyHistogram placementReady = new LatencyHistogram(); // nanoseconds
+    private volatile EventLoop[] shards = new EventLoop[0];                // event loops in NIO mode
+
+    public ServerMetrics() {
+        for (int i = 0; i < sessions.length; i++) {
+            sessions[i] = new AtomicLong();
+        }
+    }
+
+    // ===============
+    // === Updates ===
+    // ===============
+
+    /**
+     * Registers the event loops whose load is reported per shard.
+     */
+    void shards(EventLoop[] loops) {
+        shards = loops.clone();
+    }
+
+    void connectionOpened() {
+        connections.incrementAndGet();
+    }
+
+    void connectionClosed() {
+        connections.decrementAndGet();
+    }
+
+    void connectionReaped() {
+        connectionsReaped.increment();
+    }
+
+    void slowConsumer() {
+        slowConsumers.increment();
+    }
+
+    void lobbyDepth(int depth) {
+        lobbyDepth = depth;
+    }
+
+    /**
+     * Moves one session from one phase to another; {@code from} is null for a new session.
+     * CLOSED sessions are not counted.
+     */
+    void phaseChanged(GameSession.Phase from, GameSession.Phase to) {
+        if (from == to) return;
+        if (from != null && from != GameSession.Phase.CLOSED) sessions[from.ordinal()].decrementAndGet();
+        if (to != GameSession.Phase.CLOSED) sessions[to.ordinal()].incrementAndGet();
+    }
+
+    void gameCompleted() {
+        gamesCompleted.increment();
+    }
+
+    void messageIn(Object msg) {
+        messagesIn.computeIfAbsent(msg.getClass(), c -> new LongAdder()).increment();
+    }
+
+    void messageOut(Object msg) {
+        messagesOut.computeIfAbsent(msg.getClass(), c -> new LongAdder()).increment();
+    }
+
+    void fireLatency(long nanos) {
+        fireLatency.record(nanos);
+    }
+
+    void placementToReady(long nanos) {
+        placementReady.record(nanos);
+    }
+
+    // ===============
+    // === Reading ===
+    // ===============
+
+    @Override
+    public long getActiveConnections() {
+        return connections.get();
+    }
+
+    @Override
+    public long getConnectionsReaped() {
+        return connectionsReaped.sum();
+    }
+
+    @Override
+    public long getSlowConsumers() {
+        return slowConsumers.sum();
+    }
+
+    @Override
+    public int getLobbyDepth() {
+        return lobbyDepth;
+    }
+
+    @Override
+    public long getSessionsInPlacement() {
+        return sessions[GameSession.Phase.PLACEMENT.ordinal()].get();
+    }
+
+    @Override
+    public long getSessionsInBattle() {
+        return sessions[GameSession.Phase.BATTLE.ordinal()].get();
+    }
+
+    @Override
+    public long getSessionsInRematch() {
+        return sessions[GameSession.Phase.REMATCH.ordinal()].get();
+    }
+
+    @Override
+    public long getGamesCompleted() {
+        return gamesCompleted.sum();
+    }
+
+    @Override
+    public Map<String, Long> getMessagesIn() {
+        return snapshot(messagesIn);
+    }
+
+    @Override
+    public Map<String, Long> getMessagesOut() {
+        return snapshot(messagesOut);
+    }
+
+    @Override
+    public double getFireLatencyP50Micros() {
+        return fireLatency.percentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getFireLatencyP99Micros() {
+        return fireLatency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getPlacementToReadyP50Millis() {
+        return placementReady.percentile(0.50) / 1e6;
+    }
+
+    @Override
+    public double getPlacementToReadyP99Millis() {
+        return placementReady.percentile(0.99) / 1e6;
+    }
+
+    @Override
+    public Map<String, Long> getShardSessions() {
+        return perShard(EventLoop::sessions);
+    }
+
+    @Override
+    public Map<String, Long> getShardQueueDepth() {
+        return perShard(EventLoop::queueDepth);
+    }
+
+    @Override
+    public Map<String, Long> getShardBusyMillis() {
+        return perShard(l -> l.busyNanos() / 1_000_000);
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text format.
+     */
+    public String render() {
+        StringBuilder sb = new StringBuilder(1024);
+        line(sb, "battleship_connections_active", "", getActiveConnections());
+        line(sb, "battleship_connections_reaped_total", "", getConnectionsReaped());
+        line(sb, "battleship_slow_consumers_total", "", getSlowConsumers());
+        line(sb, "battleship_lobby_depth", "", getLobbyDepth());
+        for (GameSession.Phase phase : GameSession.Phase.values()) {
+            if (phase == GameSession.Phase.CLOSED) continue;
+            line(sb, "battleship_sessions", "{phase=\"" + phase.name().toLowerCase() + "\"}",
+                    sessions[phase.ordinal()].get());
+        }
+        line(sb, "battleship_games_completed_total", "", getGamesCompleted());
+        getMessagesIn().forEach((type, n) ->
+                line(sb, "battleship_messages_in_total", "{type=\"" + type + "\"}", n));
+        getMessagesOut().forEach((type, n) ->
+                line(sb, "battleship_messages_out_total", "{type=\"" + type + "\"}", n));
+        histogram(sb, "battleship_fire_latency_microseconds", fireLatency, 1e3);
+        histogram(sb, "battleship_placement_to_ready_milliseconds", placementReady, 1e6);
+        for (EventLoop l : shards) {
+            String labels = "{shard=\"" + l.name() + "\"}";
+            line(sb, "battleship_shard_sessions", labels, l.sessions());
+            line(sb, "battleship_shard_queue_depth", labels, l.queueDepth());
+            line(sb, "battleship_shard_busy_milliseconds_total", labels, l.busyNanos() / 1_000_000);
+        }
+        return sb.toString();
+    }
+
+    private static void histogram(StringBuilder sb, String name, LatencyHistogram h, double unit) {
+        for (double q : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            sb.append(name).append("{quantile=\"").append(q).append("\"} ")
+              .append(h.percentile(q) / unit).append('\n');
+        }
+        line(sb, name + "_count", "", h.count());
+    }
+
+    private static void line(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private Map<String, Long> perShard(ToLongFunction<EventLoop> gauge) {
+        Map<String, Long> out = new TreeMap<>();
+        for (EventLoop l : shards) {
+            out.put(l.name(), gauge.applyAsLong(l));
+        }
+        return out;
+    }
+
+    private static Map<String, Long> snapshot(Map<Class<?>, LongAdder> counters) {
+        Map<String, Long> out = new TreeMap<>();
+        counters.forEach((type, n) -> out.put(typeName(type), n.sum()));
+        return out;
+    }
+
+    /**
+     * The handshake greeting is a plain string; every other message has its own class.
+     */
+    private static String typeName(Class<?> type) {
+        return type == String.class ? "Welcome" : type.getSimpleName();
+    }
+}
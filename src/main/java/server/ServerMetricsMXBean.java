@@ -0,0 +1,61 @@
+package server;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link ServerMetrics}, registered as {@code battleship:type=ServerMetrics,port=<port>}.
+ * Latencies are percentiles since server start.
+ */
+public interface ServerMetricsMXBean {
+
+    /** Returns the number of open client connections */
+    long getActiveConnections();
+
+    /** Returns the number of connections closed because their peer stopped answering */
+    long getConnectionsReaped();
+
+    /** Returns the number of connections dropped because they did not read their outbound queue */
+    long getSlowConsumers();
+
+    /** Returns the number of connections waiting in the lobby for an opponent */
+    int getLobbyDepth();
+
+    /** Returns the number of sessions in ship placement */
+    long getSessionsInPlacement();
+
+    /** Returns the number of sessions in the battle phase */
+    long getSessionsInBattle();
+
+    /** Returns the number of sessions waiting for rematch votes */
+    long getSessionsInRematch();
+
+    /** Returns the number of games played to the end */
+    long getGamesCompleted();
+
+    /** Returns received messages per message type */
+    Map<String, Long> getMessagesIn();
+
+    /** Returns sent messages per message type */
+    Map<String, Long> getMessagesOut();
+
+    /** Returns the median time from a fire request arriving to its result being sent, in microseconds */
+    double getFireLatencyP50Micros();
+
+    /** Returns the 99th percentile of the fire latency, in microseconds */
+    double getFireLatencyP99Micros();
+
+    /** Returns the median time from match start to a player's ready message, in milliseconds */
+    double getPlacementToReadyP50Millis();
+
+    /** Returns the 99th percentile of the placement-to-ready time, in milliseconds */
+    double getPlacementToReadyP99Millis();
+
+    /** Returns the sessions pinned to each event loop (NIO mode only, otherwise empty) */
+    Map<String, Long> getShardSessions();
+
+    /** Returns the tasks waiting in each event loop's queue (NIO mode only, otherwise empty) */
+    Map<String, Long> getShardQueueDepth();
+
+    /** Returns the time each event loop spent working rather than waiting, in milliseconds */
+    Map<String, Long> getShardBusyMillis();
+}
@@ -0,0 +1,64 @@
+package server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SessionExecutors creates the executor that runs blocking connection readers (and their
+ * outbound drain tasks), and the single timer thread a server uses for session deadlines.
+ * Virtual threads are looked up reflectively so the project still compiles for Java 17;
+ * on a Java 21+ runtime {@code --threads=virtual} gives one cheap virtual thread per reader.
+ */
+final class SessionExecutors {
+
+    private static final String NAME_PREFIX = "GameSession-reader-";
+
+    private SessionExecutors() {}
+
+    /**
+     * Creates an executor that runs every submitted reader on its own thread of the requested kind.
+     * @param threads platform or virtual threads
+     * @return the reader executor
+     * @throws IllegalStateException if virtual threads are requested on a runtime without them
+     */
+    static ExecutorService create(ServerConfig.Threads threads) {
+        if (threads == ServerConfig.Threads.VIRTUAL) {
+            return virtualThreadExecutor();
+        }
+        AtomicLong counter = new AtomicLong();
+        return Executors.newCachedThreadPool(r -> new Thread(r, NAME_PREFIX + counter.getAndIncrement()));
+    }
+
+    /**
+     * Creates the server-wide timer for session deadlines such as resume grace periods.
+     * Its one daemon thread only hands tasks over to the session's own thread or lock.
+     */
+    static ScheduledExecutorService timer() {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "SessionTimer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Equivalent to {@code Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(NAME_PREFIX, 0).factory())}.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, NAME_PREFIX, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) perTask.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("--threads=virtual needs Java 21 or newer (running "
+                    + System.getProperty("java.version") + ")", e);
+        }
+    }
+}
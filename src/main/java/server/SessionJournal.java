@@ -0,0 +1,379 @@
+package server;
+
+import model.GameRules;
+import model.GameState;
+import model.Position;
+import model.Ship;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SessionJournal keeps a crash-safe snapshot of every running game in a memory-mapped file.
+ *
+ * The file is a small header followed by fixed-size slots, one per session. A slot holds the
+ * session id, the players' resume tokens, the ships each player has placed, the ready flags and
+ * the shots fired so far, one byte per shot in firing order. Placing a ship or firing only stores a few bytes into
+ * the mapping and bumps a counter, so the game loop never waits for the disk: the pages
+ * belong to the OS and survive a crash of the server process (not of the machine, since
+ * nothing is forced on the hot path).
+ *
+ * On start-up every live slot is replayed through a fresh {@link GameState}, which rebuilds
+ * the boards, the current player and the winner exactly as they were. The server seats such a
+ * game again with both players away, and they take their seats back with their old resume tokens;
+ * games that cannot be resumed that way are released right after recovery.
+ */
+public class SessionJournal implements AutoCloseable {
+
+    private static final int MAGIC       = 0x42534A31; // "BSJ1"
+    private static final int HEADER_SIZE = 64;
+    private static final int G           = GameRules.GRID_SIZE;
+
+    // Slot layout
+    private static final int STATE      = 0;  // int: FREE or LIVE
+    private static final int SHOT_COUNT = 4;  // int: shots recorded so far
+    private static final int ID         = 8;  // long: session id
+    private static final int READY      = 16; // byte: bit p set once player p is ready
+    private static final int PLACED     = 17; // byte per player: ships recorded
+    private static final int TOKENS     = 24; // long per player: resume token, 0 if none
+    private static final int FLEET      = 40; // 4 bytes per ship: row, col, length, vertical
+    private static final int SHIP_BYTES = 4;
+    private static final int SHOTS      = FLEET + 2 * GameRules.numShips() * SHIP_BYTES;
+    private static final int MAX_SHOTS  = 2 * G * G; // every cell of both boards once
+    private static final int SLOT_SIZE  = (SHOTS + MAX_SHOTS + 63) & ~63; // cache-line aligned
+
+    private static final int  FREE     = 0;
+    private static final int  LIVE     = 1;
+    private static final byte OFF_GRID = (byte) 0xFF; // shot outside the board (always a miss)
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final ArrayDeque<Integer> free = new ArrayDeque<>(); // unused slot numbers, guarded by this
+    private List<Recovered> recovered; // replaced by the resumable ones in start()
+    private long nextId;  // guarded by this
+    private boolean full; // "journal full" already logged, guarded by this
+
+    private SessionJournal(FileChannel channel, MappedByteBuffer map, int slots, boolean fresh) {
+        this.channel = channel;
+        this.map     = map;
+        List<Recovered> live = new ArrayList<>();
+        for (int i = slots - 1; i >= 0; i--) {
+            Slot slot = new Slot(i);
+            Recovered r = !fresh && map.getInt(slot.base + STATE) == LIVE ? slot.tryRecover() : null;
+            if (r != null) {
+                live.add(r);
+                nextId = Math.max(nextId, slot.id() + 1);
+            } else {
+                map.putInt(slot.base + STATE, FREE);
+                free.push(i);
+            }
+        }
+        Collections.reverse(live);
+        this.recovered = Collections.unmodifiableList(live);
+    }
+
+    /**
+     * Maps the journal file, creating it if needed, and recovers the sessions it contains.
+     * A file written for another slot count or grid is discarded and started afresh.
+     *
+     * @param file  the journal file
+     * @param slots maximum number of sessions journaled at the same time
+     */
+    public static SessionJournal open(Path file, int slots) throws IOException {
+        FileChannel ch = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = HEADER_SIZE + (long) slots * SLOT_SIZE;
+            boolean fresh = ch.size() != size;
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.BIG_ENDIAN);
+            fresh |= map.getInt(0) != MAGIC || map.getInt(4) != SLOT_SIZE
+                  || map.getInt(8) != slots || map.getInt(12) != G;
+            if (fresh) {
+                map.putInt(0, MAGIC);
+                map.putInt(4, SLOT_SIZE);
+                map.putInt(8, slots);
+                map.putInt(12, G);
+            }
+            return new SessionJournal(ch, map, slots, fresh);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the journal configured with {@code --journal}, if any, and logs what it recovered.
+     * Recovered games that are over, or whose players hold no resume token or cannot resume because
+     * {@code --resume-grace-seconds} is 0, are released; only the others stay in {@link #recovered()}.
+     * Failures are logged and leave the server running without a journal.
+     *
+     * @return the journal, or null if it is disabled or could not be opened
+     */
+    static SessionJournal start(ServerConfig config) {
+        if (config.getJournal() == null) return null;
+        try {
+            SessionJournal journal = open(config.getJournal(), config.getJournalSlots());
+            System.out.println("Journal: " + config.getJournal() + " (" + config.getJournalSlots() + " slots)");
+            if (!journal.recovered.isEmpty()) {
+                System.out.println("Journal: recovered " + journal.recovered.size() + " sessions");
+                List<Recovered> resumable = new ArrayList<>();
+                for (Recovered r : journal.recovered) {
+                    if (config.getResumeGraceMillis() > 0 && r.isResumable()) {
+                        System.out.println("  " + r + ", waiting for its players to reconnect");
+                        resumable.add(r);
+                    } else {
+                        System.out.println("  " + r + ", cannot be resumed: released");
+                        r.slot().release();
+                    }
+                }
+                journal.recovered = Collections.unmodifiableList(resumable);
+            }
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Journal: cannot open " + config.getJournal() + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the sessions that were running when the previous server process stopped.
+     * Their slots stay reserved until they are released; the server seats each of them again
+     * as a {@link GameSession} waiting for its players.
+     */
+    public List<Recovered> recovered() {
+        return recovered;
+    }
+
+    /**
+     * Reserves a slot for a new session.
+     * @return the slot, or null if every slot is in use (the session then runs unjournaled)
+     */
+    public synchronized Slot claim() {
+        Integer i = free.poll();
+        if (i == null) {
+            if (!full) {
+                System.err.println("Journal: all slots in use, new sessions are not journaled");
+                full = true;
+            }
+            return null;
+        }
+        Slot slot = new Slot(i);
+        slot.begin(nextId++);
+        return slot;
+    }
+
+    private synchronized void free(int index) {
+        free.push(index);
+        full = false;
+    }
+
+    /**
+     * Flushes the mapping to disk. The journal must not be used afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    /**
+     * Slot is the journal record of one session. Its methods are called from the session's
+     * thread only; different slots may be written from different threads.
+     */
+    public final class Slot {
+
+        private final int index;
+        private final int base;     // offset of this slot in the mapping
+        private int shots;          // shots recorded, mirrors SHOT_COUNT
+        private boolean released;
+
+        private Slot(int index) {
+            this.index = index;
+            this.base  = HEADER_SIZE + index * SLOT_SIZE;
+        }
+
+        /** Returns the id of the session recorded in this slot */
+        public long id() {
+            return map.getLong(base + ID);
+        }
+
+        private void begin(long id) {
+            map.putLong(base + ID, id);
+            reset();
+            map.putInt(base + STATE, LIVE); // publish last
+        }
+
+        private void reset() {
+            shots = 0;
+            map.putInt(base + SHOT_COUNT, 0);
+            map.put(base + READY, (byte) 0);
+            map.put(base + PLACED, (byte) 0);
+            map.put(base + PLACED + 1, (byte) 0);
+            map.putLong(base + TOKENS, 0);
+            map.putLong(base + TOKENS + 8, 0);
+        }
+
+        /**
+         * Records the resume tokens of both players, 0 for a player that has none.
+         */
+        public void tokens(long token0, long token1) {
+            map.putLong(base + TOKENS, token0);
+            map.putLong(base + TOKENS + 8, token1);
+        }
+
+        /**
+         * Records a ship the board accepted for the given player.
+         */
+        public void placed(int player, Ship ship) {
+            int n = map.get(base + PLACED + player);
+            int at = base + FLEET + (player * GameRules.numShips() + n) * SHIP_BYTES;
+            Position s = ship.getStart();
+            map.put(at,     (byte) s.getRow());
+            map.put(at + 1, (byte) s.getCol());
+            map.put(at + 2, (byte) ship.length());
+            map.put(at + 3, (byte) (ship.isVertical() ? 1 : 0));
+            map.put(base + PLACED + player, (byte) (n + 1)); // count after the data
+        }
+
+        /**
+         * Records that the given player finished placement.
+         */
+        public void ready(int player) {
+            map.put(base + READY, (byte) (map.get(base + READY) | 1 << player));
+        }
+
+        /**
+         * Appends a shot of the player on turn.
+         * @return false if the slot is full, in which case the slot should be released
+         */
+        public boolean shot(Position p) {
+            if (shots == MAX_SHOTS) return false;
+            boolean onGrid = p.getRow() < G && p.getCol() < G;
+            map.put(base + SHOTS + shots, onGrid ? (byte) (p.getRow() * G + p.getCol()) : OFF_GRID);
+            map.putInt(base + SHOT_COUNT, ++shots); // count after the data
+            return true;
+        }
+
+        /**
+         * Frees the slot; the session will not be recovered after a restart.
+         * Calling it more than once has no effect.
+         */
+        public void release() {
+            if (released) return;
+            released = true;
+            map.putInt(base + STATE, FREE);
+            free(index);
+        }
+
+        /**
+         * Rebuilds the game recorded in this slot, or returns null if the record is corrupt
+         * (a ship or shot the rules reject); the caller then frees the slot.
+         */
+        private Recovered tryRecover() {
+            try {
+                return recover();
+            } catch (RuntimeException e) {
+                System.err.println("Journal: slot " + index + " does not replay, released: " + e);
+                return null;
+            }
+        }
+
+        /**
+         * Rebuilds the game recorded in this slot.
+         * @throws RuntimeException if the record does not replay
+         */
+        private Recovered recover() {
+            GameState state = new GameState();
+            for (int player = 0; player < 2; player++) {
+                int n = map.get(base + PLACED + player);
+                if (n < 0 || n > GameRules.numShips()) {
+                    throw new IllegalArgumentException("player " + player + " placed " + n + " ships");
+                }
+                for (int i = 0; i < n; i++) {
+                    int at = base + FLEET + (player * GameRules.numShips() + i) * SHIP_BYTES;
+                    Position start = Position.of(map.get(at), map.get(at + 1));
+                    int length = map.get(at + 2);
+                    state.placeShip(player, map.get(at + 3) != 0
+                            ? Ship.fromVertical(start, length)
+                            : Ship.fromHorizontal(start, length));
+                }
+            }
+            shots = Math.min(map.getInt(base + SHOT_COUNT), MAX_SHOTS);
+            for (int i = 0; i < shots; i++) {
+                int cell = map.get(base + SHOTS + i) & 0xFF;
+                state.fire(cell == (OFF_GRID & 0xFF) ? Position.of(G, G) : Position.of(cell / G, cell % G));
+            }
+            int ready = map.get(base + READY);
+            return new Recovered(this, state, (ready & 1) != 0, (ready & 2) != 0,
+                    map.getLong(base + TOKENS), map.getLong(base + TOKENS + 8));
+        }
+    }
+
+    /**
+     * Recovered is a session rebuilt from the journal, waiting for its players to come back.
+     */
+    public static final class Recovered {
+
+        private final Slot slot;
+        private final GameState state;
+        private final boolean[] ready;
+        private final long[] tokens;
+
+        Recovered(Slot slot, GameState state, boolean ready0, boolean ready1, long token0, long token1) {
+            this.slot   = slot;
+            this.state  = state;
+            this.ready  = new boolean[]{ready0, ready1};
+            this.tokens = new long[]{token0, token1};
+        }
+
+        /** Returns the id of the recovered session */
+        public long id() {
+            return slot.id();
+        }
+
+        /** Returns the journal slot, which stays reserved for the resumed session */
+        public Slot slot() {
+            return slot;
+        }
+
+        /** Returns the rebuilt game state */
+        public GameState state() {
+            return state;
+        }
+
+        /** Returns whether the player had finished placement */
+        public boolean isReady(int player) {
+            return ready[player];
+        }
+
+        /** Returns whether both players had finished placement, i.e. the battle was running */
+        public boolean inBattle() {
+            return ready[0] && ready[1];
+        }
+
+        /** Returns the resume token the player held, or 0 if it had none */
+        public long resumeToken(int player) {
+            return tokens[player];
+        }
+
+        /** Returns whether the game is undecided and both players can reconnect to it */
+        public boolean isResumable() {
+            return !state.isGameOver() && tokens[0] != 0 && tokens[1] != 0;
+        }
+
+        @Override
+        public String toString() {
+            return "session " + id() + (state.isGameOver() ? " (over)"
+                    : inBattle() ? " (battle, player " + state.getCurrentPlayer() + " to move)" : " (placement)");
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package server;
+
+import common.Handshake;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionRegistry tracks the running sessions of a server by id so spectators can find them,
+ * and by the players' resume tokens so a reconnecting player finds its seat.
+ * Sessions are added when they start and removed when they end; lookups are safe from any thread.
+ */
+class SessionRegistry {
+
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final Map<Long, GameSession> byToken  = new ConcurrentHashMap<>();
+
+    void add(GameSession session) {
+        sessions.put(session.getId(), session);
+        for (int p = 0; p < 2; p++) {
+            if (session.resumeToken(p) != 0) byToken.put(session.resumeToken(p), session);
+        }
+    }
+
+    void remove(GameSession session) {
+        sessions.remove(session.getId());
+        for (int p = 0; p < 2; p++) {
+            byToken.remove(session.resumeToken(p));
+        }
+    }
+
+    /**
+     * Returns the running session one of whose players holds the given resume token, or null.
+     */
+    GameSession findByToken(long token) {
+        return byToken.get(token);
+    }
+
+    /**
+     * Returns the session with the given id, or for {@link Handshake#FEATURED} the featured
+     * session: the one most spectators already watch, the newest on a tie.
+     *
+     * @return the session, or null if there is no such (running) session
+     */
+    GameSession find(long id) {
+        if (id != Handshake.FEATURED) {
+            return sessions.get(id);
+        }
+        GameSession best = null;
+        for (GameSession s : sessions.values()) {
+            if (best == null || s.getSpectatorCount() > best.getSpectatorCount()
+                    || s.getSpectatorCount() == best.getSpectatorCount() && s.getId() > best.getId()) {
+                best = s;
+            }
+        }
+        return best;
+    }
+}